@@ -0,0 +1,30 @@
+package net.blerf.ftl.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Runs the benchmarks with allocation profiling.
+ *
+ * Arguments are the usual JMH command line. The GC profiler is
+ * always added, so results include bytes allocated per operation.
+ */
+public class BenchmarkRunner {
+
+	public static void main( String[] args ) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmdOptions = new CommandLineOptions( args );
+
+		Options options = new OptionsBuilder()
+			.parent( cmdOptions )
+			.addProfiler( GCProfiler.class )
+			.build();
+
+		new Runner( options ).run();
+	}
+}
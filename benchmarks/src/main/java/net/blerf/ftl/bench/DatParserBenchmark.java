@@ -0,0 +1,113 @@
+package net.blerf.ftl.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBException;
+
+import net.blerf.ftl.model.ShipLayout;
+import net.blerf.ftl.parser.MappedDatParser;
+import net.blerf.ftl.xml.Achievement;
+import net.blerf.ftl.xml.Blueprints;
+import net.blerf.ftl.xml.ShipChassis;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DatParserBenchmark {
+
+	private MappedDatParser dataParser;
+	private String chassisPath;
+	private String layoutPath;
+
+	@Setup(Level.Trial)
+	public void setUp( SyntheticFtlState ftl ) throws IOException {
+		dataParser = new MappedDatParser( ftl.dataDatFile );
+
+		String layoutId = ftl.generator.getLayoutId( "PLAYER_SHIP_HARD" );
+		chassisPath = "data/"+ layoutId +".xml";
+		layoutPath = "data/"+ layoutId +".txt";
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		dataParser.close();
+	}
+
+	@Benchmark
+	public void openDat( SyntheticFtlState ftl ) throws IOException {
+		MappedDatParser parser = new MappedDatParser( ftl.dataDatFile );
+		parser.close();
+	}
+
+	@Benchmark
+	public void getInputStream( Blackhole bh ) throws IOException {
+		InputStream in = dataParser.getInputStream( "data/blueprints.xml" );
+		bh.consume( in.read() );
+		in.close();
+	}
+
+	@Benchmark
+	public byte getByteBuffer() throws IOException {
+		return dataParser.getByteBuffer( chassisPath ).get( 0 );
+	}
+
+	@Benchmark
+	public List<Achievement> readAchievements() throws IOException, JAXBException {
+		InputStream in = dataParser.getInputStream( "data/achievements.xml" );
+		try {
+			return dataParser.readAchievements( in );
+		} finally {
+			in.close();
+		}
+	}
+
+	@Benchmark
+	public Blueprints readBlueprints() throws IOException, JAXBException {
+		InputStream in = dataParser.getInputStream( "data/blueprints.xml" );
+		try {
+			return dataParser.readBlueprints( in );
+		} finally {
+			in.close();
+		}
+	}
+
+	@Benchmark
+	public ShipChassis readChassis() throws IOException, JAXBException {
+		InputStream in = dataParser.getInputStream( chassisPath );
+		try {
+			return dataParser.readChassis( in );
+		} finally {
+			in.close();
+		}
+	}
+
+	@Benchmark
+	public ShipLayout readLayout() throws IOException {
+		InputStream in = dataParser.getInputStream( layoutPath );
+		try {
+			return dataParser.readLayout( in );
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package net.blerf.ftl.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import net.blerf.ftl.model.Profile;
+import net.blerf.ftl.parser.ByteBufferReader;
+import net.blerf.ftl.parser.ByteBufferWriter;
+import net.blerf.ftl.parser.ProfileParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProfileParserBenchmark {
+
+	private byte[] profileBytes;
+	private Profile profile;
+
+	@Setup(Level.Trial)
+	public void setUp( SyntheticFtlState ftl ) throws IOException {
+		profileBytes = ByteBufferReader.fromFile( ftl.profileFile ).readBytes( (int)ftl.profileFile.length() );
+		profile = new ProfileParser().readProfile( new ByteBufferReader( ByteBuffer.wrap(profileBytes) ) );
+	}
+
+	@Benchmark
+	public Profile readProfile() throws IOException {
+		return new ProfileParser().readProfile( new ByteBufferReader( ByteBuffer.wrap(profileBytes) ) );
+	}
+
+	@Benchmark
+	public ByteBufferWriter writeProfile() throws IOException {
+		ByteBufferWriter out = new ByteBufferWriter( profileBytes.length );
+		new ProfileParser().writeProfile( out, profile );
+		return out;
+	}
+
+	@Benchmark
+	public Profile readProfileFile( SyntheticFtlState ftl ) throws IOException {
+		return new ProfileParser().readProfile( ByteBufferReader.fromFile( ftl.profileFile ) );
+	}
+}
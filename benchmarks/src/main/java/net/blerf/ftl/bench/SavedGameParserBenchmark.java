@@ -0,0 +1,57 @@
+package net.blerf.ftl.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import net.blerf.ftl.parser.ByteBufferReader;
+import net.blerf.ftl.parser.ByteBufferWriter;
+import net.blerf.ftl.parser.SavedGameParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SavedGameParserBenchmark {
+
+	private byte[] savedGameBytes;
+	private SavedGameParser.SavedGameState gameState;
+
+	@Setup(Level.Trial)
+	public void setUp( SyntheticFtlState ftl ) throws IOException {
+		savedGameBytes = ByteBufferReader.fromFile( ftl.savedGameFile ).readBytes( (int)ftl.savedGameFile.length() );
+		gameState = new SavedGameParser().readSavedGame( new ByteBufferReader( ByteBuffer.wrap(savedGameBytes) ) );
+	}
+
+	@Benchmark
+	public SavedGameParser.SavedGameState readSavedGame() throws IOException {
+		return new SavedGameParser().readSavedGame( new ByteBufferReader( ByteBuffer.wrap(savedGameBytes) ) );
+	}
+
+	@Benchmark
+	public ByteBufferWriter writeSavedGame() throws IOException {
+		ByteBufferWriter out = new ByteBufferWriter( savedGameBytes.length );
+		new SavedGameParser().writeSavedGame( out, gameState );
+		return out;
+	}
+
+	@Benchmark
+	public SavedGameParser.SavedGameState readSavedGameFile( SyntheticFtlState ftl ) throws IOException {
+		return new SavedGameParser().readSavedGame( ftl.savedGameFile );
+	}
+}
@@ -0,0 +1,891 @@
+package net.blerf.ftl.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.xml.bind.JAXBException;
+
+import net.blerf.ftl.model.AchievementRecord;
+import net.blerf.ftl.model.CrewRecord;
+import net.blerf.ftl.model.Profile;
+import net.blerf.ftl.model.Score;
+import net.blerf.ftl.model.Score.Difficulty;
+import net.blerf.ftl.model.ShipLayout;
+import net.blerf.ftl.model.Stats;
+import net.blerf.ftl.parser.ByteBufferWriter;
+import net.blerf.ftl.parser.DataManager;
+import net.blerf.ftl.parser.ProfileParser;
+import net.blerf.ftl.parser.SavedGameParser;
+import net.blerf.ftl.xml.SystemBlueprint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Builds fake FTL data files, so parsing can be exercised without
+ * a licensed install.
+ *
+ * The dat archives use the same header-offset format MappedDatParser
+ * reads. Their XML is well-formed and small, but covers every element
+ * the JAXB classes care about.
+ *
+ * Saved games are built through SavedGameParser's model, which looks
+ * up ship layouts via DataManager. So DataManager must be initialized
+ * against a folder from writeFtlFolder() before calling
+ * writeSavedGame().
+ */
+public class SyntheticDataGenerator {
+
+	private static final Logger log = LogManager.getLogger(SyntheticDataGenerator.class);
+
+	public static final String[] PLAYER_SHIP_IDS = new String[] {
+		"PLAYER_SHIP_HARD", "PLAYER_SHIP_STEALTH", "PLAYER_SHIP_MANTIS",
+		"PLAYER_SHIP_CIRCLE", "PLAYER_SHIP_FED", "PLAYER_SHIP_JELLY",
+		"PLAYER_SHIP_ROCK", "PLAYER_SHIP_ENERGY", "PLAYER_SHIP_CRYSTAL"
+	};
+	public static final String[] BOSS_SHIP_IDS = new String[] {"BOSS_1", "BOSS_2", "BOSS_3"};
+	public static final String[] RACES = new String[] {
+		"human", "engi", "energy", "mantis", "rock", "slug", "crystal"
+	};
+
+	// Saved games store systems in this order.
+	private static final String[] SYSTEM_IDS = new String[] {
+		SystemBlueprint.ID_SHIELDS, SystemBlueprint.ID_ENGINES,
+		SystemBlueprint.ID_OXYGEN, SystemBlueprint.ID_WEAPONS,
+		SystemBlueprint.ID_DRONE_CTRL, SystemBlueprint.ID_MEDBAY,
+		SystemBlueprint.ID_PILOT, SystemBlueprint.ID_SENSORS,
+		SystemBlueprint.ID_DOORS, SystemBlueprint.ID_TELEPORTER,
+		SystemBlueprint.ID_CLOAKING, SystemBlueprint.ID_ARTILLERY
+	};
+
+	private static final int LAYOUT_COLUMNS = 4;
+
+	// Ship blueprints put a system in each of rooms 0-10.
+	private static final int MIN_LAYOUT_ROOMS = SYSTEM_IDS.length-1;
+
+	private Random rng;
+	private int scale = 1;
+
+	private int shipCount;
+	private int autoShipCount;
+	private int weaponCount;
+	private int droneCount;
+	private int augmentCount;
+	private int generalAchievementCount;
+	private int layoutRoomCount = 16;
+	private int fillerCount;
+	private int fillerSize = 2048;
+
+	private int crewCount = 8;
+	private int beaconCount = 24;
+	private int storeCount = 8;
+
+	/**
+	 * Writes a synthetic FTL folder and saves, for testing without
+	 * a licensed install.
+	 *
+	 * Usage: SyntheticDataGenerator outFolder [--seed N] [--scale N]
+	 *   [--crew N] [--beacons N] [--stores N] [--rooms N]
+	 *   [--filler-count N] [--filler-size N]
+	 *
+	 * The outFolder can then be given to DataManager.init(), and it
+	 * will contain prof.sav and continue.sav.
+	 */
+	public static void main( String[] args ) throws IOException, JAXBException {
+		if ( args.length < 1 || args.length % 2 != 1 ) {
+			System.err.println( "Usage: SyntheticDataGenerator outFolder [--seed N] [--scale N] [--crew N] [--beacons N] [--stores N] [--rooms N] [--filler-count N] [--filler-size N]" );
+			System.exit(1);
+		}
+		File outFolder = new File( args[0] );
+
+		Map<String, Integer> options = new LinkedHashMap<String, Integer>();
+		for (int i=1; i < args.length; i+=2) {
+			try {
+				options.put( args[i], Integer.valueOf( args[i+1] ) );
+			}
+			catch ( NumberFormatException e ) {
+				System.err.println( "Not a number for "+ args[i] +": "+ args[i+1] );
+				System.exit(1);
+			}
+		}
+
+		Integer seed = options.remove( "--seed" );
+		SyntheticDataGenerator generator = new SyntheticDataGenerator( (seed != null ? seed.intValue() : 0) );
+
+		// Scale first, since it resets individual counts.
+		Integer scaleOpt = options.remove( "--scale" );
+		if ( scaleOpt != null ) generator.setScale( scaleOpt.intValue() );
+
+		for ( Map.Entry<String, Integer> option : options.entrySet() ) {
+			String name = option.getKey();
+			int n = option.getValue().intValue();
+			if ( name.equals("--crew") ) generator.setCrewCount( n );
+			else if ( name.equals("--beacons") ) generator.setBeaconCount( n );
+			else if ( name.equals("--stores") ) generator.setStoreCount( n );
+			else if ( name.equals("--rooms") ) generator.setLayoutRoomCount( n );
+			else if ( name.equals("--filler-count") ) generator.setFillerCount( n );
+			else if ( name.equals("--filler-size") ) generator.setFillerSize( n );
+			else {
+				System.err.println( "Unknown option: "+ name );
+				System.exit(1);
+			}
+		}
+
+		outFolder.mkdirs();
+		generator.writeFtlFolder( outFolder );
+
+		DataManager.init( outFolder );
+		try {
+			generator.writeProfile( new File(outFolder, "prof.sav") );
+			generator.writeSavedGame( new File(outFolder, "continue.sav") );
+		}
+		finally {
+			DataManager.get().close();
+		}
+
+		log.info( "Wrote synthetic FTL data to: "+ outFolder.getAbsolutePath() );
+	}
+
+	public SyntheticDataGenerator( long seed ) {
+		rng = new Random( seed );
+		setScale( 1 );
+	}
+
+	/**
+	 * Sets the number of ships, weapons, achievements, etc. to a
+	 * multiple of roughly the size of the real game data.
+	 *
+	 * Individual counts may be adjusted afterward.
+	 */
+	public void setScale( int n ) {
+		scale = Math.max(1, n);
+		shipCount = 10 * scale;
+		autoShipCount = 10 * scale;
+		weaponCount = 20 * scale;
+		droneCount = 10 * scale;
+		augmentCount = 10 * scale;
+		generalAchievementCount = 20 * scale;
+		fillerCount = 100 * scale;
+	}
+	public int getScale() { return scale; }
+
+	/** Sets the number of non-player, non-boss ships in blueprints.xml. */
+	public void setShipCount( int n ) { shipCount = Math.max(0, n); }
+	public int getShipCount() { return shipCount; }
+
+	/** Sets the number of ships in autoBlueprints.xml (at least 1). */
+	public void setAutoShipCount( int n ) { autoShipCount = Math.max(1, n); }
+	public int getAutoShipCount() { return autoShipCount; }
+
+	public void setWeaponCount( int n ) { weaponCount = Math.max(1, n); }
+	public int getWeaponCount() { return weaponCount; }
+
+	public void setDroneCount( int n ) { droneCount = Math.max(1, n); }
+	public int getDroneCount() { return droneCount; }
+
+	public void setAugmentCount( int n ) { augmentCount = Math.max(1, n); }
+	public int getAugmentCount() { return augmentCount; }
+
+	/** Sets the number of achievements not tied to a ship. */
+	public void setGeneralAchievementCount( int n ) { generalAchievementCount = Math.max(0, n); }
+	public int getGeneralAchievementCount() { return generalAchievementCount; }
+
+	/** Sets the number of rooms in every ship layout (at least 11). */
+	public void setLayoutRoomCount( int n ) { layoutRoomCount = Math.max(MIN_LAYOUT_ROOMS, n); }
+	public int getLayoutRoomCount() { return layoutRoomCount; }
+
+	/** Sets the number of random binary entries in resource.dat. */
+	public void setFillerCount( int n ) { fillerCount = Math.max(0, n); }
+	public int getFillerCount() { return fillerCount; }
+
+	/** Sets the size, in bytes, of each resource.dat entry. */
+	public void setFillerSize( int n ) { fillerSize = Math.max(0, n); }
+	public int getFillerSize() { return fillerSize; }
+
+	/** Sets the number of crew aboard the saved game's player ship. */
+	public void setCrewCount( int n ) { crewCount = Math.max(0, n); }
+	public int getCrewCount() { return crewCount; }
+
+	/** Sets the number of beacons on the saved game's sector map. */
+	public void setBeaconCount( int n ) { beaconCount = Math.max(1, n); }
+	public int getBeaconCount() { return beaconCount; }
+
+	/**
+	 * Sets the number of beacons with a store.
+	 *
+	 * Every store holds 6 items: the format has two shelves of
+	 * three. Stores beyond the beacon count are dropped.
+	 */
+	public void setStoreCount( int n ) { storeCount = Math.max(0, n); }
+	public int getStoreCount() { return storeCount; }
+
+	public String getWeaponId( int n ) { return "SYNTH_WEAPON_"+ n; }
+	public String getDroneId( int n ) { return "SYNTH_DRONE_"+ n; }
+	public String getAugmentId( int n ) { return "SYNTH_AUG_"+ n; }
+	public String getAutoShipId( int n ) { return "AUTO_SHIP_"+ n; }
+
+	/**
+	 * Returns every ship id in blueprints.xml.
+	 */
+	public List<String> getShipIds() {
+		List<String> result = new ArrayList<String>();
+		for ( String id : PLAYER_SHIP_IDS ) result.add( id );
+		for ( String id : BOSS_SHIP_IDS ) result.add( id );
+		for (int i=0; i < getShipCount(); i++) result.add( "SYNTH_SHIP_"+ i );
+		return result;
+	}
+
+	/**
+	 * Returns the layout/chassis id for a ship.
+	 */
+	public String getLayoutId( String shipId ) {
+		return "synth_"+ shipId.toLowerCase();
+	}
+
+	/**
+	 * Writes resources/data.dat and resources/resource.dat.
+	 */
+	public void writeFtlFolder( File ftlFolder ) throws IOException {
+		File resourcesFolder = new File( ftlFolder, "resources" );
+		resourcesFolder.mkdirs();
+
+		writeDat( new File(resourcesFolder, "data.dat"), buildDataEntries() );
+		writeResourceDat( new File(resourcesFolder, "resource.dat") );
+	}
+
+	/**
+	 * Returns the inner files of a synthetic data.dat, by path.
+	 */
+	public Map<String, byte[]> buildDataEntries() {
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+
+		entries.put( "data/achievements.xml", encode( buildAchievementsXml() ) );
+
+		List<String> shipIds = getShipIds();
+		entries.put( "data/blueprints.xml", encode( buildBlueprintsXml( shipIds ) ) );
+
+		List<String> autoShipIds = new ArrayList<String>();
+		for (int i=0; i < getAutoShipCount(); i++) autoShipIds.add( getAutoShipId(i) );
+		entries.put( "data/autoBlueprints.xml", encode( buildAutoBlueprintsXml( autoShipIds ) ) );
+
+		List<String> allShipIds = new ArrayList<String>( shipIds );
+		allShipIds.addAll( autoShipIds );
+		for ( String shipId : allShipIds ) {
+			String layoutId = getLayoutId( shipId );
+			entries.put( "data/"+ layoutId +".txt", encode( buildLayoutTxt() ) );
+			entries.put( "data/"+ layoutId +".xml", encode( buildChassisXml() ) );
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Writes a synthetic resource.dat full of random filler.
+	 *
+	 * The entries are generated as they're written, so this can
+	 * produce archives much larger than the heap.
+	 */
+	public void writeResourceDat( File datFile ) throws IOException {
+		final List<String> paths = new ArrayList<String>( fillerCount );
+		final int[] sizes = new int[fillerCount];
+		for (int i=0; i < fillerCount; i++) {
+			paths.add( "img/synth/filler_"+ i +".bin" );
+			sizes[i] = fillerSize;
+		}
+
+		final byte[] data = new byte[fillerSize];
+		writeDat( datFile, paths, sizes, new DatEntrySource() {
+			public byte[] getData( int index ) {
+				rng.nextBytes( data );
+				return data;
+			}
+		});
+	}
+
+	public String buildAchievementsXml() {
+		StringBuilder buf = new StringBuilder();
+		buf.append( "<!-- Synthetic achievements -->\n" );
+
+		for ( String shipId : PLAYER_SHIP_IDS ) {
+			for (int i=1; i <= 3; i++) {
+				String id = "ACH_"+ shipId +"_"+ i;
+				buf.append( "<achievement id=\"" ).append( id ).append( "\">\n" );
+				buf.append( "\t<name>" ).append( id ).append( "</name>\n" );
+				buf.append( "\t<desc>Do something notable with " ).append( shipId ).append( ".</desc>\n" );
+				buf.append( "\t<img>achievements/" ).append( id.toLowerCase() ).append( ".png</img>\n" );
+				buf.append( "\t<ship>" ).append( shipId ).append( "</ship>\n" );
+				buf.append( "</achievement>\n" );
+			}
+		}
+		for (int i=0; i < getGeneralAchievementCount(); i++) {
+			String id = "ACH_SYNTH_"+ i;
+			buf.append( "<achievement id=\"" ).append( id ).append( "\">\n" );
+			buf.append( "\t<name>" ).append( id ).append( "</name>\n" );
+			buf.append( "\t<desc>Do something general.</desc>\n" );
+			buf.append( "\t<img>achievements/" ).append( id.toLowerCase() ).append( ".png</img>\n" );
+			buf.append( "\t<multiDifficulty>1</multiDifficulty>\n" );
+			buf.append( "</achievement>\n" );
+		}
+		return buf.toString();
+	}
+
+	public String buildBlueprintsXml( List<String> shipIds ) {
+		StringBuilder buf = new StringBuilder();
+		buf.append( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" );
+		buf.append( "<!-- Synthetic blueprints -->\n" );
+
+		buf.append( "<blueprintList name=\"SYNTH_LIST\">\n" );
+		for ( String shipId : shipIds )
+			buf.append( "\t<name>" ).append( shipId ).append( "</name>\n" );
+		buf.append( "</blueprintList>\n" );
+
+		for ( String race : RACES ) {
+			buf.append( "<crewBlueprint name=\"" ).append( race ).append( "\">\n" );
+			buf.append( "\t<desc>A synthetic crew race.</desc>\n" );
+			buf.append( "\t<cost>45</cost>\n" );
+			buf.append( "\t<bp>1</bp>\n" );
+			buf.append( "\t<title>" ).append( race ).append( "</title>\n" );
+			buf.append( "\t<short>" ).append( race ).append( "</short>\n" );
+			buf.append( "\t<rarity>1</rarity>\n" );
+			buf.append( "\t<powerList>\n\t\t<power>Nothing special</power>\n\t</powerList>\n" );
+			buf.append( "</crewBlueprint>\n" );
+		}
+
+		for ( String systemId : SYSTEM_IDS ) {
+			buf.append( "<systemBlueprint name=\"" ).append( systemId ).append( "\">\n" );
+			buf.append( "\t<type>" ).append( SystemBlueprint.isSubsystem(systemId) ? "subSystem" : "mainSystem" ).append( "</type>\n" );
+			buf.append( "\t<title>" ).append( systemId ).append( "</title>\n" );
+			buf.append( "\t<desc>A synthetic system.</desc>\n" );
+			buf.append( "\t<startPower>1</startPower>\n" );
+			buf.append( "\t<maxPower>8</maxPower>\n" );
+			buf.append( "\t<rarity>0</rarity>\n" );
+			buf.append( "\t<upgradeCost>\n" );
+			for (int i=1; i < 8; i++)
+				buf.append( "\t\t<level>" ).append( i*10 ).append( "</level>\n" );
+			buf.append( "\t</upgradeCost>\n" );
+			buf.append( "\t<cost>50</cost>\n" );
+			buf.append( "</systemBlueprint>\n" );
+		}
+
+		for (int i=0; i < getWeaponCount(); i++) {
+			String id = getWeaponId(i);
+			buf.append( "<weaponBlueprint name=\"" ).append( id ).append( "\">\n" );
+			buf.append( "\t<type>LASER</type>\n" );
+			buf.append( "\t<title>" ).append( id ).append( "</title>\n" );
+			buf.append( "\t<short>" ).append( id ).append( "</short>\n" );
+			buf.append( "\t<desc>A synthetic weapon.</desc>\n" );
+			buf.append( "\t<tooltip>Shoots things.</tooltip>\n" );
+			buf.append( "\t<damage>" ).append( 1 + i%3 ).append( "</damage>\n" );
+			buf.append( "\t<shots>" ).append( 1 + i%4 ).append( "</shots>\n" );
+			buf.append( "\t<sp>0</sp>\n" );
+			buf.append( "\t<fireChance>1</fireChance>\n" );
+			buf.append( "\t<breachChance>0</breachChance>\n" );
+			buf.append( "\t<cooldown>" ).append( 8 + i%12 ).append( "</cooldown>\n" );
+			buf.append( "\t<power>" ).append( 1 + i%3 ).append( "</power>\n" );
+			buf.append( "\t<cost>50</cost>\n" );
+			buf.append( "\t<bp>2</bp>\n" );
+			buf.append( "\t<rarity>1</rarity>\n" );
+			buf.append( "\t<image>laser_burst_1</image>\n" );
+			buf.append( "\t<launchSounds>\n\t\t<sound>lightLaser1</sound>\n\t</launchSounds>\n" );
+			buf.append( "\t<weaponArt>laser_burst_1</weaponArt>\n" );
+			buf.append( "</weaponBlueprint>\n" );
+		}
+
+		for (int i=0; i < getDroneCount(); i++) {
+			String id = getDroneId(i);
+			buf.append( "<droneBlueprint name=\"" ).append( id ).append( "\">\n" );
+			buf.append( "\t<type>COMBAT</type>\n" );
+			buf.append( "\t<title>" ).append( id ).append( "</title>\n" );
+			buf.append( "\t<short>" ).append( id ).append( "</short>\n" );
+			buf.append( "\t<desc>A synthetic drone.</desc>\n" );
+			buf.append( "\t<power>2</power>\n" );
+			buf.append( "\t<cooldown>1000</cooldown>\n" );
+			buf.append( "\t<dodge>0</dodge>\n" );
+			buf.append( "\t<speed>10</speed>\n" );
+			buf.append( "\t<cost>50</cost>\n" );
+			buf.append( "\t<bp>1</bp>\n" );
+			buf.append( "\t<droneImage>drone_combat</droneImage>\n" );
+			buf.append( "\t<rarity>1</rarity>\n" );
+			buf.append( "</droneBlueprint>\n" );
+		}
+
+		for (int i=0; i < getAugmentCount(); i++) {
+			String id = getAugmentId(i);
+			buf.append( "<augBlueprint name=\"" ).append( id ).append( "\">\n" );
+			buf.append( "\t<title>" ).append( id ).append( "</title>\n" );
+			buf.append( "\t<desc>A synthetic augment.</desc>\n" );
+			buf.append( "\t<cost>50</cost>\n" );
+			buf.append( "\t<bp>1</bp>\n" );
+			buf.append( "\t<rarity>1</rarity>\n" );
+			buf.append( "\t<stackable>false</stackable>\n" );
+			buf.append( "\t<value>0.5</value>\n" );
+			buf.append( "</augBlueprint>\n" );
+		}
+
+		for ( String shipId : shipIds ) {
+			appendShipBlueprintXml( buf, shipId );
+		}
+		return buf.toString();
+	}
+
+	public String buildAutoBlueprintsXml( List<String> autoShipIds ) {
+		StringBuilder buf = new StringBuilder();
+		buf.append( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" );
+		buf.append( "<!-- Synthetic auto blueprints -->\n" );
+
+		for ( String shipId : autoShipIds ) {
+			appendShipBlueprintXml( buf, shipId );
+		}
+		return buf.toString();
+	}
+
+	private void appendShipBlueprintXml( StringBuilder buf, String shipId ) {
+		String layoutId = getLayoutId( shipId );
+
+		buf.append( "<shipBlueprint name=\"" ).append( shipId ).append( "\" layout=\"" ).append( layoutId ).append( "\" img=\"" ).append( layoutId ).append( "\">\n" );
+		buf.append( "\t<class>Synthetic Cruiser</class>\n" );
+		buf.append( "\t<name>" ).append( shipId ).append( "</name>\n" );
+		buf.append( "\t<desc>A synthetic ship.</desc>\n" );
+		buf.append( "\t<systemList>\n" );
+		// The first eleven systems each get a room. No artillery.
+		for (int i=0; i < SYSTEM_IDS.length-1; i++) {
+			buf.append( "\t\t<" ).append( SYSTEM_IDS[i] ).append( " power=\"1\" room=\"" ).append( i ).append( "\" start=\"true\"/>\n" );
+		}
+		buf.append( "\t</systemList>\n" );
+		buf.append( "\t<weaponSlots>4</weaponSlots>\n" );
+		buf.append( "\t<droneSlots>3</droneSlots>\n" );
+		buf.append( "\t<weaponList missiles=\"8\" count=\"2\">\n\t\t<weapon name=\"" ).append( getWeaponId(0) ).append( "\"/>\n\t</weaponList>\n" );
+		buf.append( "\t<health amount=\"30\"/>\n" );
+		buf.append( "\t<maxPower amount=\"8\"/>\n" );
+		buf.append( "\t<crewCount amount=\"3\" class=\"human\"/>\n" );
+		buf.append( "</shipBlueprint>\n" );
+	}
+
+	/**
+	 * Returns a layout of 2x2 rooms in rows, with a door between
+	 * horizontal neighbors and a vacuum door on each row's end.
+	 */
+	public String buildLayoutTxt() {
+		StringBuilder buf = new StringBuilder();
+		buf.append( "X_OFFSET\n2\nY_OFFSET\n1\nHORIZONTAL\n0\nVERTICAL\n0\n" );
+		buf.append( "ELLIPSE\n300\n200\n0\n0\n" );
+
+		for (int r=0; r < layoutRoomCount; r++) {
+			int x = (r % LAYOUT_COLUMNS) * 2;
+			int y = (r / LAYOUT_COLUMNS) * 2;
+			buf.append( "ROOM\n" ).append( r ).append( "\n" ).append( x ).append( "\n" ).append( y ).append( "\n2\n2\n" );
+		}
+		for (int r=0; r < layoutRoomCount; r++) {
+			int x = (r % LAYOUT_COLUMNS) * 2;
+			int y = (r / LAYOUT_COLUMNS) * 2;
+			if ( r % LAYOUT_COLUMNS < LAYOUT_COLUMNS-1 && r+1 < layoutRoomCount ) {
+				buf.append( "DOOR\n" ).append( x+2 ).append( "\n" ).append( y ).append( "\n" ).append( r ).append( "\n" ).append( r+1 ).append( "\n1\n" );
+			} else {
+				buf.append( "DOOR\n" ).append( x+2 ).append( "\n" ).append( y+1 ).append( "\n" ).append( r ).append( "\n-1\n1\n" );
+			}
+		}
+		return buf.toString();
+	}
+
+	public String buildChassisXml() {
+		StringBuilder buf = new StringBuilder();
+		buf.append( "<!-- Synthetic chassis -->\n" );
+		buf.append( "<img x=\"-40\" y=\"-30\" w=\"" ).append( LAYOUT_COLUMNS*70+80 ).append( "\" h=\"" ).append( ((layoutRoomCount+LAYOUT_COLUMNS-1)/LAYOUT_COLUMNS)*70+60 ).append( "\"/>\n" );
+		buf.append( "<weaponMounts>\n" );
+		for (int i=0; i < 4; i++) {
+			buf.append( "\t<mount x=\"" ).append( 40+i*60 ).append( "\" y=\"" ).append( (i%2==0 ? -10 : 290) ).append( "\" rotate=\"false\" mirror=\"" ).append( i%2==1 ).append( "\" gib=\"" ).append( i+1 ).append( "\" slide=\"" ).append( (i%2==0 ? "up" : "down") ).append( "\"/>\n" );
+		}
+		buf.append( "</weaponMounts>\n" );
+		buf.append( "<explosion>\n" );
+		for (int i=1; i <= 4; i++) {
+			buf.append( "\t<gib" ).append( i ).append( ">\n" );
+			buf.append( "\t\t<velocity min=\"0.2\" max=\"1.0\"/>\n" );
+			buf.append( "\t\t<direction min=\"0\" max=\"360\"/>\n" );
+			buf.append( "\t\t<angular min=\"-0.5\" max=\"0.5\"/>\n" );
+			buf.append( "\t\t<x>" ).append( i*30 ).append( "</x>\n\t\t<y>" ).append( i*20 ).append( "</y>\n" );
+			buf.append( "\t</gib" ).append( i ).append( ">\n" );
+		}
+		buf.append( "</explosion>\n" );
+		return buf.toString();
+	}
+
+	/**
+	 * Writes a dat archive.
+	 *
+	 * The header is an int count followed by that many absolute
+	 * offsets. Each offset points at an int data size, a path
+	 * string, and then the data itself.
+	 */
+	public static void writeDat( File datFile, final Map<String, byte[]> entries ) throws IOException {
+		final List<String> paths = new ArrayList<String>( entries.keySet() );
+		int[] sizes = new int[paths.size()];
+		for (int i=0; i < sizes.length; i++)
+			sizes[i] = entries.get( paths.get(i) ).length;
+
+		writeDat( datFile, paths, sizes, new DatEntrySource() {
+			public byte[] getData( int index ) {
+				return entries.get( paths.get(index) );
+			}
+		});
+	}
+
+	/**
+	 * Writes a dat archive, fetching each entry's data only as it's
+	 * reached, through a small reusable buffer.
+	 *
+	 * @param sizes the length of the array each getData() call will return
+	 */
+	private static void writeDat( File datFile, List<String> paths, int[] sizes, DatEntrySource source ) throws IOException {
+		log.trace( "Writing synthetic dat: "+ datFile.getPath() +" ("+ paths.size() +" entries)" );
+
+		ByteBuffer buf = ByteBuffer.allocate( 64 * 1024 );
+		buf.order( ByteOrder.LITTLE_ENDIAN );
+
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream( datFile );
+			FileChannel channel = out.getChannel();
+
+			putInt( channel, buf, paths.size() );
+
+			long offset = 4 + 4L*paths.size();
+			for (int i=0; i < paths.size(); i++) {
+				if ( offset > Integer.MAX_VALUE )
+					throw new IOException( "Dat archive would exceed the 2GB its int offsets can address" );
+				putInt( channel, buf, (int)offset );
+				offset += 8 + paths.get(i).getBytes().length + sizes[i];
+			}
+
+			for (int i=0; i < paths.size(); i++) {
+				byte[] pathBytes = paths.get(i).getBytes();
+				putInt( channel, buf, sizes[i] );
+				putInt( channel, buf, pathBytes.length );
+				putBytes( channel, buf, pathBytes );
+				putBytes( channel, buf, source.getData(i) );
+			}
+			flush( channel, buf );
+
+		} finally {
+			try {if (out != null) out.close();}
+			catch (IOException e) {}
+		}
+	}
+
+	private static void putInt( FileChannel channel, ByteBuffer buf, int value ) throws IOException {
+		if ( buf.remaining() < 4 ) flush( channel, buf );
+		buf.putInt( value );
+	}
+
+	private static void putBytes( FileChannel channel, ByteBuffer buf, byte[] bytes ) throws IOException {
+		int offset = 0;
+		while ( offset < bytes.length ) {
+			if ( !buf.hasRemaining() ) flush( channel, buf );
+			int n = Math.min( buf.remaining(), bytes.length-offset );
+			buf.put( bytes, offset, n );
+			offset += n;
+		}
+	}
+
+	private static void flush( FileChannel channel, ByteBuffer buf ) throws IOException {
+		buf.flip();
+		while ( buf.hasRemaining() )
+			channel.write( buf );
+		buf.clear();
+	}
+
+	public Profile buildProfile() {
+		Profile p = Profile.createEmptyProfile();
+
+		boolean[] unlocks = p.getShipUnlocks();
+		for (int i=0; i < unlocks.length; i++)
+			unlocks[i] = rng.nextBoolean();
+		unlocks[0] = true;
+
+		List<AchievementRecord> achievements = p.getAchievements();
+		for ( String shipId : PLAYER_SHIP_IDS ) {
+			for (int i=1; i <= 3; i++) {
+				if ( rng.nextBoolean() )
+					achievements.add( new AchievementRecord( "ACH_"+ shipId +"_"+ i, Difficulty.NORMAL ) );
+			}
+		}
+		for (int i=0; i < getGeneralAchievementCount(); i++) {
+			if ( rng.nextBoolean() )
+				achievements.add( new AchievementRecord( "ACH_SYNTH_"+ i, (rng.nextBoolean() ? Difficulty.NORMAL : Difficulty.EASY) ) );
+		}
+
+		Stats stats = p.getStats();
+		for (int i=0; i < 5; i++) {
+			stats.getTopScores().add( buildScore( PLAYER_SHIP_IDS[rng.nextInt(PLAYER_SHIP_IDS.length)] ) );
+		}
+		for ( String shipId : PLAYER_SHIP_IDS ) {
+			stats.getShipBest().add( buildScore( shipId ) );
+		}
+		stats.setMostShipsDefeated( rng.nextInt(100) );
+		stats.setTotalShipsDefeated( rng.nextInt(5000) );
+		stats.setMostBeaconsExplored( rng.nextInt(100) );
+		stats.setTotalBeaconsExplored( rng.nextInt(5000) );
+		stats.setMostScrapCollected( rng.nextInt(3000) );
+		stats.setTotalScrapCollected( rng.nextInt(100000) );
+		stats.setMostCrewHired( rng.nextInt(20) );
+		stats.setTotalCrewHired( rng.nextInt(500) );
+		stats.setTotalGamesPlayed( rng.nextInt(500) );
+		stats.setTotalVictories( rng.nextInt(50) );
+		stats.setMostRepairs( buildCrewRecord() );
+		stats.setMostKills( buildCrewRecord() );
+		stats.setMostEvasions( buildCrewRecord() );
+		stats.setMostJumps( buildCrewRecord() );
+		stats.setMostSkills( buildCrewRecord() );
+
+		return p;
+	}
+
+	private Score buildScore( String shipId ) {
+		return new Score( "Synthetic "+ rng.nextInt(1000), shipId, rng.nextInt(8000), 1+rng.nextInt(8), (rng.nextBoolean() ? Difficulty.NORMAL : Difficulty.EASY), rng.nextInt(4)==0 );
+	}
+
+	private CrewRecord buildCrewRecord() {
+		return new CrewRecord( "Crew "+ rng.nextInt(1000), RACES[rng.nextInt(RACES.length)], rng.nextInt(200), rng.nextInt(2) );
+	}
+
+	public void writeProfile( File f ) throws IOException {
+		ProfileParser parser = new ProfileParser();
+		ByteBufferWriter out = new ByteBufferWriter();
+		parser.writeProfile( out, buildProfile() );
+		out.writeToFile( f );
+	}
+
+	/**
+	 * Builds a saved game around the Kestrel-equivalent ship.
+	 *
+	 * The first beacons get stores, up to the store count.
+	 */
+	public SavedGameParser.SavedGameState buildSavedGame( SavedGameParser parser ) {
+		SavedGameParser.SavedGameState gameState = parser.new SavedGameState();
+
+		String playerShipId = PLAYER_SHIP_IDS[0];
+		gameState.setDifficultyEasy( rng.nextBoolean() );
+		gameState.setTotalShipsDefeated( rng.nextInt(50) );
+		gameState.setTotalBeaconsExplored( rng.nextInt(100) );
+		gameState.setTotalScrapCollected( rng.nextInt(3000) );
+		gameState.setTotalCrewHired( rng.nextInt(20) );
+		gameState.setPlayerShipName( "The Synthetic" );
+		gameState.setPlayerShipBlueprintId( playerShipId );
+		gameState.setSectorNumber( rng.nextInt(8) );
+
+		String[] stateVarIds = new String[] {"blue_alien", "dead_crew", "env_danger", "fired_shot", "killed_crew", "store_purchase", "used_missile", "weapon_upgrade"};
+		for ( String stateVarId : stateVarIds )
+			gameState.setStateVar( stateVarId, rng.nextInt(100) );
+
+		gameState.setPlayerShipState( buildShip( parser, playerShipId, "The Synthetic", false, crewCount ) );
+
+		for (int i=0; i < 3; i++)
+			gameState.addCargoItemId( getWeaponId( rng.nextInt(getWeaponCount()) ) );
+
+		gameState.setSectorTreeSeed( rng.nextInt() );
+		gameState.setSectorLayoutSeed( rng.nextInt() );
+		gameState.setRebelFleetOffset( -25 * rng.nextInt(40) );
+		gameState.setRebelFleetFudge( 100 + rng.nextInt(200) );
+		gameState.setRebelPursuitMod( 0 );
+		gameState.setSectorHazardsVisible( rng.nextBoolean() );
+		gameState.setRebelFlagshipVisible( false );
+		gameState.setRebelFlagshipHop( 0 );
+		gameState.setRebelFlagshipApproaching( false );
+
+		for (int i=0; i < 24; i++)
+			gameState.addSector( rng.nextBoolean() );
+		gameState.setSectorIsHiddenCrystalWorlds( false );
+
+		for (int i=0; i < beaconCount; i++)
+			gameState.addBeacon( buildBeacon( parser, (i < storeCount) ) );
+
+		for (int i=0; i < 2; i++)
+			gameState.addQuestEvent( "SYNTH_QUEST_"+ i, rng.nextInt(beaconCount) );
+		gameState.addDistantQuestEvent( "SYNTH_DISTANT_QUEST" );
+
+		gameState.setCurrentBeaconId( rng.nextInt(beaconCount) );
+
+		gameState.setNearbyShipState( buildShip( parser, getAutoShipId(0), "Synthetic Pirate", true, 3 ) );
+
+		SavedGameParser.RebelFlagshipState flagship = parser.new RebelFlagshipState( BOSS_SHIP_IDS );
+		flagship.setPendingStage( 1 );
+		for (int i=0; i < 19; i++)
+			flagship.setPreviousOccupancy( i, rng.nextInt(3) );
+		gameState.setRebelFlagshipState( flagship );
+
+		return gameState;
+	}
+
+	private SavedGameParser.ShipState buildShip( SavedGameParser parser, String shipId, String shipName, boolean auto, int crewCount ) {
+		String layoutId = getLayoutId( shipId );
+		ShipLayout shipLayout = DataManager.get().getShipLayout( layoutId );
+		if ( shipLayout == null )
+			throw new RuntimeException( "DataManager has no layout for synthetic ship: "+ shipId );
+
+		SavedGameParser.ShipState shipState = parser.new ShipState( shipName, shipId, layoutId, auto );
+		shipState.setShipGraphicsBaseName( layoutId );
+
+		for (int i=0; i < 3; i++)
+			shipState.addStartingCrewMember( parser.new StartingCrewState( "Starter "+ i, RACES[i % RACES.length] ) );
+
+		shipState.setHullAmt( 1+rng.nextInt(30) );
+		shipState.setFuelAmt( rng.nextInt(30) );
+		shipState.setDronePartsAmt( rng.nextInt(20) );
+		shipState.setMissilesAmt( rng.nextInt(20) );
+		shipState.setScrapAmt( rng.nextInt(1000) );
+
+		int roomCount = shipLayout.getRoomCount();
+		for (int i=0; i < crewCount; i++) {
+			SavedGameParser.CrewState crew = new SavedGameParser.CrewState();
+			crew.setName( "Crew "+ i );
+			crew.setRace( RACES[rng.nextInt(RACES.length)] );
+			crew.setHealth( 1+rng.nextInt(100) );
+			crew.setRoomId( rng.nextInt(roomCount) );
+			crew.setRoomSquare( rng.nextInt(4) );
+			crew.setSpriteX( rng.nextInt(300) );
+			crew.setSpriteY( rng.nextInt(300) );
+			crew.setPlayerControlled( !auto );
+			crew.setPilotSkill( rng.nextInt(30) );
+			crew.setEngineSkill( rng.nextInt(30) );
+			crew.setShieldSkill( rng.nextInt(110) );
+			crew.setWeaponSkill( rng.nextInt(130) );
+			crew.setRepairSkill( rng.nextInt(36) );
+			crew.setCombatSkill( rng.nextInt(16) );
+			crew.setMale( rng.nextBoolean() );
+			crew.setRepairs( rng.nextInt(100) );
+			crew.setCombatKills( rng.nextInt(100) );
+			crew.setPilotedEvasions( rng.nextInt(100) );
+			crew.setJumpsSurvived( rng.nextInt(100) );
+			crew.setSkillMasteries( rng.nextInt(12) );
+			shipState.addCrewMember( crew );
+		}
+
+		shipState.setReservePowerCapacity( 8 );
+		for (int i=0; i < SYSTEM_IDS.length; i++) {
+			SavedGameParser.SystemState system = new SavedGameParser.SystemState( SYSTEM_IDS[i] );
+			// Artillery is absent, taking up just its capacity int.
+			if ( i < SYSTEM_IDS.length-1 ) {
+				system.setCapacity( 1+rng.nextInt(8) );
+				system.setPower( rng.nextInt(system.getCapacity()+1) );
+				system.setDamagedBars( 0 );
+				system.setIonizedBars( 0 );
+				system.setRepairProgress( 0 );
+				system.setDamageProgress( 0 );
+			}
+			shipState.addSystem( system );
+		}
+
+		for (int r=0; r < roomCount; r++) {
+			SavedGameParser.RoomState room = new SavedGameParser.RoomState();
+			room.setOxygen( rng.nextInt(101) );
+			int squaresH = shipLayout.getRoomSquaresH(r);
+			int squaresV = shipLayout.getRoomSquaresV(r);
+			for (int s=0; s < squaresH*squaresV; s++)
+				room.addSquare( (rng.nextInt(10)==0 ? rng.nextInt(101) : 0), 0, -1 );
+			shipState.addRoom( room );
+		}
+
+		shipState.setBreach( shipLayout.getOffsetX()+1, shipLayout.getOffsetY()+1, rng.nextInt(101) );
+
+		for (int d=0; d < shipLayout.getDoorCount(); d++) {
+			ShipLayout.DoorCoordinate doorCoord = shipLayout.getDoorCoordinate(d);
+			shipState.setDoor( doorCoord.x, doorCoord.y, doorCoord.v, new SavedGameParser.DoorState( rng.nextBoolean(), false ) );
+		}
+
+		for (int i=0; i < 3; i++)
+			shipState.addWeapon( new SavedGameParser.WeaponState( getWeaponId( rng.nextInt(getWeaponCount()) ), rng.nextBoolean(), 0 ) );
+
+		for (int i=0; i < 2; i++) {
+			SavedGameParser.DroneState drone = parser.new DroneState( getDroneId( rng.nextInt(getDroneCount()) ) );
+			shipState.addDrone( drone );
+		}
+
+		shipState.addAugmentId( getAugmentId( rng.nextInt(getAugmentCount()) ) );
+
+		return shipState;
+	}
+
+	private SavedGameParser.BeaconState buildBeacon( SavedGameParser parser, boolean storePresent ) {
+		SavedGameParser.BeaconState beacon = parser.new BeaconState();
+
+		beacon.setVisited( rng.nextBoolean() );
+		if ( beacon.isVisited() ) {
+			beacon.setBgStarscapeImageInnerPath( "img/stars/bg_synth_"+ rng.nextInt(4) +".png" );
+			beacon.setBgSpriteImageInnerPath( "img/planets/synth_"+ rng.nextInt(8) +".png" );
+			beacon.setBgSpritePosX( rng.nextInt(1280) );
+			beacon.setBgSpritePosY( rng.nextInt(720) );
+			beacon.setUnknownVisitedAlpha( (rng.nextBoolean() ? 0 : 180) );
+		}
+		beacon.setSeen( rng.nextBoolean() );
+
+		beacon.setEnemyPresent( rng.nextInt(4) == 0 );
+		if ( beacon.isEnemyPresent() ) {
+			beacon.setShipEventId( "SYNTH_SHIP_EVENT" );
+			beacon.setShipBlueprintListId( "SYNTH_LIST" );
+			beacon.setUnknownEnemyPresentAlpha( rng.nextInt(100) );
+		}
+
+		SavedGameParser.FleetPresence[] fleets = SavedGameParser.FleetPresence.values();
+		beacon.setFleetPresence( fleets[rng.nextInt(fleets.length)] );
+		beacon.setUnderAttack( false );
+
+		beacon.setStorePresent( storePresent );
+		if ( storePresent ) {
+			SavedGameParser.StoreState store = parser.new StoreState();
+			store.setTopShelf( buildStoreShelf( parser, SavedGameParser.StoreItemType.WEAPON ) );
+			store.setBottomShelf( buildStoreShelf( parser, SavedGameParser.StoreItemType.DRONE ) );
+			store.setFuel( rng.nextInt(10) );
+			store.setMissiles( rng.nextInt(10) );
+			store.setDroneParts( rng.nextInt(10) );
+			beacon.setStore( store );
+		}
+		return beacon;
+	}
+
+	private SavedGameParser.StoreShelf buildStoreShelf( SavedGameParser parser, SavedGameParser.StoreItemType itemType ) {
+		SavedGameParser.StoreShelf shelf = parser.new StoreShelf();
+		shelf.setItemType( itemType );
+		for (int i=0; i < 3; i++) {
+			String itemId;
+			if ( itemType == SavedGameParser.StoreItemType.WEAPON )
+				itemId = getWeaponId( rng.nextInt(getWeaponCount()) );
+			else
+				itemId = getDroneId( rng.nextInt(getDroneCount()) );
+			shelf.addItem( parser.new StoreItem( rng.nextBoolean(), itemId ) );
+		}
+		return shelf;
+	}
+
+	public void writeSavedGame( File f ) throws IOException {
+		SavedGameParser parser = new SavedGameParser();
+		ByteBufferWriter out = new ByteBufferWriter();
+		parser.writeSavedGame( out, buildSavedGame( parser ) );
+		out.writeToFile( f );
+	}
+
+	/**
+	 * Supplies inner file data, one entry at a time, as a dat is written.
+	 */
+	private interface DatEntrySource {
+		public byte[] getData( int index ) throws IOException;
+	}
+
+	private static byte[] encode( String s ) {
+		try {
+			return s.getBytes( "UTF-8" );
+		}
+		catch ( UnsupportedEncodingException e ) {
+			throw new RuntimeException( e );
+		}
+	}
+}
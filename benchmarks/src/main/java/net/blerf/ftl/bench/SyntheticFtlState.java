@@ -0,0 +1,84 @@
+package net.blerf.ftl.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.blerf.ftl.parser.DataManager;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * A synthetic FTL install and saves, generated once per trial.
+ *
+ * DataManager is a singleton, so it's pointed at this folder too.
+ */
+@State(Scope.Benchmark)
+public class SyntheticFtlState {
+
+	/** Multiplier for the amount of generated game data. */
+	@Param({"1"})
+	public int scale;
+
+	/** Crew aboard the saved game's player ship. */
+	@Param({"8"})
+	public int crewCount;
+
+	/** Beacons on the saved game's sector map. */
+	@Param({"24"})
+	public int beaconCount;
+
+	/** Beacons with a store, each holding 6 items. */
+	@Param({"8"})
+	public int storeCount;
+
+	public File ftlFolder;
+	public File dataDatFile;
+	public File profileFile;
+	public File savedGameFile;
+	public SyntheticDataGenerator generator;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		ftlFolder = File.createTempFile( "ftl-bench", "" );
+		ftlFolder.delete();
+		ftlFolder.mkdirs();
+
+		generator = new SyntheticDataGenerator( 42 );
+		generator.setScale( scale );
+		generator.setCrewCount( crewCount );
+		generator.setBeaconCount( beaconCount );
+		generator.setStoreCount( storeCount );
+		generator.writeFtlFolder( ftlFolder );
+		dataDatFile = new File( ftlFolder, "resources/data.dat" );
+
+		DataManager.init( ftlFolder );
+
+		profileFile = new File( ftlFolder, "prof.sav" );
+		generator.writeProfile( profileFile );
+
+		savedGameFile = new File( ftlFolder, "continue.sav" );
+		generator.writeSavedGame( savedGameFile );
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		if ( DataManager.get() != null )
+			DataManager.get().close();
+		delete( ftlFolder );
+	}
+
+	private static void delete( File f ) {
+		File[] children = f.listFiles();
+		if ( children != null ) {
+			for ( File child : children )
+				delete( child );
+		}
+		f.delete();
+	}
+}
@@ -14,7 +14,10 @@ import javax.swing.UIManager;
 import javax.swing.filechooser.FileFilter;
 
 import net.blerf.ftl.parser.DataManager;
+import net.blerf.ftl.parser.MappedDatParser;
+import net.blerf.ftl.tools.SaveSummarizer;
 import net.blerf.ftl.ui.FTLFrame;
+import net.blerf.ftl.ui.ImageCache;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -26,15 +29,23 @@ public class FTLProfileEditor {
 	
 	private static final int VERSION = 11;
 
+	// Derived data, like dat indexes and parsed XML, is kept here between runs.
+	private static final File CACHE_FOLDER = new File( System.getProperty("user.home"), ".ftl-profile-editor/cache" );
+
 	public static void main(String[] args) {
 		
 		// Read config file and locate FTL install
 		File propFile = new File("ftl-editor.cfg");
 		File ftlPath = null;
 
+		boolean batchMode = ( args.length > 0 && args[0].equals("--batch") );
 		boolean writeConfig = false;
 		Properties config = new Properties();
 		config.setProperty( "useDefaultUI", "false" );
+		config.setProperty( "prewarmShips", "true" );
+		config.setProperty( "parseStats", "false" );
+		config.setProperty( "verifySavedGames", "false" );
+		config.setProperty( "imageCacheMB", "64" );
 	
 		InputStream in = null;
 		try {
@@ -47,11 +58,27 @@ public class FTLProfileEditor {
 			}
 		} catch (IOException e) {
 			log.error( "Error loading config", e );
-			showErrorDialog( "Error loading config from " + propFile.getPath() );
+			if ( !batchMode ) showErrorDialog( "Error loading config from " + propFile.getPath() );
 		} finally {
 			if ( in != null ) { try { in.close(); } catch (IOException e) {} }
 		}
 
+		// Headless batch summaries, without touching Swing
+		if ( batchMode ) {
+			String ftlPathString = config.getProperty("ftlPath");
+			String[] batchArgs = new String[args.length-1];
+			System.arraycopy( args, 1, batchArgs, 0, batchArgs.length );
+			try {
+				MappedDatParser.setIndexCacheFolder( CACHE_FOLDER );
+				DataManager.setSnapshotFolder( CACHE_FOLDER );
+				int failures = SaveSummarizer.run( batchArgs, (ftlPathString != null ? new File(ftlPathString) : null) );
+				System.exit( (failures == 0 ? 0 : (failures < 0 ? 2 : 1)) );
+			} catch (Exception e) {
+				log.error( "Error summarizing files", e );
+				System.exit(2);
+			}
+		}
+
 		// LnF
 		String useDefaultUI = config.getProperty("useDefaultUI");
 
@@ -106,6 +133,8 @@ public class FTLProfileEditor {
 		// Initialise data store
 		try {
 			
+			MappedDatParser.setIndexCacheFolder( CACHE_FOLDER );
+			DataManager.setSnapshotFolder( CACHE_FOLDER );
 			DataManager.init( ftlPath );
 			
 		} catch (Exception e) {
@@ -114,10 +143,22 @@ public class FTLProfileEditor {
 			System.exit(1);
 		}
 
+		try {
+			ImageCache.get().setBudget( Long.parseLong( config.getProperty("imageCacheMB") ) * 1024 * 1024 );
+		} catch (NumberFormatException e) {
+			log.warn( "Ignoring a non-numeric imageCacheMB in the config: "+ config.getProperty("imageCacheMB") );
+		}
+
 		try {
 			FTLFrame frame = new FTLFrame(VERSION);
+			frame.setParseStatsEnabled( "true".equals( config.getProperty("parseStats") ) );
+			frame.setSavedGameVerificationEnabled( "true".equals( config.getProperty("verifySavedGames") ) );
 			frame.setVisible(true);
 
+			// Parse ship layouts while the user's idle, so saves open quickly.
+			if ( "true".equals( config.getProperty("prewarmShips") ) )
+				DataManager.get().prewarmShips();
+
 		} catch (Exception e) {
 			log.error( "Exception while creating FTLFrame", e );
 			// Required to kill Swing or process will remain active
@@ -2,12 +2,22 @@ package net.blerf.ftl.model;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
-import java.util.TreeMap;
-import java.util.NoSuchElementException;
 
 
+/**
+ * A ship's rooms and doors, as described by its layout text file.
+ *
+ * Everything is held in parallel primitive arrays, so the int
+ * accessors (getRoomLocationX(), getDoorRoomIdA(), etc) don't box or
+ * allocate. A grid mapping each square to its room and square ids is
+ * built on first use. The EnumMap accessors remain, as views built
+ * from the arrays on request.
+ *
+ * Layouts are populated once, when parsed, and shared read-only after.
+ */
 public class ShipLayout {
 	// TODO: Some ROOM values haven't been deciphered (see: setRoom()).
 
@@ -16,8 +26,24 @@ public class ShipLayout {
 
 	private int offsetX = 0, offsetY = 0, horizontal = 0, vertical = 0;
 	private Rectangle shieldEllipse = new Rectangle();
-	private TreeMap<Integer, EnumMap<RoomInfo,Integer>> roomMap = new TreeMap<Integer, EnumMap<RoomInfo,Integer>>();
-	private LinkedHashMap<DoorCoordinate, EnumMap<DoorInfo,Integer>> doorMap = new LinkedHashMap<DoorCoordinate, EnumMap<DoorInfo,Integer>>();
+
+	// Indexed by roomId.
+	private int roomCount = 0;
+	private boolean[] roomDefined = new boolean[0];
+	private int[] roomLocX = new int[0];
+	private int[] roomLocY = new int[0];
+	private int[] roomSquaresH = new int[0];
+	private int[] roomSquaresV = new int[0];
+
+	// Indexed in the order of the layout file.
+	private int doorCount = 0;
+	private long[] doorKeys = new long[0];
+	private DoorCoordinate[] doorCoords = new DoorCoordinate[0];
+	private int[] doorRoomIdA = new int[0];
+	private int[] doorRoomIdB = new int[0];
+
+	private volatile SquareGrid squareGrid = null;
+	private volatile LinkedHashMap<DoorCoordinate, EnumMap<DoorInfo,Integer>> doorMap = null;
 
 	/**
 	 * Constructs a layout with uninteresting defaults.
@@ -49,29 +75,99 @@ public class ShipLayout {
 	 * @param squaresV certical count of tiles
 	 */
 	public void setRoom( int roomId, int locationX, int locationY, int squaresH, int squaresV ) {
-		Integer roomIdObj = new Integer(roomId);
-		EnumMap<RoomInfo,Integer> infoMap = new EnumMap<RoomInfo,Integer>(RoomInfo.class);
-		infoMap.put( RoomInfo.LOCATION_X, new Integer(locationX) );
-		infoMap.put( RoomInfo.LOCATION_Y, new Integer(locationY) );
-		infoMap.put( RoomInfo.SQUARES_H, new Integer(squaresH) );
-		infoMap.put( RoomInfo.SQUARES_V, new Integer(squaresV) );
-		roomMap.put( roomIdObj, infoMap );
+		if ( roomId >= roomDefined.length ) {
+			int capacity = Math.max( roomId+1, roomDefined.length*2 );
+			roomDefined = Arrays.copyOf( roomDefined, capacity );
+			roomLocX = Arrays.copyOf( roomLocX, capacity );
+			roomLocY = Arrays.copyOf( roomLocY, capacity );
+			roomSquaresH = Arrays.copyOf( roomSquaresH, capacity );
+			roomSquaresV = Arrays.copyOf( roomSquaresV, capacity );
+		}
+		roomDefined[roomId] = true;
+		roomLocX[roomId] = locationX;
+		roomLocY[roomId] = locationY;
+		roomSquaresH[roomId] = squaresH;
+		roomSquaresV[roomId] = squaresV;
+		roomCount = Math.max( roomCount, roomId+1 );
+		squareGrid = null;
 	}
 
+	/**
+	 * Returns a room's info, as a new map.
+	 *
+	 * The int accessors (getRoomLocationX(), etc) avoid the allocation.
+	 *
+	 * @return the info, or null if the room doesn't exist
+	 */
 	public EnumMap<RoomInfo, Integer> getRoomInfo( int roomId ) {
-		return roomMap.get( new Integer(roomId) );
+		if ( !hasRoom(roomId) ) return null;
+
+		EnumMap<RoomInfo,Integer> infoMap = new EnumMap<RoomInfo,Integer>(RoomInfo.class);
+		infoMap.put( RoomInfo.LOCATION_X, Integer.valueOf(roomLocX[roomId]) );
+		infoMap.put( RoomInfo.LOCATION_Y, Integer.valueOf(roomLocY[roomId]) );
+		infoMap.put( RoomInfo.SQUARES_H, Integer.valueOf(roomSquaresH[roomId]) );
+		infoMap.put( RoomInfo.SQUARES_V, Integer.valueOf(roomSquaresV[roomId]) );
+		return infoMap;
+	}
+
+	public boolean hasRoom( int roomId ) {
+		return ( roomId >= 0 && roomId < roomCount && roomDefined[roomId] );
+	}
+
+	// These throw for nonexistent rooms, as unboxing getRoomInfo() did.
+	public int getRoomLocationX( int roomId ) { return roomLocX[checkRoom(roomId)]; }
+	public int getRoomLocationY( int roomId ) { return roomLocY[checkRoom(roomId)]; }
+	public int getRoomSquaresH( int roomId ) { return roomSquaresH[checkRoom(roomId)]; }
+	public int getRoomSquaresV( int roomId ) { return roomSquaresV[checkRoom(roomId)]; }
+
+	private int checkRoom( int roomId ) {
+		if ( !hasRoom(roomId) )
+			throw new IndexOutOfBoundsException( "No room with id: "+ roomId );
+		return roomId;
 	}
 
 	/**
 	 * Returns the highest roomId + 1.
 	 */
 	public int getRoomCount() {
-		try {
-			Integer lastKey = roomMap.lastKey();
-			return lastKey.intValue()+1;
-		} catch (NoSuchElementException e) {
-			return 0;
+		return roomCount;
+	}
+
+	/**
+	 * Returns the roomId covering a square, or -1 if there's none.
+	 *
+	 * @param squareX 0-based Nth square from the left (without layout offset)
+	 * @param squareY 0-based Nth square from the top (without layout offset)
+	 */
+	public int getRoomIdAt( int squareX, int squareY ) {
+		SquareGrid grid = getSquareGrid();
+		int cell = grid.getCell( squareX, squareY );
+		return ( cell == -1 ? -1 : grid.roomIds[cell] );
+	}
+
+	/**
+	 * Returns the squareId, within its room, of a square, or -1 if
+	 * there's no room there.
+	 *
+	 * Squares are numbered left-to-right, then top-to-bottom.
+	 *
+	 * @param squareX 0-based Nth square from the left (without layout offset)
+	 * @param squareY 0-based Nth square from the top (without layout offset)
+	 */
+	public int getSquareIdAt( int squareX, int squareY ) {
+		SquareGrid grid = getSquareGrid();
+		int cell = grid.getCell( squareX, squareY );
+		return ( cell == -1 ? -1 : grid.squareIds[cell] );
+	}
+
+	private SquareGrid getSquareGrid() {
+		SquareGrid grid = squareGrid;
+		if ( grid == null ) {
+			// A race merely builds identical grids.
+			grid = new SquareGrid( this );
+			squareGrid = grid;
 		}
+		return grid;
 	}
 
 	/**
@@ -84,33 +180,159 @@ public class ShipLayout {
 	 * @param roomIdB an adjacent roomId, or -1 for vacuum
 	 */
 	public void setDoor( int wallX, int wallY, int vertical, int roomIdA, int roomIdB ) {
-		DoorCoordinate doorCoord = new DoorCoordinate( wallX, wallY, vertical );
-		EnumMap<DoorInfo, Integer> infoMap = new EnumMap<DoorInfo, Integer>(DoorInfo.class);
-		infoMap.put( DoorInfo.ROOM_ID_A, new Integer(roomIdA) );
-		infoMap.put( DoorInfo.ROOM_ID_B, new Integer(roomIdB) );
-		doorMap.put( doorCoord, infoMap );
+		long key = packDoorKey( wallX, wallY, vertical );
+		int index = findDoor( key );
+		if ( index == -1 ) {
+			if ( doorCount == doorKeys.length ) {
+				int capacity = Math.max( 8, doorKeys.length*2 );
+				doorKeys = Arrays.copyOf( doorKeys, capacity );
+				doorCoords = Arrays.copyOf( doorCoords, capacity );
+				doorRoomIdA = Arrays.copyOf( doorRoomIdA, capacity );
+				doorRoomIdB = Arrays.copyOf( doorRoomIdB, capacity );
+			}
+			index = doorCount++;
+			doorKeys[index] = key;
+			doorCoords[index] = new DoorCoordinate( wallX, wallY, vertical );
+		}
+		doorRoomIdA[index] = roomIdA;
+		doorRoomIdB[index] = roomIdB;
+		doorMap = null;
 	}
 
+	/**
+	 * Returns a door's info, as a new map.
+	 *
+	 * @return the info, or null if there's no door there
+	 */
 	public EnumMap<DoorInfo, Integer> getDoorInfo( int wallX, int wallY, int vertical ) {
-		return doorMap.get( new DoorCoordinate( wallX, wallY, vertical ) );
+		int index = getDoorIndex( wallX, wallY, vertical );
+		if ( index == -1 ) return null;
+		return createDoorInfo( index );
+	}
+
+	private EnumMap<DoorInfo, Integer> createDoorInfo( int index ) {
+		EnumMap<DoorInfo, Integer> infoMap = new EnumMap<DoorInfo, Integer>(DoorInfo.class);
+		infoMap.put( DoorInfo.ROOM_ID_A, Integer.valueOf(doorRoomIdA[index]) );
+		infoMap.put( DoorInfo.ROOM_ID_B, Integer.valueOf(doorRoomIdB[index]) );
+		return infoMap;
+	}
+
+	/**
+	 * Returns a door's index, in the order of the layout file, or -1.
+	 */
+	public int getDoorIndex( int wallX, int wallY, int vertical ) {
+		return findDoor( packDoorKey( wallX, wallY, vertical ) );
+	}
+
+	// Ships have a few dozen doors at most, so a scan beats hashing.
+	private int findDoor( long key ) {
+		for (int i=0; i < doorCount; i++) {
+			if ( doorKeys[i] == key ) return i;
+		}
+		return -1;
 	}
 
 	public int getDoorCount() {
-		return doorMap.size();
+		return doorCount;
+	}
+
+	// Doors by index, in the order of the layout file.
+	public DoorCoordinate getDoorCoordinate( int index ) { return doorCoords[checkDoor(index)]; }
+	public int getDoorRoomIdA( int index ) { return doorRoomIdA[checkDoor(index)]; }
+	public int getDoorRoomIdB( int index ) { return doorRoomIdB[checkDoor(index)]; }
+
+	/**
+	 * Returns true if a door, by index, opens onto vacuum.
+	 */
+	public boolean isVacuumDoor( int index ) {
+		return ( getDoorRoomIdA(index) == -1 || getDoorRoomIdB(index) == -1 );
+	}
+
+	private int checkDoor( int index ) {
+		if ( index < 0 || index >= doorCount )
+			throw new IndexOutOfBoundsException( "No door with index: "+ index );
+		return index;
 	}
 
 	/**
-	 * Returns the map containing this layout's door info.
+	 * Returns a map containing this layout's door info.
 	 *
 	 * Keys are in the order of the original layout config file.
 	 * That is NOT the same order as doors in saved games.
+	 *
+	 * The map is built on first request, and must not be modified.
+	 * Iterating by index (getDoorCoordinate(), etc) avoids it.
 	 */
 	public LinkedHashMap<DoorCoordinate, EnumMap<DoorInfo,Integer>> getDoorMap() {
-		return doorMap;
+		LinkedHashMap<DoorCoordinate, EnumMap<DoorInfo,Integer>> result = doorMap;
+		if ( result == null ) {
+			result = new LinkedHashMap<DoorCoordinate, EnumMap<DoorInfo,Integer>>();
+			for (int i=0; i < doorCount; i++) {
+				result.put( doorCoords[i], createDoorInfo(i) );
+			}
+			doorMap = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Packs door coordinates into a long: x in the high int, y above
+	 * a low bit for v. Wall coords are never negative.
+	 */
+	private static long packDoorKey( int x, int y, int v ) {
+		return ((long)x << 32) | ((long)(y & 0x7fffffff) << 1) | (v & 1);
 	}
 
 
 
+	/**
+	 * Maps squares to room and square ids, covering every room.
+	 */
+	private static class SquareGrid {
+		public final int width;
+		public final int height;
+		public final int[] roomIds;
+		public final int[] squareIds;
+
+		public SquareGrid( ShipLayout layout ) {
+			int w = 0, h = 0;
+			for (int r=0; r < layout.roomCount; r++) {
+				if ( !layout.roomDefined[r] ) continue;
+				w = Math.max( w, layout.roomLocX[r] + layout.roomSquaresH[r] );
+				h = Math.max( h, layout.roomLocY[r] + layout.roomSquaresV[r] );
+			}
+			width = w;
+			height = h;
+			roomIds = new int[w*h];
+			squareIds = new int[w*h];
+			Arrays.fill( roomIds, -1 );
+			Arrays.fill( squareIds, -1 );
+
+			for (int r=0; r < layout.roomCount; r++) {
+				if ( !layout.roomDefined[r] ) continue;
+				int squaresH = layout.roomSquaresH[r];
+				int squaresV = layout.roomSquaresV[r];
+				for (int s=0; s < squaresH*squaresV; s++) {
+					int x = layout.roomLocX[r] + s%squaresH;
+					int y = layout.roomLocY[r] + s/squaresH;
+					if ( x < 0 || y < 0 ) continue;
+					roomIds[y*width + x] = r;
+					squareIds[y*width + x] = s;
+				}
+			}
+		}
+
+		/**
+		 * Returns a cell index, or -1 if out of bounds or unoccupied.
+		 */
+		public int getCell( int x, int y ) {
+			if ( x < 0 || y < 0 || x >= width || y >= height ) return -1;
+			int cell = y*width + x;
+			return ( roomIds[cell] == -1 ? -1 : cell );
+		}
+	}
+
+
 	// Regular int arrays don't override the methods needed for
 	// use as Map keys, testing for identity instead of equality.
 	public static class DoorCoordinate {
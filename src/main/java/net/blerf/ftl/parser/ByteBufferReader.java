@@ -0,0 +1,188 @@
+package net.blerf.ftl.parser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * Decodes FTL's little-endian records straight out of a ByteBuffer.
+ *
+ * The buffer may be on the heap or mapped from a file. Position and
+ * bounds are tracked by the buffer itself, so no per-call stream
+ * dispatch is needed to guard against absurd string lengths.
+ */
+public class ByteBufferReader {
+
+	private ByteBuffer buf;
+	private StringPool stringPool = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * The buffer's remaining bytes (position to limit) will be read.
+	 * Its byte order will be set to LITTLE_ENDIAN.
+	 */
+	public ByteBufferReader( ByteBuffer buf ) {
+		this.buf = buf;
+		this.buf.order( ByteOrder.LITTLE_ENDIAN );
+	}
+
+	/**
+	 * Returns a reader over an entire file, read into a heap buffer.
+	 */
+	public static ByteBufferReader fromFile( File f ) throws IOException {
+		FileInputStream in = null;
+		try {
+			in = new FileInputStream(f);
+			FileChannel channel = in.getChannel();
+
+			ByteBuffer buf = ByteBuffer.allocate( (int)channel.size() );
+			while ( buf.hasRemaining() && channel.read(buf) >= 0 );
+			buf.flip();
+
+			return new ByteBufferReader(buf);
+
+		} finally {
+			try {if (in != null) in.close();}
+			catch (IOException e) {}
+		}
+	}
+
+	/**
+	 * Returns a reader over everything left in a stream.
+	 */
+	public static ByteBufferReader fromStream( InputStream in ) throws IOException {
+		byte[] data = new byte[Math.max(in.available(), 4096)];
+		int offset = 0;
+		int numRead;
+		while ( (numRead = in.read(data, offset, data.length-offset)) >= 0 ) {
+			offset += numRead;
+			if ( offset == data.length ) {
+				byte[] grown = new byte[data.length*2];
+				System.arraycopy( data, 0, grown, 0, offset );
+				data = grown;
+			}
+		}
+		return new ByteBufferReader( ByteBuffer.wrap(data, 0, offset) );
+	}
+
+	public ByteBuffer getBuffer() {
+		return buf;
+	}
+
+	/**
+	 * Sets a pool to return canonical instances from readString().
+	 *
+	 * @param stringPool a pool, or null to allocate every string
+	 */
+	public void setStringPool( StringPool stringPool ) {
+		this.stringPool = stringPool;
+	}
+
+	public StringPool getStringPool() {
+		return stringPool;
+	}
+
+	public int position() {
+		return buf.position();
+	}
+
+	public void position( int newPosition ) {
+		if ( newPosition < 0 || newPosition > buf.limit() )
+			throw new RuntimeException( "Attempted to seek to "+ newPosition +", outside of 0-"+ buf.limit() );
+		buf.position( newPosition );
+	}
+
+	public int size() {
+		return buf.limit();
+	}
+
+	public int remaining() {
+		return buf.remaining();
+	}
+
+	public boolean readBool() {
+		int i = readInt();
+
+		if ( !(i==1 || i==0) )
+			throw new RuntimeException( "Not a bool: "+ i );
+
+		return i == 1;
+	}
+
+	public int readInt() {
+		if ( buf.remaining() < 4 )
+			throw new RuntimeException( "End of stream reached before reading enough bytes for an int" );
+
+		return buf.getInt();
+	}
+
+	public long readLong() {
+		if ( buf.remaining() < 8 )
+			throw new RuntimeException( "End of stream reached before reading enough bytes for a long" );
+
+		return buf.getLong();
+	}
+
+	public String readString() {
+		int length = readInt();
+
+		// Avoid allocating a rediculous array size.
+		if ( length < 0 || length > buf.remaining() )
+			throw new RuntimeException( "Expected string length ("+ length +") would extend beyond the end of the stream, from current position ("+ buf.position() +")" );
+
+		String result;
+		if ( stringPool != null && length <= StringPool.MAX_POOLED_LENGTH ) {
+			result = stringPool.intern( buf, buf.position(), length );
+			buf.position( buf.position()+length );
+		}
+		else if ( buf.hasArray() ) {
+			result = new String( buf.array(), buf.arrayOffset()+buf.position(), length );
+			buf.position( buf.position()+length );
+		}
+		else {
+			byte[] strarr = new byte[length];
+			buf.get(strarr);
+			result = new String(strarr);
+		}
+		return result;
+	}
+
+	/**
+	 * Advances past bytes without reading them.
+	 */
+	public void skip( int length ) {
+		if ( length < 0 || length > buf.remaining() )
+			throw new RuntimeException( "End of stream reached before skipping "+ length +" bytes" );
+
+		buf.position( buf.position()+length );
+	}
+
+	/**
+	 * Advances past a string without decoding it.
+	 */
+	public void skipString() {
+		int length = readInt();
+		if ( length < 0 || length > buf.remaining() )
+			throw new RuntimeException( "Expected string length ("+ length +") would extend beyond the end of the stream, from current position ("+ buf.position() +")" );
+
+		buf.position( buf.position()+length );
+	}
+
+	/**
+	 * Reads raw bytes into an array.
+	 */
+	public byte[] readBytes( int length ) {
+		if ( length < 0 || length > buf.remaining() )
+			throw new RuntimeException( "End of stream reached before reading "+ length +" bytes" );
+
+		byte[] result = new byte[length];
+		buf.get(result);
+		return result;
+	}
+}
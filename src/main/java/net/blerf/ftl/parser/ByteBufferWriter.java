@@ -0,0 +1,163 @@
+package net.blerf.ftl.parser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+
+/**
+ * Encodes FTL's little-endian records into a growable ByteBuffer.
+ *
+ * Nothing touches the disk until writeToFile() or writeTo() is
+ * called, at which point the whole buffer goes out in one channel
+ * write, rather than a syscall per int.
+ */
+public class ByteBufferWriter {
+
+	public static final int DEFAULT_CAPACITY = 16 * 1024;
+
+	private ByteBuffer buf;
+
+	public ByteBufferWriter() {
+		this( DEFAULT_CAPACITY );
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialCapacity the expected number of bytes, to avoid growing.
+	 */
+	public ByteBufferWriter( int initialCapacity ) {
+		buf = ByteBuffer.allocate( Math.max(initialCapacity, 16) );
+		buf.order( ByteOrder.LITTLE_ENDIAN );
+	}
+
+	/**
+	 * Ensures there's room for n more bytes, doubling capacity as needed.
+	 */
+	private void ensureRemaining( int n ) {
+		if ( buf.remaining() >= n ) return;
+
+		int newCapacity = buf.capacity();
+		while ( newCapacity - buf.position() < n )
+			newCapacity *= 2;
+
+		ByteBuffer grown = ByteBuffer.allocate( newCapacity );
+		grown.order( ByteOrder.LITTLE_ENDIAN );
+		buf.flip();
+		grown.put( buf );
+		buf = grown;
+	}
+
+	/** Returns the number of bytes written so far. */
+	public int size() {
+		return buf.position();
+	}
+
+	public void writeBool( boolean b ) {
+		writeInt( (b ? 1 : 0) );
+	}
+
+	public void writeInt( int value ) {
+		ensureRemaining( 4 );
+		buf.putInt( value );
+	}
+
+	public void writeLong( long value ) {
+		ensureRemaining( 8 );
+		buf.putLong( value );
+	}
+
+	public void writeString( String str ) {
+		byte[] strarr = str.getBytes();
+		writeInt( strarr.length );
+		writeBytes( strarr );
+	}
+
+	public void writeBytes( byte[] bytes ) {
+		writeBytes( bytes, 0, bytes.length );
+	}
+
+	public void writeBytes( byte[] bytes, int offset, int length ) {
+		ensureRemaining( length );
+		buf.put( bytes, offset, length );
+	}
+
+	/**
+	 * Writes a buffer's remaining bytes, in bulk.
+	 */
+	public void writeBytes( ByteBuffer src ) {
+		ensureRemaining( src.remaining() );
+		buf.put( src );
+	}
+
+	/**
+	 * Returns a read-only view of the bytes written so far.
+	 */
+	public ByteBuffer getBuffer() {
+		ByteBuffer result = buf.asReadOnlyBuffer();
+		result.flip();
+		return result;
+	}
+
+	/**
+	 * Returns a copy of the bytes written so far.
+	 */
+	public byte[] toByteArray() {
+		byte[] result = new byte[buf.position()];
+		System.arraycopy( buf.array(), buf.arrayOffset(), result, 0, result.length );
+		return result;
+	}
+
+	/**
+	 * Writes everything to a channel, at its current position.
+	 */
+	public void writeTo( FileChannel channel ) throws IOException {
+		ByteBuffer src = getBuffer();
+		while ( src.hasRemaining() )
+			channel.write( src );
+	}
+
+	/**
+	 * Writes everything to a file, replacing it atomically.
+	 *
+	 * The bytes go to a temp file in the same directory first, which
+	 * is then renamed over the destination. If anything goes wrong,
+	 * the original file is left untouched.
+	 */
+	public void writeToFile( File f ) throws IOException {
+		File dir = f.getAbsoluteFile().getParentFile();
+		File tmpFile = File.createTempFile( f.getName(), ".tmp", dir );
+
+		boolean success = false;
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream( tmpFile );
+			FileChannel channel = out.getChannel();
+			writeTo( channel );
+			channel.force( true );
+			out.close();
+			out = null;
+
+			try {
+				Files.move( tmpFile.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+			}
+			catch ( AtomicMoveNotSupportedException e ) {
+				Files.move( tmpFile.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING );
+			}
+			success = true;
+
+		} finally {
+			try {if (out != null) out.close();}
+			catch (IOException e) {}
+
+			if ( !success ) tmpFile.delete();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package net.blerf.ftl.parser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Copies inner files out of a dat, in parallel.
+ *
+ * Data goes from the dat's channel straight to each output file's
+ * channel via transferTo(), so it needn't pass through the heap.
+ * Positional transfers don't disturb a shared channel, so one is
+ * opened for all the workers.
+ */
+public class DatExtractor {
+
+	private static final Logger log = LogManager.getLogger(DatExtractor.class);
+
+	/** The largest chunk transferred between cancellation checks. */
+	private static final long TRANSFER_CHUNK = 8 * 1024 * 1024;
+
+	/**
+	 * Receives progress notifications.
+	 *
+	 * Calls are made on the thread that called extract(), one at a
+	 * time, as each inner file finishes (and once at the start).
+	 */
+	public interface ProgressListener {
+		/**
+		 * @return true to continue, false to cancel
+		 */
+		public boolean extractionProgress( long bytesDone, long bytesTotal, int entriesDone, int entriesTotal );
+	}
+
+	/**
+	 * An inner file's location within a dat.
+	 */
+	public static class Entry {
+		public final String innerPath;
+		public final long dataOffset;
+		public final long dataSize;
+
+		public Entry( String innerPath, long dataOffset, long dataSize ) {
+			this.innerPath = innerPath;
+			this.dataOffset = dataOffset;
+			this.dataSize = dataSize;
+		}
+	}
+
+	private int threadCount;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Constructs an extractor using a worker per processor, up to four.
+	 * Beyond that, the disk is the bottleneck.
+	 */
+	public DatExtractor() {
+		this( Math.min(4, Runtime.getRuntime().availableProcessors()) );
+	}
+
+	public DatExtractor( int threadCount ) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Extracts inner files into a folder.
+	 *
+	 * @param datFile the dat to read from
+	 * @param entries inner files to copy
+	 * @param outFolder a folder to create them in
+	 * @param listener a listener to notify, or null
+	 * @return true if all files were extracted, false if cancelled
+	 */
+	public boolean extract( File datFile, List<Entry> entries, File outFolder, ProgressListener listener ) throws IOException {
+		log.trace( "Extracting "+ entries.size() +" files from "+ datFile.getPath() +" into "+ outFolder.getPath() );
+
+		long bytesTotal = 0;
+		Set<File> dirs = new LinkedHashSet<File>();
+		dirs.add( outFolder );
+		for ( Entry entry : entries ) {
+			bytesTotal += entry.dataSize;
+			dirs.add( new File(outFolder, entry.innerPath).getParentFile() );
+		}
+		for ( File dir : dirs ) {
+			if ( !dir.exists() && !dir.mkdirs() && !dir.isDirectory() )
+				throw new IOException( "Could not create directory: "+ dir.getPath() );
+		}
+
+		if ( listener != null && !listener.extractionProgress( 0, bytesTotal, 0, entries.size() ) )
+			return false;
+
+		cancelled = false;
+		FileInputStream datIn = null;
+		ExecutorService pool = null;
+		try {
+			datIn = new FileInputStream( datFile );
+			final FileChannel datChannel = datIn.getChannel();
+
+			pool = Executors.newFixedThreadPool( threadCount, new ThreadFactory() {
+				private AtomicInteger n = new AtomicInteger();
+				@Override
+				public Thread newThread( Runnable r ) {
+					Thread t = new Thread( r, "DatExtractor-"+ n.incrementAndGet() );
+					t.setDaemon( true );
+					return t;
+				}
+			});
+			CompletionService<Entry> completion = new ExecutorCompletionService<Entry>( pool );
+
+			final File finalOutFolder = outFolder;
+			for ( final Entry entry : entries ) {
+				completion.submit( new Callable<Entry>() {
+					@Override
+					public Entry call() throws IOException {
+						if ( !cancelled )
+							copyEntry( datChannel, entry, new File(finalOutFolder, entry.innerPath) );
+						return entry;
+					}
+				});
+			}
+
+			long bytesDone = 0;
+			int entriesDone = 0;
+			for (int i=0; i < entries.size(); i++) {
+				Future<Entry> future;
+				try {
+					future = completion.take();
+				}
+				catch ( InterruptedException e ) {
+					cancelled = true;
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException( "Interrupted while extracting "+ datFile.getName() );
+				}
+
+				Entry entry;
+				try {
+					entry = future.get();
+				}
+				catch ( InterruptedException e ) {
+					cancelled = true;
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException( "Interrupted while extracting "+ datFile.getName() );
+				}
+				catch ( ExecutionException e ) {
+					cancelled = true;
+					Throwable cause = e.getCause();
+					if ( cause instanceof IOException ) throw (IOException)cause;
+					throw new IOException( "Error extracting from "+ datFile.getName(), cause );
+				}
+
+				bytesDone += entry.dataSize;
+				entriesDone++;
+				if ( !cancelled && listener != null && !listener.extractionProgress( bytesDone, bytesTotal, entriesDone, entries.size() ) ) {
+					log.trace( "Extraction cancelled" );
+					cancelled = true;
+				}
+			}
+			return !cancelled;
+
+		} finally {
+			if ( pool != null ) pool.shutdownNow();
+
+			try {if (datIn != null) datIn.close();}
+			catch (IOException e) {}
+		}
+	}
+
+	/**
+	 * Copies a range of the dat into a new file, in chunks so a
+	 * cancellation needn't wait for a huge file to finish.
+	 *
+	 * The bytes go to a temp file beside the destination, which is
+	 * renamed into place once complete. On failure or cancellation,
+	 * the temp file is deleted, so no truncated file is left behind.
+	 */
+	private void copyEntry( FileChannel datChannel, Entry entry, File outFile ) throws IOException {
+		File tmpFile = new File( outFile.getPath() +".part" );
+
+		boolean success = false;
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream( tmpFile );
+			FileChannel outChannel = out.getChannel();
+
+			long done = 0;
+			while ( done < entry.dataSize && !cancelled ) {
+				long count = Math.min( TRANSFER_CHUNK, entry.dataSize - done );
+				long n = datChannel.transferTo( entry.dataOffset + done, count, outChannel );
+				if ( n <= 0 )
+					throw new IOException( "Unexpected end of dat while extracting: "+ entry.innerPath );
+				done += n;
+			}
+			out.close();
+			out = null;
+
+			if ( done == entry.dataSize ) {
+				Files.move( tmpFile.toPath(), outFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+				success = true;
+			}
+
+		} finally {
+			try {if (out != null) out.close();}
+			catch (IOException e) {}
+
+			if ( !success ) tmpFile.delete();
+		}
+	}
+}
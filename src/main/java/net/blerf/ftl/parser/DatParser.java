@@ -1,15 +1,12 @@
 package net.blerf.ftl.parser;
 
 import java.io.BufferedReader;
-import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.List;
 
@@ -29,8 +26,6 @@ public class DatParser extends Parser {
 	
 	private static final Logger log = LogManager.getLogger(DatParser.class);
 	
-	private byte[] buf = new byte[1024];
-	
 	public List<Achievement> readAchievements( File xmlFile ) throws IOException, JAXBException {
 		
 		log.trace("Reading achievements XML from: " + xmlFile.getPath());
@@ -136,59 +131,13 @@ public class DatParser extends Parser {
 		
 		log.trace("Unpacking dat file " + datFile.getPath() + " into " + outFolder.getPath());
 		
-		InputStream in = new FileInputStream(datFile);
-		
-		outFolder.mkdirs();
-		
-		int[] header = readHeader(in);
-		
-		int i = 0;
-		while( i < header.length && header[i++] != 0 )
-			readFile(in, outFolder);
-		
-		in.close();
-		
-	}
-	
-	private int[] readHeader(InputStream in) throws IOException {
-		
-		log.trace("Reading dat header");
-		
-		int headerSize = readInt(in);
-		
-		int[] header = new int[headerSize];
-		
-		for (int i = 0; i < header.length; i++) {
-			header[i] = readInt(in);
+		MappedDatParser parser = new MappedDatParser( datFile );
+		try {
+			parser.unpackDat( outFolder );
+		} finally {
+			parser.close();
 		}
 		
-		return header;
-		
-	}
-	
-	private void readFile(InputStream in, File outFolder) throws IOException {
-
-		log.trace("Reading packaged file");
-		
-		int dataSize = readInt(in);
-		String fileName = readString(in);
-		
-		log.trace("Filename: " + fileName + " ("+dataSize+"b)");
-		
-		File outFile = new File( outFolder, fileName );
-		outFile.getParentFile().mkdirs();
-		OutputStream out = new FileOutputStream(outFile);
-		
-		while( dataSize > 0 ) {
-			int count = in.read(buf, 0, dataSize > buf.length ? buf.length : dataSize);
-			if( count < 0 )
-				throw new EOFException("Unexpected end of stream");
-			dataSize -= count;
-			out.write(buf, 0, count);
-		}
-		
-		out.close();
-		
 	}
 
 }
@@ -5,17 +5,34 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.bind.JAXBException;
 
 import net.blerf.ftl.model.ShipLayout;
 import net.blerf.ftl.xml.Achievement;
+import net.blerf.ftl.xml.AugBlueprint;
+import net.blerf.ftl.xml.BlueprintList;
 import net.blerf.ftl.xml.Blueprints;
+import net.blerf.ftl.xml.CrewBlueprint;
+import net.blerf.ftl.xml.DroneBlueprint;
 import net.blerf.ftl.xml.ShipBlueprint;
 import net.blerf.ftl.xml.ShipChassis;
 import net.blerf.ftl.xml.SystemBlueprint;
@@ -28,123 +45,388 @@ public class DataManager implements Closeable {
 	
 	private static final Logger log = LogManager.getLogger(DataManager.class);
 
-	private static DataManager instance;
+	private static volatile DataManager instance;
 	
 	public static DataManager get() {
 		return instance;
 	}
 	
-	public static void init(File ftlFolder) throws IOException, JAXBException {
-		instance = new DataManager(ftlFolder);	
+	/**
+	 * Loads FTL's data, parsing its XML concurrently.
+	 *
+	 * This returns once the XML and resource.dat are loaded, so a
+	 * malformed file fails here rather than in a later accessor.
+	 *
+	 * @throws IllegalStateException if a file couldn't be parsed
+	 */
+	public static void init(File ftlFolder) throws IOException {
+		DataManager dm = new DataManager(ftlFolder);
+		try {
+			dm.awaitLoads();
+		}
+		catch ( IllegalStateException e ) {
+			dm.close();
+			throw e;
+		}
+		instance = dm;
 	}
 
-	private List<Achievement> achievements;
-	private List<Achievement> generalAchievements;
-	private Blueprints blueprints;
-	private Blueprints autoBlueprints;
+	private static File snapshotFolder = null;
+
+	/**
+	 * Sets a folder in which to keep a snapshot of parsed XML.
+	 *
+	 * Subsequent inits will load that instead of parsing, when the
+	 * XML in data.dat hasn't changed.
+	 *
+	 * @param folder a folder, or null to always parse
+	 */
+	public static void setSnapshotFolder(File folder) {
+		snapshotFolder = folder;
+	}
+
+	private static final int LOADER_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	// Loads run concurrently, from the constructor. Each task only
+	// waits on tasks submitted before it, so any pool size is safe.
+	private Future<MappedDatParser> resourceParserFuture;
+	private Future<DataSnapshot> snapshotFuture;
+	private Future<List<Achievement>> achievementsFuture;
+	private Future<Blueprints> blueprintsFuture;
+	private Future<Blueprints> autoBlueprintsFuture;
 
+	// These need several loads, so they're built by the first caller.
+	private FutureTask<Map<ShipBlueprint, List<Achievement>>> shipAchievementsTask;
+	private FutureTask<StringPool> stringPoolTask;
+
+	// Derived by the load tasks above. Only read after awaiting them.
+	private List<Achievement> generalAchievements;
 	private Map<String, SystemBlueprint> systems;
 	private Map<String, WeaponBlueprint> weapons;	
 	private Map<String, ShipBlueprint> ships;
 	private Map<String, ShipBlueprint> autoShips;
 	private List<ShipBlueprint> playerShips; // Type A's
-	private Map<ShipBlueprint, List<Achievement>> shipAchievements;
-	private Map<String, ShipLayout> shipLayouts;
-	private Map<String, ShipChassis> shipChassisMap;
+
+	private ConcurrentMap<String, FutureTask<ShipLayout>> shipLayouts;
+	private ConcurrentMap<String, FutureTask<ShipChassis>> shipChassisMap;
+
+	private File snapshotFile = null;
+	private byte[] snapshotKey = null;
 	
 	private	MappedDatParser dataParser = null;
-	private	MappedDatParser resourceParser = null;
 	
-	private DataManager(File ftlFolder) throws IOException, JAXBException {
+	/**
+	 * Opens data.dat and begins loading everything else in the background.
+	 *
+	 * Accessors wait for the loads they need, so this returns quickly.
+	 * See awaitLoads().
+	 */
+	private DataManager(File ftlFolder) throws IOException {
 		
 		log.trace("DataManager initialising");
-		
-		boolean meltdown = false;
-		InputStream achStream = null;
-		InputStream blueStream = null;
-		InputStream autoBlueStream = null;
-		
+
+		dataParser = new MappedDatParser( new File(ftlFolder, "resources/data.dat") );
+		final File resourceFile = new File(ftlFolder, "resources/resource.dat");
+
+		if ( snapshotFolder != null )
+			snapshotFile = new File( snapshotFolder, "data-snapshot.bin" );
+
+		ExecutorService pool = Executors.newFixedThreadPool( LOADER_THREADS, createThreadFactory( "DataManager-", Thread.NORM_PRIORITY ) );
 		try {
-			dataParser = new MappedDatParser( new File(ftlFolder, "resources/data.dat") );
-	 		resourceParser = new MappedDatParser( new File(ftlFolder, "resources/resource.dat") );
+			resourceParserFuture = pool.submit( new Callable<MappedDatParser>() {
+				public MappedDatParser call() throws IOException {
+					return new MappedDatParser( resourceFile );
+				}
+			});
+			snapshotFuture = pool.submit( new Callable<DataSnapshot>() {
+				public DataSnapshot call() {
+					return readSnapshot();
+				}
+			});
+			achievementsFuture = pool.submit( new Callable<List<Achievement>>() {
+				public List<Achievement> call() throws IOException, JAXBException {
+					return loadAchievements();
+				}
+			});
+			blueprintsFuture = pool.submit( new Callable<Blueprints>() {
+				public Blueprints call() throws IOException, JAXBException {
+					return loadBlueprints();
+				}
+			});
+			autoBlueprintsFuture = pool.submit( new Callable<Blueprints>() {
+				public Blueprints call() throws IOException, JAXBException {
+					return loadAutoBlueprints();
+				}
+			});
+
+		} finally {
+			pool.shutdown();  // Queued loads still run.
+		}
+
+		if ( snapshotFile != null ) {
+			// Not a daemon, so a short-lived process still leaves a snapshot.
+			Thread snapshotThread = new Thread( new Runnable() {
+				public void run() {
+					writeSnapshot();
+				}
+			}, "DataManager-snapshot" );
+			snapshotThread.start();
+		}
+
+		shipAchievementsTask = new FutureTask<Map<ShipBlueprint, List<Achievement>>>( new Callable<Map<ShipBlueprint, List<Achievement>>>() {
+			public Map<ShipBlueprint, List<Achievement>> call() {
+				return buildShipAchievements();
+			}
+		});
+		stringPoolTask = new FutureTask<StringPool>( new Callable<StringPool>() {
+			public StringPool call() {
+				return buildStringPool();
+			}
+		});
+
+		// These'll populate as files are requested.
+		shipLayouts = new ConcurrentHashMap<String, FutureTask<ShipLayout>>();
+		shipChassisMap = new ConcurrentHashMap<String, FutureTask<ShipChassis>>();
+	}
+
+	/**
+	 * Returns a factory for named daemon threads.
+	 */
+	private static ThreadFactory createThreadFactory( final String namePrefix, final int priority ) {
+		return new ThreadFactory() {
+			private AtomicInteger n = new AtomicInteger();
+			@Override
+			public Thread newThread( Runnable r ) {
+				Thread t = new Thread( r, namePrefix + n.incrementAndGet() );
+				t.setDaemon( true );
+				t.setPriority( priority );
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * Reads the snapshot of parsed XML, if there's a current one.
+	 */
+	private DataSnapshot readSnapshot() {
+		if ( snapshotFile == null ) return null;
+		try {
+			snapshotKey = DataSnapshot.createKey( dataParser, "data/achievements.xml", "data/blueprints.xml", "data/autoBlueprints.xml" );
+		}
+		catch ( IOException e ) {
+			log.warn( "Could not digest XML for the data snapshot", e );
+			snapshotFile = null;
+			return null;
+		}
+
+		DataSnapshot snapshot = DataSnapshot.read( snapshotFile, snapshotKey );
+		if ( snapshot != null )
+			log.debug("Using snapshot of parsed XML");
+		return snapshot;
+	}
+
+	/**
+	 * Writes a snapshot, once all the XML has been parsed, unless one
+	 * was read.
+	 */
+	private void writeSnapshot() {
+		try {
+			if ( snapshotFuture.get() != null || snapshotFile == null ) return;
+			new DataSnapshot( achievementsFuture.get(), blueprintsFuture.get(), autoBlueprintsFuture.get() ).write( snapshotFile, snapshotKey );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+		catch ( ExecutionException e ) {
+			// Accessors will report it.
+		}
+	}
 
+	private List<Achievement> loadAchievements() throws IOException, JAXBException {
+		List<Achievement> result;
+		DataSnapshot snapshot = await( snapshotFuture );
+		if ( snapshot != null ) {
+			result = snapshot.achievements;
+		}
+		else {
 			log.debug("Reading 'data/achievements.xml'");
-			achStream = dataParser.getInputStream( "data/achievements.xml" );
-			achievements = dataParser.readAchievements( achStream );
+			InputStream in = null;
+			try {
+				in = dataParser.getInputStream( "data/achievements.xml" );
+				result = dataParser.readAchievements( in );
+			} finally {
+				try {if (in != null) in.close();}
+				catch (IOException f) {}
+			}
+		}
+
+		List<Achievement> general = new ArrayList<Achievement>();
+		for( Achievement ach : result )
+			if ( ach.getShipId() == null )
+				general.add(ach);
+		generalAchievements = general;
+
+		return result;
+	}
 
+	private Blueprints loadBlueprints() throws IOException, JAXBException {
+		Blueprints result;
+		DataSnapshot snapshot = await( snapshotFuture );
+		if ( snapshot != null ) {
+			result = snapshot.blueprints;
+		}
+		else {
 			log.debug("Reading 'data/blueprints.xml'");
-			blueStream = dataParser.getInputStream( "data/blueprints.xml" );
-			blueprints = dataParser.readBlueprints( blueStream );
+			InputStream in = null;
+			try {
+				in = dataParser.getInputStream( "data/blueprints.xml" );
+				result = dataParser.readBlueprints( in );
+			} finally {
+				try {if (in != null) in.close();}
+				catch (IOException f) {}
+			}
+		}
+
+		systems = new HashMap<String, SystemBlueprint>();
+		for ( SystemBlueprint system : result.getSystemBlueprint() )
+			systems.put( system.getId(), system );
+
+		weapons = new LinkedHashMap<String, WeaponBlueprint>();
+		for ( WeaponBlueprint weapon : result.getWeaponBlueprint() )
+			weapons.put( weapon.getId(), weapon );
+
+		ships = new HashMap<String, ShipBlueprint>();
+		for ( ShipBlueprint ship : result.getShipBlueprint() )
+			ships.put( ship.getId(), ship );
+
+		playerShips = new ArrayList<ShipBlueprint>();
+		playerShips.add( ships.get("PLAYER_SHIP_HARD") );
+		playerShips.add( ships.get("PLAYER_SHIP_STEALTH") );
+		playerShips.add( ships.get("PLAYER_SHIP_MANTIS") );
+		playerShips.add( ships.get("PLAYER_SHIP_CIRCLE") );
+		playerShips.add( ships.get("PLAYER_SHIP_FED") );
+		playerShips.add( ships.get("PLAYER_SHIP_JELLY") );
+		playerShips.add( ships.get("PLAYER_SHIP_ROCK") );
+		playerShips.add( ships.get("PLAYER_SHIP_ENERGY") );
+		playerShips.add( ships.get("PLAYER_SHIP_CRYSTAL") );
+
+		return result;
+	}
 
+	private Blueprints loadAutoBlueprints() throws IOException, JAXBException {
+		Blueprints result;
+		DataSnapshot snapshot = await( snapshotFuture );
+		if ( snapshot != null ) {
+			result = snapshot.autoBlueprints;
+		}
+		else {
 			log.debug("Reading 'data/autoBlueprints.xml'");
-			autoBlueStream = dataParser.getInputStream( "data/autoBlueprints.xml" );
-			autoBlueprints = dataParser.readBlueprints( autoBlueStream );
-
-			generalAchievements = new ArrayList<Achievement>();
-			for( Achievement ach : achievements )
-				if ( ach.getShipId() == null )
-					generalAchievements.add(ach);
-
-			systems = new HashMap<String, SystemBlueprint>();
-			for ( SystemBlueprint system : blueprints.getSystemBlueprint() )
-				systems.put( system.getId(), system );
-
-			weapons = new LinkedHashMap<String, WeaponBlueprint>();
-			for ( WeaponBlueprint weapon : blueprints.getWeaponBlueprint() )
-				weapons.put( weapon.getId(), weapon );
-
-			ships = new HashMap<String, ShipBlueprint>();
-			for ( ShipBlueprint ship : blueprints.getShipBlueprint() )
-				ships.put( ship.getId(), ship );
-
-			autoShips = new HashMap<String, ShipBlueprint>();
-			for ( ShipBlueprint ship : autoBlueprints.getShipBlueprint() )
-				autoShips.put( ship.getId(), ship );
-
-			playerShips = new ArrayList<ShipBlueprint>();
-			playerShips.add( ships.get("PLAYER_SHIP_HARD") );
-			playerShips.add( ships.get("PLAYER_SHIP_STEALTH") );
-			playerShips.add( ships.get("PLAYER_SHIP_MANTIS") );
-			playerShips.add( ships.get("PLAYER_SHIP_CIRCLE") );
-			playerShips.add( ships.get("PLAYER_SHIP_FED") );
-			playerShips.add( ships.get("PLAYER_SHIP_JELLY") );
-			playerShips.add( ships.get("PLAYER_SHIP_ROCK") );
-			playerShips.add( ships.get("PLAYER_SHIP_ENERGY") );
-			playerShips.add( ships.get("PLAYER_SHIP_CRYSTAL") );
-
-			shipAchievements = new HashMap<ShipBlueprint, List<Achievement>>();
-			for (ShipBlueprint ship: playerShips) {
-				List<Achievement> shipAchs = new ArrayList<Achievement>();
-				for ( Achievement ach : achievements )
-					if ( ship.getId().equals( ach.getShipId() ) )
-						shipAchs.add(ach);
-				shipAchievements.put( ship, shipAchs );
+			InputStream in = null;
+			try {
+				in = dataParser.getInputStream( "data/autoBlueprints.xml" );
+				result = dataParser.readBlueprints( in );
+			} finally {
+				try {if (in != null) in.close();}
+				catch (IOException f) {}
 			}
+		}
 
-			// These'll populate as files are requested.
-			shipLayouts = new HashMap<String, ShipLayout>();
-			shipChassisMap = new HashMap<String, ShipChassis>();
+		autoShips = new HashMap<String, ShipBlueprint>();
+		for ( ShipBlueprint ship : result.getShipBlueprint() )
+			autoShips.put( ship.getId(), ship );
 
-		} catch (JAXBException e) {
-			meltdown = true;
-			throw e;
+		return result;
+	}
 
-		} catch (IOException e) {
-			meltdown = true;
-			throw e;
+	private Map<ShipBlueprint, List<Achievement>> buildShipAchievements() {
+		List<Achievement> achievements = await( achievementsFuture );
+		await( blueprintsFuture );
+
+		Map<ShipBlueprint, List<Achievement>> result = new HashMap<ShipBlueprint, List<Achievement>>();
+		for (ShipBlueprint ship: playerShips) {
+			List<Achievement> shipAchs = new ArrayList<Achievement>();
+			for ( Achievement ach : achievements )
+				if ( ship.getId().equals( ach.getShipId() ) )
+					shipAchs.add(ach);
+			result.put( ship, shipAchs );
+		}
+		return result;
+	}
 
-		} finally {
-			ArrayList<InputStream> streams = new ArrayList<InputStream>();
-			streams.add(achStream);
-			streams.add(blueStream);
-			streams.add(autoBlueStream);
+	private StringPool buildStringPool() {
+		StringPool result = new StringPool();
+		seedStringPool( result, await( blueprintsFuture ) );
+		seedStringPool( result, await( autoBlueprintsFuture ) );
+		for ( Achievement ach : await( achievementsFuture ) )
+			result.seed( ach.getId() );
+		return result;
+	}
 
-			for (InputStream stream : streams) {
-				try {if (stream != null) achStream.close();}
-				catch (IOException f) {}
-			}
+	/**
+	 * Waits for the loads every session needs, rethrowing the first failure.
+	 */
+	private void awaitLoads() {
+		await( resourceParserFuture );
+		await( achievementsFuture );
+		await( blueprintsFuture );
+		await( autoBlueprintsFuture );
+	}
 
-			if ( meltdown ) this.close();
+	/**
+	 * Waits for a load, rethrowing any failure unchecked.
+	 *
+	 * A FutureTask that hasn't been started is run in this thread.
+	 */
+	private static <T> T await( Future<T> future ) {
+		if ( future instanceof FutureTask && !future.isDone() )
+			((FutureTask<T>)future).run();  // No-op if already running.
+
+		try {
+			return future.get();
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException( "Interrupted while loading FTL data", e );
+		}
+		catch ( ExecutionException e ) {
+			throw new IllegalStateException( "Error parsing FTL data files", e.getCause() );
+		}
+	}
+
+	/**
+	 * Adds every id in a set of blueprints to a pool.
+	 */
+	private void seedStringPool( StringPool pool, Blueprints bps ) {
+		if ( bps.getBlueprintList() != null ) {
+			for ( BlueprintList list : bps.getBlueprintList() )
+				if ( list.getName() != null ) pool.seed( list.getName() );
+		}
+		if ( bps.getCrewBlueprint() != null ) {
+			for ( CrewBlueprint crew : bps.getCrewBlueprint() )
+				if ( crew.getId() != null ) pool.seed( crew.getId() );
+		}
+		if ( bps.getSystemBlueprint() != null ) {
+			for ( SystemBlueprint system : bps.getSystemBlueprint() )
+				if ( system.getId() != null ) pool.seed( system.getId() );
+		}
+		if ( bps.getWeaponBlueprint() != null ) {
+			for ( WeaponBlueprint weapon : bps.getWeaponBlueprint() )
+				if ( weapon.getId() != null ) pool.seed( weapon.getId() );
+		}
+		if ( bps.getDroneBlueprint() != null ) {
+			for ( DroneBlueprint drone : bps.getDroneBlueprint() )
+				if ( drone.getId() != null ) pool.seed( drone.getId() );
+		}
+		if ( bps.getAugBlueprint() != null ) {
+			for ( AugBlueprint aug : bps.getAugBlueprint() )
+				if ( aug.getId() != null ) pool.seed( aug.getId() );
+		}
+		if ( bps.getShipBlueprint() != null ) {
+			for ( ShipBlueprint ship : bps.getShipBlueprint() ) {
+				if ( ship.getId() != null ) pool.seed( ship.getId() );
+				if ( ship.getLayout() != null ) pool.seed( ship.getLayout() );
+				if ( ship.getImg() != null ) pool.seed( ship.getImg() );
+			}
 		}
 	}
 
@@ -152,8 +434,13 @@ public class DataManager implements Closeable {
 		try {if (dataParser != null) dataParser.close();}
 		catch (IOException e) {}
 
-		try {if (resourceParser != null) resourceParser.close();}
+		try {if (resourceParserFuture != null) getResourceParser().close();}
 		catch (IOException e) {}
+		catch (IllegalStateException e) {}  // It never opened.
+	}
+
+	private MappedDatParser getResourceParser() {
+		return await( resourceParserFuture );
 	}
 	
 	public InputStream getDataInputStream( String innerPath ) throws IOException {
@@ -161,7 +448,21 @@ public class DataManager implements Closeable {
 	}
 	
 	public InputStream getResourceInputStream( String innerPath ) throws IOException {
-		return resourceParser.getInputStream( innerPath );
+		return getResourceParser().getInputStream( innerPath );
+	}
+
+	/**
+	 * Returns a read-only view of a file in data.dat, without copying.
+	 */
+	public ByteBuffer getDataByteBuffer( String innerPath ) throws IOException {
+		return dataParser.getByteBuffer( innerPath );
+	}
+
+	/**
+	 * Returns a read-only view of a file in resource.dat, without copying.
+	 */
+	public ByteBuffer getResourceByteBuffer( String innerPath ) throws IOException {
+		return getResourceParser().getByteBuffer( innerPath );
 	}
 	
 	public void unpackData( File outFolder ) throws IOException {
@@ -169,14 +470,42 @@ public class DataManager implements Closeable {
 	}
 
 	public void unpackResources( File outFolder ) throws IOException {
-		resourceParser.unpackDat( outFolder );
+		getResourceParser().unpackDat( outFolder );
+	}
+
+	/**
+	 * Extracts data.dat, reporting progress.
+	 *
+	 * @return true if all files were extracted, false if cancelled
+	 */
+	public boolean unpackData( File outFolder, DatExtractor.ProgressListener listener ) throws IOException {
+		return dataParser.unpackDat( outFolder, listener );
+	}
+
+	/**
+	 * Extracts resource.dat, reporting progress.
+	 *
+	 * @return true if all files were extracted, false if cancelled
+	 */
+	public boolean unpackResources( File outFolder, DatExtractor.ProgressListener listener ) throws IOException {
+		return getResourceParser().unpackDat( outFolder, listener );
 	}
 	
+	/**
+	 * Returns a pool seeded with known blueprint and achievement ids.
+	 *
+	 * It must not be modified. Parsers wrap it with their own child pools.
+	 */
+	public StringPool getStringPool() {
+		return await( stringPoolTask );
+	}
+
 	public List<Achievement> getAchievements() {
-		return achievements;
+		return await( achievementsFuture );
 	}
 
 	public SystemBlueprint getSystem( String id ) {
+		await( blueprintsFuture );
 		SystemBlueprint result = systems.get(id);
 		if ( result == null )
 			log.error( "No SystemBlueprint found for id: "+ id );
@@ -184,6 +513,7 @@ public class DataManager implements Closeable {
 	}
 
 	public WeaponBlueprint getWeapon( String id ) {
+		await( blueprintsFuture );
 		WeaponBlueprint result = weapons.get(id);
 		if ( result == null )
 			log.error( "No WeaponBlueprint found for id: "+ id );
@@ -191,80 +521,189 @@ public class DataManager implements Closeable {
 	}
 
 	public Map<String, WeaponBlueprint> getWeapons() {
+		await( blueprintsFuture );
 		return weapons;
 	}
 
 	public ShipBlueprint getShip( String id ) {
+		await( blueprintsFuture );
 		ShipBlueprint result = ships.get(id);
-		if ( result == null )  // TODO: Auto ships might need their own method.
+		if ( result == null ) {  // TODO: Auto ships might need their own method.
+			await( autoBlueprintsFuture );
 			result = autoShips.get(id);
+		}
 		if ( result == null )
 			log.error( "No ShipBlueprint found for id: "+ id );
 		return result;
 	}
 	
 	public List<ShipBlueprint> getPlayerShips() {
+		await( blueprintsFuture );
 		return playerShips;
 	}
 	
 	public List<Achievement> getShipAchievements(ShipBlueprint ship) {
-		return shipAchievements.get(ship);
+		return await( shipAchievementsTask ).get(ship);
 	}
 	
 	public List<Achievement> getGeneralAchievements() {
+		await( achievementsFuture );
 		return generalAchievements;
 	}
 
-	public ShipLayout getShipLayout(String id) {
-		ShipLayout result = shipLayouts.get(id);
+	/**
+	 * Parses every ship's layout and chassis in the background.
+	 *
+	 * Both regular and auto ships are covered, once the blueprints have
+	 * loaded. Work runs on minimum-priority daemon threads, filling the
+	 * same caches getShipLayout() and getShipChassis() use, so opening
+	 * a save later won't parse on the EDT. Coverage and timing are
+	 * logged when it finishes.
+	 */
+	public void prewarmShips() {
+		Thread prewarmThread = new Thread( new Runnable() {
+			public void run() {
+				try {
+					runPrewarm();
+				}
+				catch ( IllegalStateException e ) {
+					log.debug( "Ship prewarm abandoned", e );
+				}
+			}
+		}, "DataManager-prewarm" );
+		prewarmThread.setDaemon( true );
+		prewarmThread.setPriority( Thread.MIN_PRIORITY );
+		prewarmThread.start();
+	}
 
-		if ( result == null ) {  // Wasn't cached; try parsing it.
-			InputStream in = null;
-			try {
-				in = getDataInputStream("data/"+ id +".txt");
-				result = dataParser.readLayout(in);
-				shipLayouts.put( id, result );
+	private void runPrewarm() {
+		Set<String> layoutIds = new LinkedHashSet<String>();
+		for ( ShipBlueprint ship : await( blueprintsFuture ).getShipBlueprint() )
+			if ( ship.getLayout() != null ) layoutIds.add( ship.getLayout() );
+		for ( ShipBlueprint ship : await( autoBlueprintsFuture ).getShipBlueprint() )
+			if ( ship.getLayout() != null ) layoutIds.add( ship.getLayout() );
+
+		long startTime = System.nanoTime();
+		int threadCount = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()-1));
+		ExecutorService pool = Executors.newFixedThreadPool( threadCount, createThreadFactory( "DataManager-prewarm-", Thread.MIN_PRIORITY ) );
+		final AtomicInteger layoutCount = new AtomicInteger();
+		final AtomicInteger chassisCount = new AtomicInteger();
+		int missingCount = 0;
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for ( final String id : layoutIds ) {
+				// Skip absent files, rather than logging errors nobody asked for.
+				final boolean hasLayout = dataParser.hasInnerFile( "data/"+ id +".txt" );
+				final boolean hasChassis = dataParser.hasInnerFile( "data/"+ id +".xml" );
+				if ( !hasLayout || !hasChassis ) missingCount++;
+
+				futures.add( pool.submit( new Runnable() {
+					public void run() {
+						if ( hasLayout && getShipLayout( id ) != null ) layoutCount.incrementAndGet();
+						if ( hasChassis && getShipChassis( id ) != null ) chassisCount.incrementAndGet();
+					}
+				}));
+			}
+			for ( Future<?> future : futures ) await( future );
 
-			} catch (FileNotFoundException e) {
-				log.error( "No ShipLayout found for id: "+ id );
+		} finally {
+			pool.shutdownNow();
+		}
 
-			} catch (IOException e) {
-				log.error( "An error occurred while parsing ShipLayout: "+ id, e );
+		long elapsed = (System.nanoTime() - startTime) / 1000000;
+		log.info( String.format( "Prewarmed %d ship layout ids in %d ms: %d layouts, %d chassis (%d ids lacked a file)", layoutIds.size(), elapsed, layoutCount.get(), chassisCount.get(), missingCount ) );
+	}
 
-			} finally {
-				try {if (in != null) in.close();}
-				catch (IOException f) {}
+	public ShipLayout getShipLayout(final String id) {
+		return getCached( shipLayouts, id, new Callable<ShipLayout>() {
+			public ShipLayout call() {
+				return loadShipLayout( id );
 			}
+		});
+	}
+
+	private ShipLayout loadShipLayout(String id) {
+		ShipLayout result = null;
+		InputStream in = null;
+		try {
+			in = getDataInputStream("data/"+ id +".txt");
+			result = dataParser.readLayout(in);
+
+		} catch (FileNotFoundException e) {
+			log.error( "No ShipLayout found for id: "+ id );
+
+		} catch (IOException e) {
+			log.error( "An error occurred while parsing ShipLayout: "+ id, e );
+
+		} finally {
+			try {if (in != null) in.close();}
+			catch (IOException f) {}
 		}
 
 		return result;
 	}
 
-	public ShipChassis getShipChassis(String id) {
-		ShipChassis result = shipChassisMap.get(id);
+	public ShipChassis getShipChassis(final String id) {
+		return getCached( shipChassisMap, id, new Callable<ShipChassis>() {
+			public ShipChassis call() {
+				return loadShipChassis( id );
+			}
+		});
+	}
 
-		if ( result == null ) {  // Wasn't cached; try parsing it.
-			InputStream in = null;
-			try {
-				in = getDataInputStream("data/"+ id +".xml");
-				result = dataParser.readChassis(in);
-				shipChassisMap.put( id, result );
+	private ShipChassis loadShipChassis(String id) {
+		ShipChassis result = null;
+		InputStream in = null;
+		try {
+			in = getDataInputStream("data/"+ id +".xml");
+			result = dataParser.readChassis(in);
 
-			} catch (JAXBException e) {
-				log.error( "Parsing XML failed for ShipChassis id: "+ id );
+		} catch (JAXBException e) {
+			log.error( "Parsing XML failed for ShipChassis id: "+ id );
 
-			} catch (FileNotFoundException e) {
-				log.error( "No ShipChassis found for id: "+ id );
+		} catch (FileNotFoundException e) {
+			log.error( "No ShipChassis found for id: "+ id );
 
-			} catch (IOException e) {
-				log.error( "An error occurred while parsing ShipChassis: "+ id, e );
+		} catch (IOException e) {
+			log.error( "An error occurred while parsing ShipChassis: "+ id, e );
 
-			} finally {
-				try {if (in != null) in.close();}
-				catch (IOException f) {}
-			}
+		} finally {
+			try {if (in != null) in.close();}
+			catch (IOException f) {}
 		}
 
 		return result;
 	}
+
+	/**
+	 * Returns a cached value, loading it if this is the first request.
+	 *
+	 * The first caller for an id runs the loader; concurrent callers
+	 * for the same id wait for that result instead of parsing again.
+	 * Callers for different ids don't block each other. A null result
+	 * (a logged failure) is cached too.
+	 */
+	private <T> T getCached( ConcurrentMap<String, FutureTask<T>> cache, String id, Callable<T> loader ) {
+		FutureTask<T> task = cache.get( id );
+		if ( task == null ) {
+			FutureTask<T> newTask = new FutureTask<T>( loader );
+			task = cache.putIfAbsent( id, newTask );
+			if ( task == null ) {
+				task = newTask;
+				task.run();
+			}
+		}
+
+		try {
+			return task.get();
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch ( ExecutionException e ) {
+			log.error( "An error occurred while loading: "+ id, e.getCause() );
+			return null;
+		}
+	}
 }
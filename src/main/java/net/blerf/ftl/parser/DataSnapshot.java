@@ -0,0 +1,206 @@
+package net.blerf.ftl.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.blerf.ftl.xml.Achievement;
+import net.blerf.ftl.xml.Blueprints;
+
+
+/**
+ * The parsed XML DataManager needs at startup, serialized to skip JAXB.
+ *
+ * A snapshot file is an int magic number, an int version, the MD5
+ * key of the XML it came from, then the serialized snapshot. The
+ * key covers the inner files' content, so an unchanged data.dat
+ * (even if touched or moved) reuses it.
+ *
+ * The key also covers the serialized fields of every model class a
+ * snapshot holds. Adding, removing or retyping one makes old
+ * snapshots stale, rather than leaving the new field null.
+ */
+class DataSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger log = LogManager.getLogger(DataSnapshot.class);
+
+	private static final int MAGIC = 0x46534E50;  // "FSNP"
+	// Bump this when the file layout above changes. Model classes'
+	// fields are already part of the key.
+	private static final int VERSION = 1;
+
+	public List<Achievement> achievements;
+	public Blueprints blueprints;
+	public Blueprints autoBlueprints;
+
+
+	public DataSnapshot( List<Achievement> achievements, Blueprints blueprints, Blueprints autoBlueprints ) {
+		this.achievements = achievements;
+		this.blueprints = blueprints;
+		this.autoBlueprints = autoBlueprints;
+	}
+
+	/**
+	 * Returns a digest of inner files and the snapshot's serialized
+	 * class layout, to key a snapshot by.
+	 */
+	public static byte[] createKey( MappedDatParser parser, String... innerPaths ) throws IOException {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance( "MD5" );
+		}
+		catch ( NoSuchAlgorithmException e ) {
+			throw new IOException( "MD5 is unavailable", e );
+		}
+
+		for ( String innerPath : innerPaths ) {
+			ByteBuffer buf = parser.getByteBuffer( innerPath );
+			md.update( innerPath.getBytes() );
+			md.update( buf );
+		}
+		digestLayout( md, DataSnapshot.class, new HashSet<Class<?>>() );
+		return md.digest();
+	}
+
+	/**
+	 * Digests the serialized fields of a class and, recursively, of
+	 * the editor's classes those fields (or their elements) hold.
+	 */
+	private static void digestLayout( MessageDigest md, Class<?> c, Set<Class<?>> seen ) {
+		if ( !seen.add( c ) ) return;
+
+		ObjectStreamClass desc = ObjectStreamClass.lookup( c );
+		if ( desc == null ) return;
+
+		md.update( (c.getName() +"#"+ desc.getSerialVersionUID() +"\n").getBytes() );
+		for ( ObjectStreamField field : desc.getFields() ) {
+			md.update( (field.getName() +":"+ field.getType().getName() +"\n").getBytes() );
+
+			Type type = field.getType();
+			try {
+				type = c.getDeclaredField( field.getName() ).getGenericType();
+			}
+			catch ( NoSuchFieldException e ) {}
+
+			for ( Class<?> held : getModelClasses( type, new HashSet<Class<?>>() ) )
+				digestLayout( md, held, seen );
+		}
+		if ( c.getSuperclass() != null && isModelClass( c.getSuperclass() ) )
+			digestLayout( md, c.getSuperclass(), seen );
+	}
+
+	/**
+	 * Returns the editor's classes named in a field's type, including
+	 * type arguments (e.g. the element class of a List).
+	 */
+	private static Set<Class<?>> getModelClasses( Type type, Set<Class<?>> result ) {
+		if ( type instanceof Class ) {
+			Class<?> c = (Class<?>)type;
+			while ( c.isArray() ) c = c.getComponentType();
+			if ( isModelClass( c ) ) result.add( c );
+		}
+		else if ( type instanceof ParameterizedType ) {
+			getModelClasses( ((ParameterizedType)type).getRawType(), result );
+			for ( Type arg : ((ParameterizedType)type).getActualTypeArguments() )
+				getModelClasses( arg, result );
+		}
+		else if ( type instanceof GenericArrayType ) {
+			getModelClasses( ((GenericArrayType)type).getGenericComponentType(), result );
+		}
+		else if ( type instanceof WildcardType ) {
+			for ( Type bound : ((WildcardType)type).getUpperBounds() )
+				getModelClasses( bound, result );
+		}
+		return result;
+	}
+
+	private static boolean isModelClass( Class<?> c ) {
+		return c.getName().startsWith( "net.blerf.ftl." );
+	}
+
+	/**
+	 * Reads a snapshot, in a single read.
+	 *
+	 * @return the snapshot, or null if missing, stale or unreadable
+	 */
+	public static DataSnapshot read( File f, byte[] key ) {
+		if ( !f.exists() ) return null;
+
+		ObjectInputStream in = null;
+		try {
+			ByteBufferReader reader = ByteBufferReader.fromFile( f );
+			if ( reader.readInt() != MAGIC ) return null;
+			if ( reader.readInt() != VERSION ) return null;
+
+			byte[] fileKey = reader.readBytes( reader.readInt() );
+			if ( !Arrays.equals( key, fileKey ) ) {
+				log.debug( "Data snapshot is stale: "+ f.getPath() );
+				return null;
+			}
+
+			ByteBuffer buf = reader.getBuffer();
+			in = new ObjectInputStream( new ByteArrayInputStream( buf.array(), buf.arrayOffset()+buf.position(), buf.remaining() ) );
+			DataSnapshot result = (DataSnapshot)in.readObject();
+
+			log.trace( "Read data snapshot: "+ f.getPath() );
+			return result;
+		}
+		catch ( Exception e ) {
+			log.warn( "Ignoring unreadable data snapshot: "+ f.getPath(), e );
+			return null;
+		}
+		finally {
+			try {if (in != null) in.close();}
+			catch (IOException e) {}
+		}
+	}
+
+	/**
+	 * Writes this snapshot, replacing any existing file atomically.
+	 * Failures are only logged.
+	 */
+	public void write( File f, byte[] key ) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 * 1024 );
+			ObjectOutputStream oos = new ObjectOutputStream( bytes );
+			oos.writeObject( this );
+			oos.close();
+
+			ByteBufferWriter out = new ByteBufferWriter( bytes.size() + 64 );
+			out.writeInt( MAGIC );
+			out.writeInt( VERSION );
+			out.writeInt( key.length );
+			out.writeBytes( key );
+			out.writeBytes( bytes.toByteArray() );
+
+			f.getAbsoluteFile().getParentFile().mkdirs();
+			out.writeToFile( f );
+			log.trace( "Wrote data snapshot: "+ f.getPath() );
+		}
+		catch ( IOException e ) {
+			log.warn( "Could not write data snapshot: "+ f.getPath(), e );
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package net.blerf.ftl.parser;
+
+import java.io.IOException;
+
+
+/**
+ * Streams human-readable dumps of parsed state to an Appendable.
+ *
+ * Nested objects are indented by two spaces per level as they're
+ * written, instead of re-indenting a finished string. Padding
+ * helpers stand in for String.format's "%3d" and "%-10s", without
+ * parsing a format per field.
+ *
+ * Blank lines are never indented, matching dumps built the old way.
+ */
+public class DumpWriter implements Appendable {
+
+	/**
+	 * Something that can write itself into a dump.
+	 */
+	public interface Dumpable {
+		public void dump( DumpWriter out ) throws IOException;
+	}
+
+	private static final String SPACES = "                                ";
+
+	private Appendable out;
+	private int depth = 0;
+	private boolean lineStart = true;
+
+
+	public DumpWriter( Appendable out ) {
+		this.out = out;
+	}
+
+	/**
+	 * Returns a Dumpable's dump as a String.
+	 */
+	public static String toString( Dumpable d ) {
+		StringBuilder result = new StringBuilder();
+		try {
+			d.dump( new DumpWriter(result) );
+		}
+		catch ( IOException e ) {
+			throw new RuntimeException( "StringBuilder threw an IOException", e );  // Can't happen.
+		}
+		return result.toString();
+	}
+
+	/** Indents subsequent lines by two more spaces. */
+	public DumpWriter indent() {
+		depth++;
+		return this;
+	}
+
+	public DumpWriter outdent() {
+		if ( depth > 0 ) depth--;
+		return this;
+	}
+
+	/**
+	 * Writes a Dumpable one level deeper than the current text.
+	 */
+	public DumpWriter appendIndented( Dumpable d ) throws IOException {
+		indent();
+		try {
+			d.dump( this );
+		}
+		finally {
+			outdent();
+		}
+		return this;
+	}
+
+	@Override
+	public DumpWriter append( CharSequence csq ) throws IOException {
+		if ( csq == null ) csq = "null";
+		return append( csq, 0, csq.length() );
+	}
+
+	@Override
+	public DumpWriter append( CharSequence csq, int start, int end ) throws IOException {
+		if ( csq == null ) csq = "null";
+
+		int lineEnd;
+		while ( start < end ) {
+			lineEnd = start;
+			while ( lineEnd < end && csq.charAt(lineEnd) != '\n' ) lineEnd++;
+
+			if ( lineEnd > start ) {
+				if ( lineStart ) writeIndent();
+				out.append( csq, start, lineEnd );
+				lineStart = false;
+			}
+			if ( lineEnd < end ) {
+				out.append( '\n' );
+				lineStart = true;
+				lineEnd++;
+			}
+			start = lineEnd;
+		}
+		return this;
+	}
+
+	@Override
+	public DumpWriter append( char c ) throws IOException {
+		if ( c == '\n' ) {
+			out.append( c );
+			lineStart = true;
+		} else {
+			if ( lineStart ) writeIndent();
+			out.append( c );
+			lineStart = false;
+		}
+		return this;
+	}
+
+	/** Writes an int, like "%d". */
+	public DumpWriter append( int n ) throws IOException {
+		return append( Integer.toString(n) );
+	}
+
+	/** Writes a boolean, like "%b". */
+	public DumpWriter append( boolean b ) throws IOException {
+		return append( (b ? "true" : "false") );
+	}
+
+	/** Writes an object's String value, like "%s". */
+	public DumpWriter appendValue( Object o ) throws IOException {
+		return append( String.valueOf(o) );
+	}
+
+	/**
+	 * Writes an int right-aligned in a field, like "%3d".
+	 */
+	public DumpWriter appendPadded( int n, int width ) throws IOException {
+		String s = Integer.toString(n);
+		appendSpaces( width - s.length() );
+		return append( s );
+	}
+
+	/**
+	 * Writes a String right-aligned in a field, like "%2s".
+	 */
+	public DumpWriter appendPadded( String s, int width ) throws IOException {
+		if ( s == null ) s = "null";
+		appendSpaces( width - s.length() );
+		return append( s );
+	}
+
+	/**
+	 * Writes a String left-aligned in a field, like "%-10s".
+	 */
+	public DumpWriter appendPaddedRight( String s, int width ) throws IOException {
+		if ( s == null ) s = "null";
+		append( s );
+		return appendSpaces( width - s.length() );
+	}
+
+	private DumpWriter appendSpaces( int n ) throws IOException {
+		while ( n > 0 ) {
+			int count = Math.min( n, SPACES.length() );
+			append( SPACES, 0, count );
+			n -= count;
+		}
+		return this;
+	}
+
+	private void writeIndent() throws IOException {
+		int n = depth * 2;
+		while ( n > 0 ) {
+			int count = Math.min( n, SPACES.length() );
+			out.append( SPACES, 0, count );
+			n -= count;
+		}
+	}
+}
@@ -3,25 +3,29 @@ package net.blerf.ftl.parser;
 import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.io.StringReader;
+import java.io.Reader;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.xml.sax.SAXParseException;
 
 import org.apache.logging.log4j.LogManager;
@@ -40,135 +44,196 @@ public class MappedDatParser extends Parser implements Closeable {
 	private static final Logger log = LogManager.getLogger(MappedDatParser.class);
 	private static final String BOM_UTF8 = "\uFEFF";
 
+	private static final ConcurrentMap<Class<?>, JAXBContext> jaxbContexts = new ConcurrentHashMap<Class<?>, JAXBContext>();
+	// The JDK's factory recycles its readers, so each thread gets its own.
+	private static final ThreadLocal<XMLInputFactory> xmlInputFactory = new ThreadLocal<XMLInputFactory>() {
+		@Override
+		protected XMLInputFactory initialValue() {
+			return XMLInputFactory.newInstance();
+		}
+	};
+
+	private static final int INDEX_CACHE_MAGIC = 0x46444958;  // "FDIX"
+	private static final int INDEX_CACHE_VERSION = 1;
+
+	private static File indexCacheFolder = null;
+
+	// Only modified during construction; afterward, safe to read from any thread.
 	private HashMap<String,InnerFileInfo> innerFilesMap = new HashMap<String,InnerFileInfo>();
 	private File datFile = null;
 	private RandomAccessFile randomDatFile = null;
 
+	// The whole archive, mapped once. Its position and limit are never
+	// changed, so duplicates can be taken from it freely, by any thread.
+	private volatile MappedByteBuffer datBuf = null;
+
 	public MappedDatParser(File datFile) throws IOException {
 		this.datFile = datFile;
 
-		FileInputStream in = null;
 		try {
-			in = new FileInputStream(datFile);
-
-			int headerSize = readInt(in);
-			int[] header = new int[headerSize];
-			for (int i = 0; i < header.length; i++) {
-				header[i] = readInt(in);
-			}
-			for (int i = 0; i < header.length && header[i] != 0; i++) {
-				in.getChannel().position(header[i]);
+			randomDatFile = new RandomAccessFile(datFile, "r");
 
-				long dataSize = (long)readInt(in);
-				String innerPath = readString(in);
-				long dataOffset = in.getChannel().position();
+			// Header offsets are ints, so a dat never exceeds one mapping.
+			datBuf = randomDatFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomDatFile.length());
 
-				InnerFileInfo info = new InnerFileInfo(dataOffset, dataSize);
-				innerFilesMap.put(innerPath, info);
+			File cacheFile = getIndexCacheFile();
+			if ( cacheFile == null || !readIndexCache(cacheFile) ) {
+				readIndex();
+				if ( cacheFile != null ) writeIndexCache(cacheFile);
 			}
-			in.close();
-
-			randomDatFile = new RandomAccessFile(datFile, "r");
 		}
 		catch (IOException e) {
 			try {if (randomDatFile != null) randomDatFile.close();}
 			catch (IOException f) {}
 			throw e;
 		}
-		finally {
-			try {if (in != null) in.close();}
-			catch (IOException f) {}
-		}
 	}
 
-	public List<Achievement> readAchievements(InputStream stream) throws IOException, JAXBException {
-		log.trace("Reading achievements XML");
+	/**
+	 * Sets a folder in which to cache the indexes of dat files.
+	 *
+	 * Subsequent parsers will look there before scanning a dat's
+	 * header, and will save what they scan.
+	 *
+	 * @param folder a folder, or null to always scan
+	 */
+	public static void setIndexCacheFolder(File folder) {
+		indexCacheFolder = folder;
+	}
 
-		// Need to clean invalid XML and comments before JAXB parsing
+	public static File getIndexCacheFolder() {
+		return indexCacheFolder;
+	}
 
-		BufferedReader in = new BufferedReader(new InputStreamReader(stream, "UTF8"));
-		StringBuilder sb = new StringBuilder();
-		String line;
-		while( (line = in.readLine()) != null ) {
-			line = line.replaceAll("<!--[^>]*-->", "");  // TODO need a proper Matcher for multiline comments
-			line = line.replaceAll("<desc>([^<]*)</name>", "<desc>$1</desc>");
-			sb.append(line).append("\n");
-		}
-		in.close();
-		if ( sb.substring(0, BOM_UTF8.length()).equals(BOM_UTF8) )
-			sb.replace(0, BOM_UTF8.length(), "");
+	/**
+	 * Scans the dat's header, reading each inner file's path and size.
+	 */
+	private void readIndex() {
+		ByteBufferReader in = new ByteBufferReader(datBuf.duplicate());
 
-		// XML has multiple root nodes so need to wrap.
-		sb.insert(0, "<achievements>\n");
-		sb.append("</achievements>\n");
+		int headerSize = readInt(in);
+		int[] header = new int[headerSize];
+		for (int i = 0; i < header.length; i++) {
+			header[i] = readInt(in);
+		}
+		for (int i = 0; i < header.length && header[i] != 0; i++) {
+			in.position(header[i]);
 
-		// Parse cleaned XML
-		Achievements ach = (Achievements)unmarshalFromSequence( Achievements.class, sb );
+			long dataSize = (long)readInt(in);
+			String innerPath = readString(in);
+			long dataOffset = in.position();
 
-		return ach.getAchievements();
+			InnerFileInfo info = new InnerFileInfo(dataOffset, dataSize);
+			innerFilesMap.put(innerPath, info);
+		}
 	}
 
-	public Blueprints readBlueprints(InputStream stream) throws IOException, JAXBException {
-		log.trace("Reading blueprints XML");
-
-		// Need to clean invalid XML and comments before JAXB parsing
+	/**
+	 * Returns the cache file for this dat, or null if caching is off.
+	 *
+	 * The name is derived from the dat's absolute path. The path,
+	 * size and modification time are checked again inside the file.
+	 */
+	private File getIndexCacheFile() {
+		if ( indexCacheFolder == null ) return null;
 
-		BufferedReader in = new BufferedReader(new InputStreamReader(stream, "UTF8"));
-		StringBuilder sb = new StringBuilder();
-		String line;
+		String datPath = datFile.getAbsolutePath();
+		return new File(indexCacheFolder, "dat-index-"+ Integer.toHexString(datPath.hashCode()) +"-"+ datFile.getName() +".bin");
+	}
 
-		boolean comment = false, inShipShields = false, inSlot = false;
-		while( (line = in.readLine()) != null ) {
-			// blueprints.xml
-			line = line.replaceAll("^<!-- sardonyx$", "<!-- sardonyx -->");  // Error above one shipBlueprint
-			line = line.replaceAll("<!--.*-->", "");
-			line = line.replaceAll("<\\?xml[^>]*>", "");
-			line = line.replaceAll("<title>([^<]*)</[^>]*>", "<title>$1</title>");  // Error present in systemBlueprint and itemBlueprint
-			line = line.replaceAll("<tooltip>([^<]*)</[^>]*>(-->)?", "<tooltip>$1</tooltip>");  // Error present in weaponBlueprint
-			line = line.replaceAll("<speed>([^<]*)</[^>]*>", "<speed>$1</speed>");  // Error present in weaponBlueprint
-			line = line.replaceAll("\"img=", "\" img=");  // ahhhh
-			line = line.replaceAll("</ship>", "</shipBlueprint>");  // Error in one shipBlueprint
+	/**
+	 * Populates the inner file map from a cache file.
+	 *
+	 * @return true if the cache was read, false if it was missing,
+	 *         stale or unreadable (and the map is left empty)
+	 */
+	private boolean readIndexCache(File cacheFile) {
+		if ( !cacheFile.exists() ) return false;
 
-			// Multi-line error in shipBlueprint
-			if ( line.matches(".*<shields [^\\/>]*>") ) {
-				inShipShields = true;
-			} else if (inShipShields) {
-				if (line.contains("<slot>"))
-					inSlot = true;
-				else if (line.contains("</slot>")) {
-					if (!inSlot) {
-						line = line.replace("</slot>", "</shields>");
-						inShipShields = false;
-					}
-					inSlot = false;
-				} else if (line.contains("</shields>"))
-					inShipShields = false;
+		try {
+			ByteBufferReader in = ByteBufferReader.fromFile(cacheFile);
+
+			if ( in.readInt() != INDEX_CACHE_MAGIC ) return false;
+			if ( in.readInt() != INDEX_CACHE_VERSION ) return false;
+			if ( !datFile.getAbsolutePath().equals(in.readString()) ) return false;
+			if ( in.readLong() != datFile.length() ) return false;
+			if ( in.readLong() != datFile.lastModified() ) return false;
+
+			int count = in.readInt();
+			HashMap<String,InnerFileInfo> cachedMap = new HashMap<String,InnerFileInfo>(count*4/3+1);
+			for (int i=0; i < count; i++) {
+				String innerPath = in.readString();
+				long dataOffset = (long)in.readInt();
+				long dataSize = (long)in.readInt();
+				if ( dataOffset < 0 || dataSize < 0 || dataOffset + dataSize > datBuf.capacity() ) return false;
+
+				cachedMap.put(innerPath, new InnerFileInfo(dataOffset, dataSize));
 			}
+			innerFilesMap = cachedMap;
+			log.trace("Read dat index from cache: "+ cacheFile.getPath());
+			return true;
+		}
+		catch (Exception e) {
+			log.warn("Ignoring unreadable dat index cache: "+ cacheFile.getPath(), e);
+			return false;
+		}
+	}
 
-			// autoBlueprints.xml
-			line = line.replaceAll("\"max=", "\" max=");  // ahhhh
-			line = line.replaceAll("\"room=", "\" room=");  // ahhhh
+	/**
+	 * Saves the inner file map to a cache file. Failures are only logged.
+	 */
+	private void writeIndexCache(File cacheFile) {
+		try {
+			ByteBufferWriter out = new ByteBufferWriter(64 + innerFilesMap.size()*64);
+			out.writeInt(INDEX_CACHE_MAGIC);
+			out.writeInt(INDEX_CACHE_VERSION);
+			out.writeString(datFile.getAbsolutePath());
+			out.writeLong(datFile.length());
+			out.writeLong(datFile.lastModified());
+
+			out.writeInt(innerFilesMap.size());
+			for (Map.Entry<String, InnerFileInfo> entry : innerFilesMap.entrySet()) {
+				out.writeString(entry.getKey());
+				out.writeInt((int)entry.getValue().dataOffset);
+				out.writeInt((int)entry.getValue().dataSize);
+			}
 
-			// Remove multiline comments
-			if (comment && line.contains("-->"))
-				comment = false;
-			else if (line.contains("<!--"))
-				comment = true;
-			else if (!comment)
-				sb.append(line).append("\n");
+			cacheFile.getParentFile().mkdirs();
+			out.writeToFile(cacheFile);
+			log.trace("Wrote dat index cache: "+ cacheFile.getPath());
 		}
-		in.close();
-		if ( sb.substring(0, BOM_UTF8.length()).equals(BOM_UTF8) )
-			sb.replace(0, BOM_UTF8.length(), "");
+		catch (IOException e) {
+			log.warn("Could not write dat index cache: "+ cacheFile.getPath(), e);
+		}
+	}
 
+	public List<Achievement> readAchievements(InputStream stream) throws IOException, JAXBException {
+		log.trace("Reading achievements XML");
+
+		// Need to clean invalid XML and comments before JAXB parsing.
 		// XML has multiple root nodes so need to wrap.
-		sb.insert(0, "<blueprints>\n");
-		sb.append("</blueprints>\n");
+		XmlSanitizingReader in = new AchievementsSanitizer(new InputStreamReader(stream, "UTF8"));
+		try {
+			Achievements ach = unmarshalFromReader( Achievements.class, in );
+			return ach.getAchievements();
+		}
+		finally {
+			in.close();
+		}
+	}
 
-		// Parse cleaned XML
-		Blueprints bps = (Blueprints)unmarshalFromSequence( Blueprints.class, sb.toString() );
+	public Blueprints readBlueprints(InputStream stream) throws IOException, JAXBException {
+		log.trace("Reading blueprints XML");
 
-		return bps;
+		// Need to clean invalid XML and comments before JAXB parsing.
+		// XML has multiple root nodes so need to wrap.
+		XmlSanitizingReader in = new BlueprintsSanitizer(new InputStreamReader(stream, "UTF8"));
+		try {
+			return unmarshalFromReader( Blueprints.class, in );
+		}
+		finally {
+			in.close();
+		}
 	}
 
 	public ShipLayout readLayout( InputStream stream ) throws IOException {
@@ -227,148 +292,253 @@ public class MappedDatParser extends Parser implements Closeable {
 	public ShipChassis readChassis(InputStream stream) throws IOException, JAXBException {
 		log.trace("Reading ship chassis XML");
 
-		// Need to clean invalid XML and comments before JAXB parsing
-
-		BufferedReader in = new BufferedReader(new InputStreamReader(stream, "UTF8"));
-		StringBuilder sb = new StringBuilder();
-		String line;
-
-		boolean comment = false;
-		while( (line = in.readLine()) != null ) {
-			line = line.replaceAll("<!--.*-->", "");
-			line = line.replaceAll("<(/?)gib[0-9]*>", "<$1gib>");
-
-			// Remove multiline comments
-			if (comment && line.contains("-->"))
-				comment = false;
-			else if (line.contains("<!--"))
-				comment = true;
-			else if (!comment)
-				sb.append(line).append("\n");
-		}
-		in.close();
-		if ( sb.substring(0, BOM_UTF8.length()).equals(BOM_UTF8) )
-			sb.replace(0, BOM_UTF8.length(), "");
-
+		// Need to clean invalid XML and comments before JAXB parsing.
 		// XML has multiple root nodes so need to wrap.
-		sb.insert(0, "<shipChassis>\n");
-		sb.append("</shipChassis>\n");
-
-		// Parse cleaned XML
-		ShipChassis sch = (ShipChassis)unmarshalFromSequence( ShipChassis.class, sb.toString() );
+		XmlSanitizingReader in = new ChassisSanitizer(new InputStreamReader(stream, "UTF8"));
+		try {
+			return unmarshalFromReader( ShipChassis.class, in );
+		}
+		finally {
+			in.close();
+		}
+	}
 
-		return sch;
+	/**
+	 * Returns a shared JAXBContext for a class.
+	 * Contexts are thread-safe, and costly to create.
+	 */
+	private static JAXBContext getJAXBContext( Class<?> c ) throws JAXBException {
+		JAXBContext jc = jaxbContexts.get(c);
+		if ( jc == null ) {
+			jc = JAXBContext.newInstance(c);
+			JAXBContext existing = jaxbContexts.putIfAbsent(c, jc);
+			if ( existing != null ) jc = existing;
+		}
+		return jc;
 	}
 
 	/**
-	 * Parse XML from a CharSequence into an arbitrary class.
+	 * Parse XML from a sanitizing Reader into an arbitrary class.
 	 * Besides throwing the usual exception, the logger will
 	 * print what the invalid line was.
 	 */
-	private Object unmarshalFromSequence( Class c, CharSequence seq ) throws JAXBException {
-		Object result = null;
+	private <T> T unmarshalFromReader( Class<T> c, XmlSanitizingReader in ) throws JAXBException {
+		T result = null;
+		XMLStreamReader xsr = null;
 		try {
-			JAXBContext jc = JAXBContext.newInstance(c);
-			Unmarshaller u = jc.createUnmarshaller();
-			result = u.unmarshal( new StreamSource(new StringReader(seq.toString())) );
+			xsr = xmlInputFactory.get().createXMLStreamReader(in);
+			Unmarshaller u = getJAXBContext(c).createUnmarshaller();
+			result = c.cast( u.unmarshal(xsr) );
+
+		} catch (XMLStreamException e) {
+			logBadLine( c, in, (e.getLocation() != null ? e.getLocation().getLineNumber() : -1) );
+			throw new JAXBException(e);
 
 		} catch (JAXBException e) {
+			int exLineNum = -1;
 			Throwable linkedException = e.getLinkedException();
 			if ( linkedException instanceof SAXParseException ) {
-				// Get the 1-based line number where the problem was.
-				int exLineNum = ((SAXParseException)linkedException).getLineNumber();
-
-				String badLine = "";
-				try { badLine = getLineFromSequence( seq, exLineNum-1 ); }
-				catch (IndexOutOfBoundsException f) {}
-
-				log.error( c.getSimpleName() +" parsing failed at line "+ exLineNum +" (1-based) of xml: "+ badLine );
+				exLineNum = ((SAXParseException)linkedException).getLineNumber();
 			}
+			else if ( linkedException instanceof XMLStreamException && ((XMLStreamException)linkedException).getLocation() != null ) {
+				exLineNum = ((XMLStreamException)linkedException).getLocation().getLineNumber();
+			}
+			if ( exLineNum != -1 ) logBadLine( c, in, exLineNum );
 			throw e;
+
+		} finally {
+			try {if (xsr != null) xsr.close();}
+			catch (XMLStreamException e) {}
 		}
 
 		return result;
 	}
 
 	/**
-	 * Returns a specific line from a CharSequence.
-	 *
-	 * @param seq a sequence to search
-	 * @param lineNum a 0-based line number
-	 * @throws IndexOutOfBoundsException if lineNum is greater
-	 *         than the total available lines in seq, or negative.
+	 * Logs a line, by its 1-based number, that failed to parse.
 	 */
-	private String getLineFromSequence( CharSequence seq, int lineNum ) throws IndexOutOfBoundsException {
-		if ( lineNum < 0 )
-			throw new IndexOutOfBoundsException( "Attempted to get a negative line ("+ lineNum +") from a char sequence" );
-
-		int charCount = seq.length();
-		int currentLineNum = 0;
-		int prevBreak = -1;
-		int c = 0;
-		for (; c < charCount; c++) {
-			if ( seq.charAt(c) == '\n' ) {
-				if ( currentLineNum == lineNum ) {
-					break;
-				} else {
-					prevBreak = c;
-					currentLineNum++;
-				}
-			}
-		}
-		if ( currentLineNum != lineNum )
-			throw new IndexOutOfBoundsException( "Attempted to get line "+ lineNum +" (0-based) from a char sequence but only "+ currentLineNum +" lines were present" );
+	private void logBadLine( Class<?> c, XmlSanitizingReader in, int exLineNum ) {
+		String badLine = in.getRecentLine( exLineNum );
+		if ( badLine == null ) badLine = "";
 
-		return seq.subSequence( prevBreak+1, c ).toString();
+		log.error( c.getSimpleName() +" parsing failed at line "+ exLineNum +" (1-based) of xml: "+ badLine );
 	}
 
-	public InputStream getInputStream(String innerPath) throws FileNotFoundException, IOException {
+	/**
+	 * Returns true if the dat contains an inner file.
+	 */
+	public boolean hasInnerFile(String innerPath) {
+		return innerFilesMap.containsKey(innerPath);
+	}
+
+	/**
+	 * Returns an inner file's bytes, as a read-only view of the mapped dat.
+	 *
+	 * Nothing is copied or loaded up front; pages fault in as the view
+	 * is read. Each call returns an independent view, at position 0.
+	 */
+	public ByteBuffer getByteBuffer(String innerPath) throws FileNotFoundException, IOException {
 		InnerFileInfo info = innerFilesMap.get(innerPath);
 		if (info == null) throw new FileNotFoundException("The path ("+ innerPath +") was not found in "+ datFile.getName());
+		MappedByteBuffer mappedBuf = datBuf;
+		if (mappedBuf == null) throw new IOException("The dat file ("+ datFile.getName() +") has been closed");
 
-		MappedByteBuffer buf = randomDatFile.getChannel().map(FileChannel.MapMode.READ_ONLY, info.dataOffset, info.dataSize);
-		buf.load();
-		InputStream stream = new ByteBufferBackedInputStream(buf);
+		ByteBuffer buf = mappedBuf.duplicate();
+		buf.position((int)info.dataOffset);
+		buf.limit((int)(info.dataOffset + info.dataSize));
+		return buf.slice();
+	}
+
+	public InputStream getInputStream(String innerPath) throws FileNotFoundException, IOException {
+		InputStream stream = new ByteBufferBackedInputStream(getByteBuffer(innerPath));
 		return stream;
 	}
 
 	public void unpackDat(File outFolder) throws IOException {
-		log.trace("Unpacking dat file " + datFile.getPath() + " into " + outFolder.getPath());
+		unpackDat(outFolder, null);
+	}
 
-		byte[] buffer = new byte[4096];
-		int bytesRead;
+	/**
+	 * Extracts every inner file into a folder, in parallel.
+	 *
+	 * @param listener a listener to notify of progress, or null
+	 * @return true if all files were extracted, false if cancelled
+	 * @see DatExtractor
+	 */
+	public boolean unpackDat(File outFolder, DatExtractor.ProgressListener listener) throws IOException {
+		log.trace("Unpacking dat file " + datFile.getPath() + " into " + outFolder.getPath());
 
-		outFolder.mkdirs();
+		List<DatExtractor.Entry> entries = new ArrayList<DatExtractor.Entry>(innerFilesMap.size());
 		for (Map.Entry<String, InnerFileInfo> entry : innerFilesMap.entrySet()) {
-			String innerPath = entry.getKey();
 			InnerFileInfo info = entry.getValue();
+			entries.add(new DatExtractor.Entry(entry.getKey(), info.dataOffset, info.dataSize));
+		}
+
+		return new DatExtractor().extract(datFile, entries, outFolder, listener);
+	}
+
+	public void close() throws IOException {
+		datBuf = null;
+		if (randomDatFile != null) randomDatFile.close();
+	}
 
-			log.trace("Unpacking: " + innerPath + " ("+ info.dataSize +"b)");
 
-			File outFile = new File(outFolder, innerPath);
-			outFile.getParentFile().mkdirs();
-			InputStream in = null;
-			FileOutputStream out = null;
-			try {
-				in = getInputStream(innerPath);
-				out = new FileOutputStream(outFile);
 
-				while ((bytesRead = in.read(buffer)) != -1) {
-					out.write(buffer, 0, bytesRead);
-				}
+	/**
+	 * Cleans achievements.xml.
+	 */
+	private static class AchievementsSanitizer extends XmlSanitizingReader {
+		private static final Pattern COMMENT_PTN = Pattern.compile("<!--[^>]*-->");  // TODO need a proper Matcher for multiline comments
+		private static final Pattern DESC_PTN = Pattern.compile("<desc>([^<]*)</name>");
+
+		public AchievementsSanitizer(Reader in) {
+			super(in, "achievements");
+		}
+
+		@Override
+		protected String filterLine(String line) {
+			if (line.contains("<!--")) line = COMMENT_PTN.matcher(line).replaceAll("");
+			if (line.contains("<desc>")) line = DESC_PTN.matcher(line).replaceAll("<desc>$1</desc>");
+			return line;
+		}
+	}
+
+
+
+	/**
+	 * Cleans blueprints.xml and autoBlueprints.xml.
+	 */
+	private static class BlueprintsSanitizer extends XmlSanitizingReader {
+		private static final Pattern SARDONYX_PTN = Pattern.compile("^<!-- sardonyx$");  // Error above one shipBlueprint
+		private static final Pattern COMMENT_PTN = Pattern.compile("<!--.*-->");
+		private static final Pattern XML_DECL_PTN = Pattern.compile("<\\?xml[^>]*>");
+		private static final Pattern TITLE_PTN = Pattern.compile("<title>([^<]*)</[^>]*>");  // Error present in systemBlueprint and itemBlueprint
+		private static final Pattern TOOLTIP_PTN = Pattern.compile("<tooltip>([^<]*)</[^>]*>(-->)?");  // Error present in weaponBlueprint
+		private static final Pattern SPEED_PTN = Pattern.compile("<speed>([^<]*)</[^>]*>");  // Error present in weaponBlueprint
+		private static final Pattern SHIP_SHIELDS_PTN = Pattern.compile(".*<shields [^\\/>]*>");
+
+		private boolean comment = false, inShipShields = false, inSlot = false;
+
+		public BlueprintsSanitizer(Reader in) {
+			super(in, "blueprints");
+		}
 
-			} finally {
-				try {if (in != null) in.close();}
-				catch (IOException e) {}
+		@Override
+		protected String filterLine(String line) {
+			// blueprints.xml
+			if (line.contains("<!--")) {
+				line = SARDONYX_PTN.matcher(line).replaceAll("<!-- sardonyx -->");
+				line = COMMENT_PTN.matcher(line).replaceAll("");
+			}
+			if (line.contains("<?xml")) line = XML_DECL_PTN.matcher(line).replaceAll("");
+			if (line.contains("<title>")) line = TITLE_PTN.matcher(line).replaceAll("<title>$1</title>");
+			if (line.contains("<tooltip>")) line = TOOLTIP_PTN.matcher(line).replaceAll("<tooltip>$1</tooltip>");
+			if (line.contains("<speed>")) line = SPEED_PTN.matcher(line).replaceAll("<speed>$1</speed>");
+			line = line.replace("\"img=", "\" img=");  // ahhhh
+			line = line.replace("</ship>", "</shipBlueprint>");  // Error in one shipBlueprint
 
-				try {if (out != null) out.close();}
-				catch (IOException e) {}
+			// Multi-line error in shipBlueprint
+			if ( line.contains("<shields ") && SHIP_SHIELDS_PTN.matcher(line).matches() ) {
+				inShipShields = true;
+			} else if (inShipShields) {
+				if (line.contains("<slot>"))
+					inSlot = true;
+				else if (line.contains("</slot>")) {
+					if (!inSlot) {
+						line = line.replace("</slot>", "</shields>");
+						inShipShields = false;
+					}
+					inSlot = false;
+				} else if (line.contains("</shields>"))
+					inShipShields = false;
 			}
+
+			// autoBlueprints.xml
+			line = line.replace("\"max=", "\" max=");  // ahhhh
+			line = line.replace("\"room=", "\" room=");  // ahhhh
+
+			// Remove multiline comments
+			if (comment && line.contains("-->"))
+				comment = false;
+			else if (line.contains("<!--"))
+				comment = true;
+			else if (!comment)
+				return line;
+
+			return null;
 		}
 	}
 
-	public void close() throws IOException {
-		if (randomDatFile != null) randomDatFile.close();
+
+
+	/**
+	 * Cleans ship chassis xml.
+	 */
+	private static class ChassisSanitizer extends XmlSanitizingReader {
+		private static final Pattern COMMENT_PTN = Pattern.compile("<!--.*-->");
+		private static final Pattern GIB_PTN = Pattern.compile("<(/?)gib[0-9]*>");
+
+		private boolean comment = false;
+
+		public ChassisSanitizer(Reader in) {
+			super(in, "shipChassis");
+		}
+
+		@Override
+		protected String filterLine(String line) {
+			if (line.contains("<!--")) line = COMMENT_PTN.matcher(line).replaceAll("");
+			if (line.contains("gib")) line = GIB_PTN.matcher(line).replaceAll("<$1gib>");
+
+			// Remove multiline comments
+			if (comment && line.contains("-->"))
+				comment = false;
+			else if (line.contains("<!--"))
+				comment = true;
+			else if (!comment)
+				return line;
+
+			return null;
+		}
 	}
 
 
@@ -385,28 +555,42 @@ public class MappedDatParser extends Parser implements Closeable {
 
 
 
+	/**
+	 * A stream over a buffer it owns.
+	 *
+	 * Every getInputStream() call makes its own, over its own view of
+	 * the dat, so many threads can read at once without locking. A
+	 * single stream is not meant to be shared between threads.
+	 */
 	public class ByteBufferBackedInputStream extends InputStream {
 		ByteBuffer buf;
 		public ByteBufferBackedInputStream(ByteBuffer buf) {
 			this.buf = buf;
 		}
 		@Override
-		public synchronized int available() throws IOException {
+		public int available() throws IOException {
 			if (!buf.hasRemaining()) return 0;
 			return buf.remaining();
 		}
 		@Override
-		public synchronized int read() throws IOException {
+		public int read() throws IOException {
 			if (!buf.hasRemaining()) return -1;
 			return buf.get() & 0xFF;
 		}
 		@Override
-		public synchronized int read(byte[] bytes, int off, int len) throws IOException {
+		public int read(byte[] bytes, int off, int len) throws IOException {
 			if (!buf.hasRemaining()) return -1;
 			len = Math.min(len, buf.remaining());
 			buf.get(bytes, off, len);
 			return len;
 		}
+		@Override
+		public long skip(long n) throws IOException {
+			if (n <= 0) return 0;
+			int skipped = (int)Math.min(n, buf.remaining());
+			buf.position(buf.position() + skipped);
+			return skipped;
+		}
 	}
 }
 
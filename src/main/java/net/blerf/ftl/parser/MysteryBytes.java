@@ -37,6 +37,26 @@ public class MysteryBytes {
 		this.bytes = unBytes;
 	}
 
+	/**
+	 * Constructor using bytes from a ByteBufferReader.
+	 *
+	 * @param in a reader, whose position will be the offset.
+	 * @param length the number of bytes to read.
+	 */
+	public MysteryBytes( ByteBufferReader in, int length ) {
+		this.offset = in.position();
+		this.bytes = in.readBytes(length);
+	}
+
+	/** Returns the offset in the file, or -1 if unknown. */
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return bytes.length;
+	}
+
 	public String toString() {
 		StringBuilder result = new StringBuilder();
 		StringBuilder ascii = new StringBuilder();
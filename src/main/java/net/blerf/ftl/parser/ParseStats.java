@@ -0,0 +1,111 @@
+package net.blerf.ftl.parser;
+
+import java.io.IOException;
+import java.io.Writer;
+
+
+/**
+ * Byte counts and timings for sections of files a Parser decoded
+ * or encoded.
+ *
+ * Sections nest (a ship's crew is also part of the ship), and each
+ * is timed inclusively, so totals across sections overlap. Sections
+ * skipped by a lazy read count toward the section that skipped them,
+ * and their parts only count once decoded.
+ *
+ * This isn't synchronized; give each parser its own instance.
+ */
+public class ParseStats {
+
+	public enum Section {
+		HEADER("Header"), STATE_VARS("State Vars"), SHIP("Ship"),
+		CREW("Crew"), SYSTEMS("Systems"), ROOMS("Rooms"), DOORS("Doors"),
+		WEAPONS("Weapons"), DRONES("Drones"), BEACONS("Beacons"),
+		STORE_SHELVES("Store Shelves"), FLAGSHIP("Flagship"),
+		ACHIEVEMENTS("Achievements"), SHIP_UNLOCKS("Ship Unlocks"), STATS("Stats");
+
+		private String title;
+		private Section( String title ) { this.title = title; }
+		public String toString() { return title; }
+	}
+
+	private static final int DECODE = 0;
+	private static final int ENCODE = 1;
+
+	private long[][] counts = new long[2][Section.values().length];
+	private long[][] bytes = new long[2][Section.values().length];
+	private long[][] nanos = new long[2][Section.values().length];
+
+
+	/**
+	 * Records one pass over a section.
+	 *
+	 * Nested sections are recorded before the sections around them.
+	 *
+	 * @param startPos the offset in the file where the section began
+	 * @param byteCount the section's length
+	 */
+	public void record( Section section, boolean encoding, int startPos, int byteCount, long elapsedNanos ) {
+		int op = ( encoding ? ENCODE : DECODE );
+		int n = section.ordinal();
+		counts[op][n]++;
+		bytes[op][n] += byteCount;
+		nanos[op][n] += elapsedNanos;
+	}
+
+	public long getCount( Section section, boolean encoding ) {
+		return counts[(encoding ? ENCODE : DECODE)][section.ordinal()];
+	}
+
+	public long getBytes( Section section, boolean encoding ) {
+		return bytes[(encoding ? ENCODE : DECODE)][section.ordinal()];
+	}
+
+	public long getNanos( Section section, boolean encoding ) {
+		return nanos[(encoding ? ENCODE : DECODE)][section.ordinal()];
+	}
+
+	public void reset() {
+		for (int op=0; op < 2; op++) {
+			for (int n=0; n < Section.values().length; n++) {
+				counts[op][n] = 0;
+				bytes[op][n] = 0;
+				nanos[op][n] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Writes all non-empty sections as CSV, for offline analysis.
+	 *
+	 * Columns: operation, section, count, bytes, nanos.
+	 */
+	public void writeCsv( Writer out ) throws IOException {
+		out.write( "operation,section,count,bytes,nanos\n" );
+		for (int op=0; op < 2; op++) {
+			for ( Section section : Section.values() ) {
+				int n = section.ordinal();
+				if ( counts[op][n] == 0 ) continue;
+				out.write( String.format( "%s,%s,%d,%d,%d\n", (op == ENCODE ? "encode" : "decode"), section.name(), counts[op][n], bytes[op][n], nanos[op][n] ) );
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (int op=0; op < 2; op++) {
+			result.append( (op == ENCODE ? "\nEncoded...\n" : "Decoded...\n") );
+			result.append( String.format( "%-14s %7s %10s %10s\n", "Section", "Count", "Bytes", "ms" ) );
+			boolean empty = true;
+			for ( Section section : Section.values() ) {
+				int n = section.ordinal();
+				if ( counts[op][n] == 0 ) continue;
+				result.append( String.format( "%-14s %7d %10d %10.3f\n", section, counts[op][n], bytes[op][n], nanos[op][n] / 1000000.0 ) );
+				empty = false;
+			}
+			if ( empty ) result.append( "None\n" );
+		}
+		return result.toString();
+	}
+}
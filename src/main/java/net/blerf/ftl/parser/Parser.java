@@ -4,7 +4,6 @@ import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 
 import net.blerf.ftl.parser.MappedDatParser;
 
@@ -12,6 +11,73 @@ import net.blerf.ftl.parser.MappedDatParser;
 public class Parser {
 	
 	private byte[] intbuf = new byte[4];
+	private StringPool stringPool = null;
+	private ParseStats parseStats = null;
+
+	/**
+	 * Sets stats to record sections into, or null (the default) to
+	 * record nothing.
+	 */
+	public void setParseStats( ParseStats parseStats ) {
+		this.parseStats = parseStats;
+	}
+
+	public ParseStats getParseStats() {
+		return parseStats;
+	}
+
+	/**
+	 * Returns a timestamp to pass to sectionRead() or sectionWritten(),
+	 * or 0 if stats aren't being recorded.
+	 */
+	protected long sectionStart() {
+		return ( parseStats != null ? System.nanoTime() : 0 );
+	}
+
+	/**
+	 * Records a decoded section, if stats are being recorded.
+	 *
+	 * @param startPos the reader's position when the section began
+	 * @param startTime the value sectionStart() returned
+	 */
+	protected void sectionRead( ParseStats.Section section, ByteBufferReader in, int startPos, long startTime ) {
+		if ( parseStats != null )
+			parseStats.record( section, false, startPos, in.position()-startPos, System.nanoTime()-startTime );
+	}
+
+	/**
+	 * Records an encoded section, if stats are being recorded.
+	 *
+	 * @param startPos the writer's size when the section began
+	 * @param startTime the value sectionStart() returned
+	 */
+	protected void sectionWritten( ParseStats.Section section, ByteBufferWriter out, int startPos, long startTime ) {
+		if ( parseStats != null )
+			parseStats.record( section, true, startPos, out.size()-startPos, System.nanoTime()-startTime );
+	}
+	
+	/**
+	 * Returns a pool for strings this parser decodes.
+	 *
+	 * It's backed by DataManager's known ids, when available, so
+	 * repeated ids across everything this parser reads share one
+	 * instance.
+	 */
+	protected StringPool getStringPool() {
+		if ( stringPool == null ) {
+			DataManager dataManager = DataManager.get();
+			stringPool = new StringPool( (dataManager != null ? dataManager.getStringPool() : null) );
+		}
+		return stringPool;
+	}
+
+	/**
+	 * Prepares a reader to decode strings through this parser's pool.
+	 */
+	protected void poolStrings(ByteBufferReader in) {
+		if ( in.getStringPool() == null )
+			in.setStringPool( getStringPool() );
+	}
 	
 	protected boolean readBool(InputStream in) throws IOException {
 		
@@ -24,8 +90,12 @@ public class Parser {
 		
 	}
 
-	protected void writeBool(OutputStream out, boolean b) throws IOException {
-		writeInt(out, (b ? 1 : 0) );
+	protected boolean readBool(ByteBufferReader in) {
+		return in.readBool();
+	}
+
+	protected void writeBool(ByteBufferWriter out, boolean b) {
+		out.writeBool(b);
 	}
 
 	protected int readInt(InputStream in) throws IOException {
@@ -48,14 +118,12 @@ public class Parser {
 		
 	}
 	
-	protected void writeInt(OutputStream out, int value) throws IOException {
-		
-		for (int i = 0; i < intbuf.length; i++) {
-			intbuf[i] = (byte)(value >> (i*8));
-		}
-		
-		out.write(intbuf);
-		
+	protected int readInt(ByteBufferReader in) {
+		return in.readInt();
+	}
+
+	protected void writeInt(ByteBufferWriter out, int value) {
+		out.writeInt(value);
 	}
 	
 	protected String readString(InputStream in) throws IOException {
@@ -98,12 +166,12 @@ public class Parser {
 		
 	}
 	
-	protected void writeString(OutputStream out, String str) throws IOException {
-		
-		writeInt(out, str.length());
-		
-		out.write( str.getBytes() );
-		
+	protected String readString(ByteBufferReader in) {
+		return in.readString();
+	}
+
+	protected void writeString(ByteBufferWriter out, String str) {
+		out.writeString(str);
 	}
 	
 }
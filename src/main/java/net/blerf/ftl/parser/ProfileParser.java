@@ -1,8 +1,6 @@
 package net.blerf.ftl.parser;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,8 +18,9 @@ public class ProfileParser extends Parser {
 	
 	private static final Logger log = LogManager.getLogger(ProfileParser.class);
 	
-	public Profile readProfile(InputStream in) throws IOException {
+	public Profile readProfile(ByteBufferReader in) throws IOException {
 		
+		poolStrings(in);
 		Profile p = new Profile();
 		
 		// Presumed version header
@@ -30,29 +29,47 @@ public class ProfileParser extends Parser {
 			throw new RuntimeException("Initial int (assumed to be file format version) not expected value: " + version);
 		p.setVersion(4);
 		
+		int sectionPos = in.position();
+		long sectionTime = sectionStart();
 		p.setAchievements( readAchievements(in) );
+		sectionRead( ParseStats.Section.ACHIEVEMENTS, in, sectionPos, sectionTime );
 
+		sectionPos = in.position();
+		sectionTime = sectionStart();
 		p.setShipUnlocks( readShipUnlocks(in) );
+		sectionRead( ParseStats.Section.SHIP_UNLOCKS, in, sectionPos, sectionTime );
 		
+		sectionPos = in.position();
+		sectionTime = sectionStart();
 		p.setStats( readStats(in) );
+		sectionRead( ParseStats.Section.STATS, in, sectionPos, sectionTime );
 		
 		return p;
 		
 	}
 	
-	public void writeProfile(OutputStream out, Profile p) throws IOException {
+	public void writeProfile(ByteBufferWriter out, Profile p) throws IOException {
 		
 		writeInt(out, p.getVersion());
 		
+		int sectionPos = out.size();
+		long sectionTime = sectionStart();
 		writeAchievements(out, p.getAchievements());
+		sectionWritten( ParseStats.Section.ACHIEVEMENTS, out, sectionPos, sectionTime );
 		
+		sectionPos = out.size();
+		sectionTime = sectionStart();
 		writeShipUnlocks(out, p.getShipUnlocks());
+		sectionWritten( ParseStats.Section.SHIP_UNLOCKS, out, sectionPos, sectionTime );
 		
+		sectionPos = out.size();
+		sectionTime = sectionStart();
 		writeStats(out, p.getStats());
+		sectionWritten( ParseStats.Section.STATS, out, sectionPos, sectionTime );
 		
 	}
 	
-	private List<AchievementRecord> readAchievements(InputStream in) throws IOException {
+	private List<AchievementRecord> readAchievements(ByteBufferReader in) throws IOException {
 		
 		int achievementCount = readInt(in);
 		
@@ -73,7 +90,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private void writeAchievements(OutputStream out, List<AchievementRecord> achievements) throws IOException {
+	private void writeAchievements(ByteBufferWriter out, List<AchievementRecord> achievements) throws IOException {
 		
 		writeInt(out, achievements.size());
 		
@@ -89,7 +106,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private boolean[] readShipUnlocks(InputStream in) throws IOException {
+	private boolean[] readShipUnlocks(ByteBufferReader in) throws IOException {
 		
 		boolean[] unlocks = new boolean[12];
 		
@@ -101,7 +118,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private void writeShipUnlocks(OutputStream out, boolean[] unlocks) throws IOException {
+	private void writeShipUnlocks(ByteBufferWriter out, boolean[] unlocks) throws IOException {
 		
 		for (int i = 0; i < unlocks.length; i++) {
 			writeInt(out, unlocks[i] ? 1 : 0);
@@ -109,7 +126,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private Stats readStats(InputStream in) throws IOException {
+	private Stats readStats(ByteBufferReader in) throws IOException {
 		
 		Stats stats = new Stats();
 		
@@ -140,7 +157,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private void writeStats(OutputStream out, Stats stats) throws IOException {
+	private void writeStats(ByteBufferWriter out, Stats stats) throws IOException {
 		
 		writeScoreList(out, stats.getTopScores());
 		writeScoreList(out, stats.getShipBest());
@@ -164,7 +181,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private CrewRecord readCrewRecord(InputStream in) throws IOException {
+	private CrewRecord readCrewRecord(ByteBufferReader in) throws IOException {
 		
 		int score = readInt(in);
 		String name = readString(in);
@@ -177,7 +194,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private void writeCrewRecord(OutputStream out, CrewRecord rec) throws IOException {
+	private void writeCrewRecord(ByteBufferWriter out, CrewRecord rec) throws IOException {
 		
 		writeInt(out, rec.getScore());
 		writeString(out, rec.getName());
@@ -186,7 +203,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private List<Score> readScoreList(InputStream in) throws IOException {
+	private List<Score> readScoreList(ByteBufferReader in) throws IOException {
 		
 		int scoreCount = readInt(in);
 		
@@ -215,7 +232,7 @@ public class ProfileParser extends Parser {
 		
 	}
 	
-	private void writeScoreList(OutputStream out, List<Score> scores) throws IOException {
+	private void writeScoreList(ByteBufferWriter out, List<Score> scores) throws IOException {
 		
 		writeInt(out, scores.size());
 		
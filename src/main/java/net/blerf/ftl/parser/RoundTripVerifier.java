@@ -0,0 +1,224 @@
+package net.blerf.ftl.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Checks that a file's parsed contents re-encode to the same bytes.
+ *
+ * The file and its re-encoding are both in memory, so they're
+ * compared directly. The parser's encoded sections are recorded along
+ * the way, to name the one holding the first differing byte.
+ *
+ * Usage: read() the file, parse the returned reader, ignore() any
+ * ranges the parser is known to drop, then verify() with an Encoder
+ * that writes the parsed result back out.
+ */
+public class RoundTripVerifier {
+
+	private static final Logger log = LogManager.getLogger(RoundTripVerifier.class);
+
+	/** Bytes to show on either side of a mismatch. */
+	private static final int EXCERPT_RADIUS = 16;
+
+	/**
+	 * Writes parsed data back out, the way it would be saved.
+	 */
+	public interface Encoder {
+		public void encode( ByteBufferWriter out ) throws IOException;
+	}
+
+	/**
+	 * Where a re-encoding first went astray.
+	 */
+	public static class Mismatch {
+		public final int offset;
+		public final int sourceLength;
+		public final int encodedLength;
+		public final String field;
+		public final String sourceExcerpt;
+		public final String encodedExcerpt;
+
+		public Mismatch( int offset, int sourceLength, int encodedLength, String field, String sourceExcerpt, String encodedExcerpt ) {
+			this.offset = offset;
+			this.sourceLength = sourceLength;
+			this.encodedLength = encodedLength;
+			this.field = field;
+			this.sourceExcerpt = sourceExcerpt;
+			this.encodedExcerpt = encodedExcerpt;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder();
+			result.append(String.format("First difference at offset: %d (0x%X)\n", offset, offset));
+			result.append(String.format("Source length:   %d\n", sourceLength));
+			result.append(String.format("Encoded length:  %d\n", encodedLength));
+			result.append(String.format("Section:         %s\n", (field != null ? field : "N/A")));
+			result.append(String.format("Source bytes:    %s\n", sourceExcerpt));
+			result.append(String.format("Encoded bytes:   %s\n", encodedExcerpt));
+			return result.toString();
+		}
+	}
+
+	private ByteBuffer source = null;
+	private ArrayList<int[]> ignoredRanges = new ArrayList<int[]>();
+
+
+	/**
+	 * Reads a file to be parsed.
+	 */
+	public ByteBufferReader read( File f ) throws IOException {
+		ByteBufferReader in = ByteBufferReader.fromFile( f );
+		source = in.getBuffer().duplicate();
+		ignoredRanges.clear();
+		return in;
+	}
+
+	/**
+	 * Leaves a range of the source out of the comparison.
+	 *
+	 * This is for bytes the parser knows it can't model, and so won't
+	 * write back (e.g. a saved game's mystery bytes). Offsets reported
+	 * after an ignored range are those of the re-encoding.
+	 */
+	public void ignore( int offset, int length ) {
+		ignoredRanges.add( new int[] {offset, length} );
+	}
+
+	/**
+	 * Re-encodes parsed data and compares it to what was read.
+	 *
+	 * The parser's stats are swapped out while it encodes, to record
+	 * where each section landed.
+	 *
+	 * @param parser the parser the encoder writes with
+	 * @return null if identical, or details of the first difference
+	 */
+	public Mismatch verify( Parser parser, Encoder encoder ) throws IOException {
+		if ( source == null ) throw new IllegalStateException( "Nothing has been read to verify against" );
+
+		ByteBuffer expected = getExpected();
+		ByteBufferWriter out = new ByteBufferWriter( expected.remaining() );
+		SectionLocator locator = new SectionLocator();
+
+		ParseStats previousStats = parser.getParseStats();
+		parser.setParseStats( locator );
+		try {
+			encoder.encode( out );
+		}
+		finally {
+			parser.setParseStats( previousStats );
+		}
+
+		ByteBuffer encoded = out.getBuffer();
+		if ( encoded.equals( expected ) ) return null;
+
+		int offset = findMismatch( expected, encoded );
+
+		Mismatch result = new Mismatch( offset, expected.remaining(), encoded.remaining(), locator.describe( offset ), excerpt( expected, offset ), excerpt( encoded, offset ) );
+		log.error( "Round-trip mismatch:\n"+ result );
+		return result;
+	}
+
+	/**
+	 * Returns the source, minus any ignored ranges.
+	 */
+	private ByteBuffer getExpected() {
+		if ( ignoredRanges.isEmpty() ) return source.duplicate();
+
+		ByteBuffer result = ByteBuffer.allocate( source.remaining() );
+		int pos = 0;
+		for ( int[] range : ignoredRanges ) {
+			int start = Math.max( pos, Math.min( range[0], source.remaining() ) );
+			int end = Math.min( source.remaining(), range[0] + range[1] );
+			result.put( slice( pos, start ) );
+			pos = Math.max( pos, end );
+		}
+		result.put( slice( pos, source.remaining() ) );
+		result.flip();
+		return result;
+	}
+
+	private ByteBuffer slice( int start, int end ) {
+		ByteBuffer result = source.duplicate();
+		result.position( source.position() + start );
+		result.limit( source.position() + Math.max( start, end ) );
+		return result;
+	}
+
+	/**
+	 * Returns the index of the first differing byte, relative to each
+	 * buffer's position, or the shorter length if one is a prefix.
+	 */
+	private static int findMismatch( ByteBuffer a, ByteBuffer b ) {
+		int len = Math.min( a.remaining(), b.remaining() );
+		int aStart = a.position(), bStart = b.position();
+		for (int i=0; i < len; i++) {
+			if ( a.get(aStart+i) != b.get(bStart+i) ) return i;
+		}
+		return len;
+	}
+
+	/**
+	 * Returns hex for the bytes around an offset, with that byte
+	 * bracketed.
+	 */
+	private static String excerpt( ByteBuffer buf, int offset ) {
+		int start = Math.max( 0, offset - EXCERPT_RADIUS );
+		int end = Math.min( buf.remaining(), offset + EXCERPT_RADIUS );
+
+		StringBuilder result = new StringBuilder();
+		if ( start > 0 ) result.append("... ");
+		for (int i=start; i < end; i++) {
+			int b = buf.get( buf.position() + i ) & 0xff;
+			if ( i == offset ) result.append("[").append(String.format("%02x", b)).append("] ");
+			else result.append(String.format("%02x ", b));
+		}
+		if ( offset >= buf.remaining() ) result.append("[EOF]");
+		else if ( end < buf.remaining() ) result.append("...");
+		return result.toString().trim();
+	}
+
+
+
+	/**
+	 * Stats that remember where each encoded section landed.
+	 */
+	private static class SectionLocator extends ParseStats {
+		private ArrayList<ParseStats.Section> sections = new ArrayList<ParseStats.Section>();
+		private ArrayList<int[]> spans = new ArrayList<int[]>();
+
+		@Override
+		public void record( ParseStats.Section section, boolean encoding, int startPos, int byteCount, long elapsedNanos ) {
+			super.record( section, encoding, startPos, byteCount, elapsedNanos );
+			if ( !encoding ) return;
+			sections.add( section );
+			spans.add( new int[] {startPos, byteCount} );
+		}
+
+		/**
+		 * Returns the sections containing an offset, outermost first.
+		 */
+		public String describe( int offset ) {
+			// Inner sections are recorded first, so walk backward.
+			StringBuilder path = new StringBuilder();
+			int innerStart = -1;
+			for (int i=spans.size()-1; i >= 0; i--) {
+				int[] span = spans.get(i);
+				if ( offset < span[0] || offset >= span[0] + span[1] ) continue;
+				if ( path.length() > 0 ) path.append( " > " );
+				path.append( sections.get(i) );
+				innerStart = span[0];
+			}
+			if ( path.length() == 0 ) return "(none, the encoding ended before this offset)";
+			return String.format( "%s (byte %d)", path, offset - innerStart );
+		}
+	}
+}
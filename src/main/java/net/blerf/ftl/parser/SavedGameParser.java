@@ -3,13 +3,10 @@ package net.blerf.ftl.parser;
 import java.awt.Point;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -18,6 +15,7 @@ import java.util.Map;
 
 import net.blerf.ftl.model.ShipLayout;
 import net.blerf.ftl.parser.DataManager;
+import net.blerf.ftl.parser.DumpWriter;
 import net.blerf.ftl.parser.MysteryBytes;
 import net.blerf.ftl.xml.ShipBlueprint;
 import net.blerf.ftl.xml.SystemBlueprint;
@@ -31,141 +29,238 @@ public class SavedGameParser extends DatParser {
 
 	private static final Logger log = LogManager.getLogger(SavedGameParser.class);
 
+	// Ships' system info is stored in this order.
+	private static final String[] SYSTEM_IDS = new String[] {
+		SystemBlueprint.ID_SHIELDS, SystemBlueprint.ID_ENGINES,
+		SystemBlueprint.ID_OXYGEN, SystemBlueprint.ID_WEAPONS,
+		SystemBlueprint.ID_DRONE_CTRL, SystemBlueprint.ID_MEDBAY,
+		SystemBlueprint.ID_PILOT, SystemBlueprint.ID_SENSORS,
+		SystemBlueprint.ID_DOORS, SystemBlueprint.ID_TELEPORTER,
+		SystemBlueprint.ID_CLOAKING, SystemBlueprint.ID_ARTILLERY
+	};
+
 
 	public SavedGameState readSavedGame( File datFile ) throws IOException {
-		FileInputStream in = null;
-		InputStream layoutStream = null;
-		try {
-			SavedGameState gameState = new SavedGameState();
-			in = new FileInputStream(datFile);
-
-			// This should always be 2.
-			int headerAlpha = readInt(in);
-			if ( headerAlpha != 2 )
-				log.warn( "Unexpected first byte ("+ headerAlpha +"): it's either a bad file, or possibly too new for this tool" );
-
-			gameState.setDifficultyEasy( readBool(in) );
-			gameState.setTotalShipsDefeated( readInt(in) );
-			gameState.setTotalBeaconsExplored( readInt(in) );
-			gameState.setTotalScrapCollected( readInt(in) );
-			gameState.setTotalCrewHired( readInt(in) );
-
-			String playerShipName = readString(in);         // Redundant.
-			gameState.setPlayerShipName( playerShipName );
-
-			String playerShipBlueprintId = readString(in);  // Redundant.
-			gameState.setPlayerShipBlueprintId( playerShipBlueprintId );
-
-			int oneBasedSectorNumber = readInt(in);  // Redundant.
-
-			// Always 0?
-			gameState.setHeaderAlpha( readInt(in) );
-
-			int stateVarCount = readInt(in);
-			for (int i=0; i < stateVarCount; i++) {
-				String stateVarId = readString(in);
-				Integer stateVarValue = new Integer(readInt(in));
-				gameState.setStateVar(stateVarId, stateVarValue);
-			}
+		return readSavedGame( ByteBufferReader.fromFile(datFile) );
+	}
+
+	public SavedGameState readSavedGame( ByteBufferReader in ) throws IOException {
+		return readSavedGame( in, false );
+	}
+
+	/**
+	 * Reads a saved game, deferring the costly sections until needed.
+	 *
+	 * A quick scan decodes the header, sector data, quests and rebel
+	 * flagship, noting where the state vars, the player ship, each
+	 * beacon and the nearby ship begin. Those are decoded when their
+	 * getters (or setters) are first called. Tools that only need a few
+	 * values skip most of the work. Writing the state decodes it all.
+	 *
+	 * The scan doesn't validate skipped sections. A corrupt one will
+	 * throw when it's decoded, rather than here.
+	 */
+	public SavedGameState readSavedGameLazily( File datFile ) throws IOException {
+		return readSavedGameLazily( ByteBufferReader.fromFile(datFile) );
+	}
+
+	public SavedGameState readSavedGameLazily( ByteBufferReader in ) throws IOException {
+		return readSavedGame( in, true );
+	}
+
+	private SavedGameState readSavedGame( ByteBufferReader in, boolean lazy ) throws IOException {
+		poolStrings(in);
+		SavedGameState gameState = new SavedGameState();
+
+		int headerPos = in.position();
+		long headerTime = sectionStart();
+
+		// This should always be 2.
+		int headerAlpha = readInt(in);
+		if ( headerAlpha != 2 )
+			log.warn( "Unexpected first byte ("+ headerAlpha +"): it's either a bad file, or possibly too new for this tool" );
+
+		gameState.setDifficultyEasy( readBool(in) );
+		gameState.setTotalShipsDefeated( readInt(in) );
+		gameState.setTotalBeaconsExplored( readInt(in) );
+		gameState.setTotalScrapCollected( readInt(in) );
+		gameState.setTotalCrewHired( readInt(in) );
+
+		String playerShipName = readString(in);         // Redundant.
+		gameState.setPlayerShipName( playerShipName );
+
+		String playerShipBlueprintId = readString(in);  // Redundant.
+		gameState.setPlayerShipBlueprintId( playerShipBlueprintId );
+
+		int oneBasedSectorNumber = readInt(in);  // Redundant.
+
+		// Always 0?
+		gameState.setHeaderAlpha( readInt(in) );
 
+		sectionRead( ParseStats.Section.HEADER, in, headerPos, headerTime );
+
+		LazySections lazySections = null;
+		if ( lazy ) lazySections = new LazySections( in, gameState );
+
+		if ( lazy ) {
+			lazySections.stateVarsOffset = in.position();
+			skipStateVars(in);
+			lazySections.stateVarsEnd = in.position();
+		} else {
+			readStateVars( in, gameState );
+		}
+
+		if ( lazy ) {
+			lazySections.playerShipOffset = in.position();
+			skipShip( in, true );
+			lazySections.playerShipEnd = in.position();
+		} else {
 			ShipState playerShipState = readShip( in, true );
 			gameState.setPlayerShipState( playerShipState );
+		}
 
-			// Nearby ships have no cargo, so this isn't in readShip().
-			int cargoCount = readInt(in);
-			for (int i=0; i < cargoCount; i++) {
-				gameState.addCargoItemId( readString(in) );
-			}
+		// Nearby ships have no cargo, so this isn't in readShip().
+		int cargoCount = readInt(in);
+		for (int i=0; i < cargoCount; i++) {
+			gameState.addCargoItemId( readString(in) );
+		}
 
-			gameState.setSectorTreeSeed( readInt(in) );
-			
-			gameState.setSectorLayoutSeed( readInt(in) );
-			
-			gameState.setRebelFleetOffset( readInt(in) );
-			
-			gameState.setRebelFleetFudge( readInt(in) );
+		gameState.setSectorTreeSeed( readInt(in) );
+		
+		gameState.setSectorLayoutSeed( readInt(in) );
+		
+		gameState.setRebelFleetOffset( readInt(in) );
+		
+		gameState.setRebelFleetFudge( readInt(in) );
 
-			gameState.setRebelPursuitMod( readInt(in) );
+		gameState.setRebelPursuitMod( readInt(in) );
 
-			gameState.setSectorHazardsVisible( readBool(in) );
+		gameState.setSectorHazardsVisible( readBool(in) );
 
-			gameState.setRebelFlagshipVisible( readBool(in) );
+		gameState.setRebelFlagshipVisible( readBool(in) );
 
-			gameState.setRebelFlagshipHop( readInt(in) );
+		gameState.setRebelFlagshipHop( readInt(in) );
 
-			gameState.setRebelFlagshipApproaching( readBool(in) );
+		gameState.setRebelFlagshipApproaching( readBool(in) );
 
-			int sectorCount = readInt(in);
-			for (int i=0; i < sectorCount; i++) {
-				gameState.addSector( readBool(in) );
-			}
+		int sectorCount = readInt(in);
+		for (int i=0; i < sectorCount; i++) {
+			gameState.addSector( readBool(in) );
+		}
+
+		// The number on the sector map is this+1,
+		// but the sector's type on the map is
+		// unaffected when these bytes are modified.
+		// All hazards and point-of-interest labels
+		// will change, but not the beacons.
+		// The sector tree is unaffected when modified.
+		// Jumping from an exit beacon increments this
+		// number and sets the header's sector number
+		// to this+1.
+		int sectorNumber = readInt(in);
+		gameState.setSectorNumber( sectorNumber );
 
-			// The number on the sector map is this+1,
-			// but the sector's type on the map is
-			// unaffected when these bytes are modified.
-			// All hazards and point-of-interest labels
-			// will change, but not the beacons.
-			// The sector tree is unaffected when modified.
-			// Jumping from an exit beacon increments this
-			// number and sets the header's sector number
-			// to this+1.
-			int sectorNumber = readInt(in);
-			gameState.setSectorNumber( sectorNumber );
-
-			gameState.setSectorIsHiddenCrystalWorlds( readBool(in) );
-			
-			int beaconCount = readInt(in);
-			for (int i=0; i < beaconCount; i++) {
+		gameState.setSectorIsHiddenCrystalWorlds( readBool(in) );
+		
+		int beaconCount = readInt(in);
+		if ( lazy ) {
+			lazySections.beaconOffsets = new int[beaconCount+1];
+			lazySections.beacons = new BeaconState[beaconCount];
+		}
+		for (int i=0; i < beaconCount; i++) {
+			if ( lazy ) {
+				lazySections.beaconOffsets[i] = in.position();
+				skipBeacon(in);
+				lazySections.beaconOffsets[i+1] = in.position();
+			} else {
 				gameState.addBeacon( readBeacon(in) );
 			}
+		}
 
-			int questEventCount = readInt(in);
-			for (int i=0; i < questEventCount; i++) {
-				String questEventId = readString(in);
-				int questBeaconId = readInt(in);
-				gameState.addQuestEvent( questEventId, questBeaconId );
-			}
+		int questEventCount = readInt(in);
+		for (int i=0; i < questEventCount; i++) {
+			String questEventId = readString(in);
+			int questBeaconId = readInt(in);
+			gameState.addQuestEvent( questEventId, questBeaconId );
+		}
 
-			int distantQuestEventCount = readInt(in);
-			for (int i=0; i < distantQuestEventCount; i++) {
-				String distantQuestEventId = readString(in);
-				gameState.addDistantQuestEvent( distantQuestEventId );
-			}
+		int distantQuestEventCount = readInt(in);
+		for (int i=0; i < distantQuestEventCount; i++) {
+			String distantQuestEventId = readString(in);
+			gameState.addDistantQuestEvent( distantQuestEventId );
+		}
 
-			gameState.setCurrentBeaconId( readInt(in) );
+		gameState.setCurrentBeaconId( readInt(in) );
 
-			boolean shipNearby = readBool(in);
-			if ( shipNearby ) {
+		boolean shipNearby = readBool(in);
+		if ( shipNearby ) {
+			if ( lazy ) {
+				lazySections.nearbyShipOffset = in.position();
+				skipShip( in, false );
+				lazySections.nearbyShipEnd = in.position();
+			} else {
 				ShipState nearbyShipState = readShip( in, false );
 				gameState.setNearbyShipState(nearbyShipState);
 			}
+		}
 
-			RebelFlagshipState flagshipState = readRebelFlagship(in);
-			gameState.setRebelFlagshipState( flagshipState );
+		RebelFlagshipState flagshipState = readRebelFlagship(in);
+		gameState.setRebelFlagshipState( flagshipState );
 
-			// The stream should end here.
+		// The stream should end here.
 
-			int bytesRemaining = (int)(in.getChannel().size() - in.getChannel().position());
-			if ( bytesRemaining > 0 ) {
-				gameState.addMysteryBytes( new MysteryBytes(in, bytesRemaining) );
-			}
+		int bytesRemaining = in.remaining();
+		if ( bytesRemaining > 0 ) {
+			gameState.addMysteryBytes( new MysteryBytes(in, bytesRemaining) );
+		}
 
-			return gameState;  // The finally block will still be executed.
+		gameState.lazySections = lazySections;
+		return gameState;
+	}
 
-		} finally {
-			try {if (in != null) in.close();}
-			catch (IOException e) {}
+	private void readStateVars( ByteBufferReader in, SavedGameState gameState ) throws IOException {
+		int sectionPos = in.position();
+		long sectionTime = sectionStart();
 
-			try {if (layoutStream != null) in.close();}
-			catch (IOException e) {}
+		int stateVarCount = readInt(in);
+		for (int i=0; i < stateVarCount; i++) {
+			String stateVarId = readString(in);
+			Integer stateVarValue = new Integer(readInt(in));
+			gameState.setStateVar(stateVarId, stateVarValue);
 		}
+
+		sectionRead( ParseStats.Section.STATE_VARS, in, sectionPos, sectionTime );
 	}
 
-	public void writeSavedGame( OutputStream out, SavedGameState gameState ) throws IOException {
+	private void skipStateVars( ByteBufferReader in ) throws IOException {
+		int sectionPos = in.position();
+		long sectionTime = sectionStart();
+
+		int stateVarCount = readInt(in);
+		for (int i=0; i < stateVarCount; i++) {
+			in.skipString();
+			in.skip( 4 );
+		}
+
+		sectionRead( ParseStats.Section.STATE_VARS, in, sectionPos, sectionTime );
+	}
+
+	/**
+	 * Writes a saved game.
+	 *
+	 * If the state was read lazily, sections that were never decoded
+	 * (and so can't have changed) are copied verbatim from the
+	 * original bytes, rather than re-encoded.
+	 */
+	public void writeSavedGame( ByteBufferWriter out, SavedGameState gameState ) throws IOException {
+		LazySections lazySections = gameState.lazySections;
 
 		if ( gameState.getMysteryList().size() > 0 )
 			log.warn( "The original saved game file contained mystery bytes, which will be omitted in the new file" );
 
+		int sectionPos = out.size();
+		long sectionTime = sectionStart();
+
 		// This should always be 2.
 		writeInt( out, 2 );
 
@@ -183,13 +278,24 @@ public class SavedGameParser extends DatParser {
 
 		writeInt( out, gameState.getHeaderAlpha() );
 
-		writeInt( out, gameState.getStateVars().size() );
-		for (Map.Entry<String, Integer> entry : gameState.getStateVars().entrySet()) {
-			writeString( out, entry.getKey() );
-			writeInt( out, entry.getValue().intValue() );
+		sectionWritten( ParseStats.Section.HEADER, out, sectionPos, sectionTime );
+
+		if ( lazySections == null || !lazySections.spliceStateVars(out) ) {
+			sectionPos = out.size();
+			sectionTime = sectionStart();
+
+			writeInt( out, gameState.getStateVars().size() );
+			for (Map.Entry<String, Integer> entry : gameState.getStateVars().entrySet()) {
+				writeString( out, entry.getKey() );
+				writeInt( out, entry.getValue().intValue() );
+			}
+
+			sectionWritten( ParseStats.Section.STATE_VARS, out, sectionPos, sectionTime );
 		}
 
-		writeShip( out, gameState.getPlayerShipState() );
+		if ( lazySections == null || !lazySections.splicePlayerShip(out) ) {
+			writeShip( out, gameState.getPlayerShipState() );
+		}
 
 		writeInt( out, gameState.getCargoIdList().size() );
 		for (String cargoItemId : gameState.getCargoIdList()) {
@@ -214,9 +320,12 @@ public class SavedGameParser extends DatParser {
 		writeInt( out, gameState.getSectorNumber() );
 		writeBool( out, gameState.isSectorHiddenCrystalWorlds() );
 
-		writeInt( out, gameState.getBeaconList().size() );
-		for (BeaconState beacon : gameState.getBeaconList()) {
-			writeBeacon( out, beacon );
+		int beaconCount = gameState.getBeaconCount();
+		writeInt( out, beaconCount );
+		for (int i=0; i < beaconCount; i++) {
+			if ( lazySections == null || !lazySections.spliceBeacon(out, i) ) {
+				writeBeacon( out, gameState.getBeacon(i) );
+			}
 		}
 
 		writeInt( out, gameState.getQuestEventMap().size() );
@@ -232,17 +341,27 @@ public class SavedGameParser extends DatParser {
 
 		writeInt( out, gameState.getCurrentBeaconId() );
 
-		ShipState nearbyShip = gameState.getNearbyShipState();
-		writeBool( out, (nearbyShip != null) );
-		if ( nearbyShip != null ) {
-			writeShip( out, nearbyShip );
+		if ( lazySections != null && lazySections.hasNearbyShip() ) {
+			writeBool( out, true );
+			lazySections.spliceNearbyShip(out);
+		}
+		else {
+			ShipState nearbyShip = gameState.getNearbyShipState();
+			writeBool( out, (nearbyShip != null) );
+			if ( nearbyShip != null ) {
+				writeShip( out, nearbyShip );
+			}
 		}
 
 		writeRebelFlagship( out, gameState.getRebelFlagshipState() );
 
 	}
 
-	private ShipState readShip( InputStream in, boolean auto ) throws IOException {
+	private ShipState readShip( ByteBufferReader in, boolean auto ) throws IOException {
+		int shipPos = in.position();
+		long shipTime = sectionStart();
+		int sectionPos;
+		long sectionTime;
 
 		String shipBlueprintId = readString(in);  // blueprints.xml / autoBlueprints.xml.
 		String shipName = readString(in);
@@ -255,9 +374,7 @@ public class SavedGameParser extends DatParser {
 		String shipLayoutId = shipBlueprint.getLayout();
 
 		// Use this for room and door info later.
-		ShipLayout shipLayout = DataManager.get().getShipLayout(shipLayoutId);
-		if ( shipLayout == null )
-			throw new RuntimeException( String.format("Could not find layout for%s ship: %s", (auto ? " auto" : ""), shipName) );
+		ShipLayout shipLayout = getShipLayout( shipBlueprintId, shipName, auto );
 
 		ShipState shipState = new ShipState(shipName, shipBlueprintId, shipLayoutId, auto);
 		shipState.setShipGraphicsBaseName( shipGfxBaseName );
@@ -273,36 +390,28 @@ public class SavedGameParser extends DatParser {
 		shipState.setMissilesAmt( readInt(in) );
 		shipState.setScrapAmt( readInt(in) );
 
+		sectionPos = in.position();
+		sectionTime = sectionStart();
 		int crewCount = readInt(in);
 		for (int i=0; i < crewCount; i++) {
 			shipState.addCrewMember( readCrewMember(in) );
 		}
+		sectionRead( ParseStats.Section.CREW, in, sectionPos, sectionTime );
 
-		// System info is stored in this order.
-		ArrayList<String> systemIds = new ArrayList<String>();
-		systemIds.add( SystemBlueprint.ID_SHIELDS );
-		systemIds.add( SystemBlueprint.ID_ENGINES );
-		systemIds.add( SystemBlueprint.ID_OXYGEN );
-		systemIds.add( SystemBlueprint.ID_WEAPONS );
-		systemIds.add( SystemBlueprint.ID_DRONE_CTRL );
-		systemIds.add( SystemBlueprint.ID_MEDBAY );
-		systemIds.add( SystemBlueprint.ID_PILOT );
-		systemIds.add( SystemBlueprint.ID_SENSORS );
-		systemIds.add( SystemBlueprint.ID_DOORS );
-		systemIds.add( SystemBlueprint.ID_TELEPORTER );
-		systemIds.add( SystemBlueprint.ID_CLOAKING );
-		systemIds.add( SystemBlueprint.ID_ARTILLERY );
-
+		sectionPos = in.position();
+		sectionTime = sectionStart();
 		shipState.setReservePowerCapacity( readInt(in) );
-		for (String systemId : systemIds) {
+		for (String systemId : SYSTEM_IDS) {
 			shipState.addSystem( readSystem(in, systemId) );
 		}
+		sectionRead( ParseStats.Section.SYSTEMS, in, sectionPos, sectionTime );
 
+		sectionPos = in.position();
+		sectionTime = sectionStart();
 		int roomCount = shipLayout.getRoomCount();
 		for (int r=0; r < roomCount; r++) {
-			EnumMap<ShipLayout.RoomInfo, Integer> roomInfo = shipLayout.getRoomInfo(r);
-			int squaresH = roomInfo.get(ShipLayout.RoomInfo.SQUARES_H).intValue();
-			int squaresV = roomInfo.get(ShipLayout.RoomInfo.SQUARES_V).intValue();
+			int squaresH = shipLayout.getRoomSquaresH(r);
+			int squaresV = shipLayout.getRoomSquaresV(r);
 
 			// Room states are stored in roomId order.
 			shipState.addRoom( readRoom(in, squaresH, squaresV) );
@@ -312,31 +421,31 @@ public class SavedGameParser extends DatParser {
 		for (int i=0; i < breachCount; i++) {
 			shipState.setBreach( readInt(in), readInt(in), readInt(in) );
 		}
+		sectionRead( ParseStats.Section.ROOMS, in, sectionPos, sectionTime );
 
 		// Doors are defined in the layout text file, but their
 		// order is different at runtime. Vacuum-adjacent doors
 		// are plucked out and moved to the end... for some
 		// reason.
-		LinkedHashMap<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>> vacuumDoorMap = new LinkedHashMap<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>>();
-		LinkedHashMap<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>> layoutDoorMap = shipLayout.getDoorMap();
-		for (Map.Entry<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>> entry : layoutDoorMap.entrySet()) {
-			ShipLayout.DoorCoordinate doorCoord = entry.getKey();
-			EnumMap<ShipLayout.DoorInfo,Integer> doorInfo = entry.getValue();
-
-			if ( doorInfo.get(ShipLayout.DoorInfo.ROOM_ID_A).intValue() == -1 ||
-			     doorInfo.get(ShipLayout.DoorInfo.ROOM_ID_B).intValue() == -1 ) {
-				vacuumDoorMap.put( doorCoord, doorInfo );
-				continue;
-			}
+		sectionPos = in.position();
+		sectionTime = sectionStart();
+		int doorCount = shipLayout.getDoorCount();
+		for (int d=0; d < doorCount; d++) {
+			if ( shipLayout.isVacuumDoor(d) ) continue;
+
+			ShipLayout.DoorCoordinate doorCoord = shipLayout.getDoorCoordinate(d);
 			shipState.setDoor( doorCoord.x, doorCoord.y, doorCoord.v, readDoor(in) );
 		}
-		for (Map.Entry<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>> entry : vacuumDoorMap.entrySet()) {
-			ShipLayout.DoorCoordinate doorCoord = entry.getKey();
-			EnumMap<ShipLayout.DoorInfo,Integer> doorInfo = entry.getValue();
+		for (int d=0; d < doorCount; d++) {
+			if ( !shipLayout.isVacuumDoor(d) ) continue;
 
+			ShipLayout.DoorCoordinate doorCoord = shipLayout.getDoorCoordinate(d);
 			shipState.setDoor( doorCoord.x, doorCoord.y, doorCoord.v, readDoor(in) );
 		}
+		sectionRead( ParseStats.Section.DOORS, in, sectionPos, sectionTime );
 
+		sectionPos = in.position();
+		sectionTime = sectionStart();
 		int weaponCount = readInt(in);
 		for (int i=0; i < weaponCount; i++) {
 			String weaponId = readString(in);
@@ -344,21 +453,112 @@ public class SavedGameParser extends DatParser {
 			int weaponCooldownTicks = readInt(in);
 			shipState.addWeapon( new WeaponState(weaponId, weaponArmed, weaponCooldownTicks) );
 		}
+		sectionRead( ParseStats.Section.WEAPONS, in, sectionPos, sectionTime );
 
+		sectionPos = in.position();
+		sectionTime = sectionStart();
 		int droneCount = readInt(in);
 		for (int i=0; i < droneCount; i++) {
 			shipState.addDrone( readDrone(in) );
 		}
+		sectionRead( ParseStats.Section.DRONES, in, sectionPos, sectionTime );
 
 		int augmentCount = readInt(in);
 		for (int i=0; i < augmentCount; i++) {
 			shipState.addAugmentId( readString(in) );
 		}
 
+		sectionRead( ParseStats.Section.SHIP, in, shipPos, shipTime );
 		return shipState;
 	}
 
-	public void writeShip( OutputStream out, ShipState shipState ) throws IOException {
+	/**
+	 * Returns the layout for a ship's blueprint, which dictates how
+	 * many rooms, squares and doors a ship's state has.
+	 */
+	private ShipLayout getShipLayout( String shipBlueprintId, String shipName, boolean auto ) {
+		ShipBlueprint shipBlueprint = DataManager.get().getShip(shipBlueprintId);
+		if ( shipBlueprint == null )
+			throw new RuntimeException( String.format("Could not find blueprint for%s ship: %s", (auto ? " auto" : ""), shipName) );
+
+		ShipLayout shipLayout = DataManager.get().getShipLayout( shipBlueprint.getLayout() );
+		if ( shipLayout == null )
+			throw new RuntimeException( String.format("Could not find layout for%s ship: %s", (auto ? " auto" : ""), shipName) );
+
+		return shipLayout;
+	}
+
+	/**
+	 * Advances past a ship, the way readShip() would, without decoding.
+	 */
+	private void skipShip( ByteBufferReader in, boolean auto ) throws IOException {
+		int shipPos = in.position();
+		long shipTime = sectionStart();
+
+		String shipBlueprintId = readString(in);
+		String shipName = readString(in);
+		in.skipString();  // Gfx base name.
+
+		ShipLayout shipLayout = getShipLayout( shipBlueprintId, shipName, auto );
+
+		int startingCrewCount = readInt(in);
+		for (int i=0; i < startingCrewCount; i++) {
+			in.skipString();
+			in.skipString();
+		}
+
+		in.skip( 5*4 );  // Hull, fuel, drone parts, missiles, scrap.
+
+		int crewCount = readInt(in);
+		for (int i=0; i < crewCount; i++) {
+			in.skipString();
+			in.skipString();
+			in.skip( 19*4 );
+		}
+
+		in.skip( 4 );  // Reserve power.
+		for (int i=0; i < SYSTEM_IDS.length; i++) {
+			int capacity = readInt(in);
+			if ( capacity > 0 ) in.skip( 6*4 );
+		}
+
+		int roomCount = shipLayout.getRoomCount();
+		for (int r=0; r < roomCount; r++) {
+			int squareCount = shipLayout.getRoomSquaresH(r) * shipLayout.getRoomSquaresV(r);
+			in.skip( 4 + squareCount*3*4 );
+		}
+
+		int breachCount = readInt(in);
+		in.skip( breachCount*3*4 );
+
+		in.skip( shipLayout.getDoorCount()*2*4 );
+
+		int weaponCount = readInt(in);
+		for (int i=0; i < weaponCount; i++) {
+			in.skipString();
+			in.skip( 2*4 );
+		}
+
+		int droneCount = readInt(in);
+		for (int i=0; i < droneCount; i++) {
+			in.skipString();
+			in.skip( 7*4 );
+		}
+
+		int augmentCount = readInt(in);
+		for (int i=0; i < augmentCount; i++) {
+			in.skipString();
+		}
+
+		sectionRead( ParseStats.Section.SHIP, in, shipPos, shipTime );
+	}
+
+	public void writeShip( ByteBufferWriter out, ShipState shipState ) throws IOException {
+		int shipPos = out.size();
+		long shipTime = sectionStart();
+		int sectionPos;
+		long sectionTime;
+
 		String shipBlueprintId = shipState.getShipBlueprintId();
 
 		ShipBlueprint shipBlueprint = DataManager.get().getShip(shipBlueprintId);
@@ -387,37 +587,30 @@ public class SavedGameParser extends DatParser {
 		writeInt( out, shipState.getMissilesAmt() );
 		writeInt( out, shipState.getScrapAmt() );
 
+		sectionPos = out.size();
+		sectionTime = sectionStart();
 		writeInt( out, shipState.getCrewList().size() );
 		for (CrewState crew : shipState.getCrewList()) {
 			writeCrewMember( out, crew );
 		}
+		sectionWritten( ParseStats.Section.CREW, out, sectionPos, sectionTime );
 
-		// System info is stored in this order.
-		ArrayList<String> systemIds = new ArrayList<String>();
-		systemIds.add( SystemBlueprint.ID_SHIELDS );
-		systemIds.add( SystemBlueprint.ID_ENGINES );
-		systemIds.add( SystemBlueprint.ID_OXYGEN );
-		systemIds.add( SystemBlueprint.ID_WEAPONS );
-		systemIds.add( SystemBlueprint.ID_DRONE_CTRL );
-		systemIds.add( SystemBlueprint.ID_MEDBAY );
-		systemIds.add( SystemBlueprint.ID_PILOT );
-		systemIds.add( SystemBlueprint.ID_SENSORS );
-		systemIds.add( SystemBlueprint.ID_DOORS );
-		systemIds.add( SystemBlueprint.ID_TELEPORTER );
-		systemIds.add( SystemBlueprint.ID_CLOAKING );
-		systemIds.add( SystemBlueprint.ID_ARTILLERY );
-
+		sectionPos = out.size();
+		sectionTime = sectionStart();
 		writeInt( out, shipState.getReservePowerCapacity() );
 
 		Map<String, SystemState> systemMap = shipState.getSystemMap();
-		for (String systemId : systemIds) {
+		for (String systemId : SYSTEM_IDS) {
 			SystemState systemState = systemMap.get(systemId);
 			if ( systemState != null )
 				writeSystem( out, systemState );
 			else
 				writeInt( out, 0 );
 		}
+		sectionWritten( ParseStats.Section.SYSTEMS, out, sectionPos, sectionTime );
 
+		sectionPos = out.size();
+		sectionTime = sectionStart();
 		for (RoomState room : shipState.getRoomList()) {
 			writeRoom( out, room );
 		}
@@ -428,62 +621,65 @@ public class SavedGameParser extends DatParser {
 			writeInt( out, entry.getKey().y );
 			writeInt( out, entry.getValue().intValue() );
 		}
+		sectionWritten( ParseStats.Section.ROOMS, out, sectionPos, sectionTime );
 
 		// Doors are defined in the layout text file, but their
 		// order is different at runtime. Vacuum-adjacent doors
 		// are plucked out and moved to the end... for some
 		// reason.
+		sectionPos = out.size();
+		sectionTime = sectionStart();
 		Map<ShipLayout.DoorCoordinate, DoorState> shipDoorMap = shipState.getDoorMap();
-		LinkedHashMap<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>> vacuumDoorMap = new LinkedHashMap<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>>();
-		LinkedHashMap<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>> layoutDoorMap = shipLayout.getDoorMap();
-		for (Map.Entry<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>> entry : layoutDoorMap.entrySet()) {
-			ShipLayout.DoorCoordinate doorCoord = entry.getKey();
-			EnumMap<ShipLayout.DoorInfo,Integer> doorInfo = entry.getValue();
-
-			if ( doorInfo.get(ShipLayout.DoorInfo.ROOM_ID_A).intValue() == -1 ||
-			     doorInfo.get(ShipLayout.DoorInfo.ROOM_ID_B).intValue() == -1 ) {
-				vacuumDoorMap.put( doorCoord, doorInfo );
-				continue;
-			}
-			writeDoor( out, shipDoorMap.get( doorCoord ) );
+		int doorCount = shipLayout.getDoorCount();
+		for (int d=0; d < doorCount; d++) {
+			if ( shipLayout.isVacuumDoor(d) ) continue;
+			writeDoor( out, shipDoorMap.get( shipLayout.getDoorCoordinate(d) ) );
 		}
-		for (Map.Entry<ShipLayout.DoorCoordinate, EnumMap<ShipLayout.DoorInfo,Integer>> entry : vacuumDoorMap.entrySet()) {
-			ShipLayout.DoorCoordinate doorCoord = entry.getKey();
-
-			writeDoor( out, shipDoorMap.get( doorCoord ) );
+		for (int d=0; d < doorCount; d++) {
+			if ( !shipLayout.isVacuumDoor(d) ) continue;
+			writeDoor( out, shipDoorMap.get( shipLayout.getDoorCoordinate(d) ) );
 		}
+		sectionWritten( ParseStats.Section.DOORS, out, sectionPos, sectionTime );
 
+		sectionPos = out.size();
+		sectionTime = sectionStart();
 		writeInt( out, shipState.getWeaponList().size() );
 		for (WeaponState weapon : shipState.getWeaponList()) {
 			writeString( out, weapon.getWeaponId() );
 			writeBool( out, weapon.isArmed() );
 			writeInt( out, weapon.getCooldownTicks() );
 		}
+		sectionWritten( ParseStats.Section.WEAPONS, out, sectionPos, sectionTime );
 
+		sectionPos = out.size();
+		sectionTime = sectionStart();
 		writeInt( out, shipState.getDroneList().size() );
 		for (DroneState drone : shipState.getDroneList()) {
 			writeDrone( out, drone );
 		}
+		sectionWritten( ParseStats.Section.DRONES, out, sectionPos, sectionTime );
 
 		writeInt( out, shipState.getAugmentIdList().size() );
 		for (String augmentId : shipState.getAugmentIdList()) {
 			writeString( out, augmentId );
 		}
+
+		sectionWritten( ParseStats.Section.SHIP, out, shipPos, shipTime );
 	}
 
-	private StartingCrewState readStartingCrewMember( InputStream in ) throws IOException {
+	private StartingCrewState readStartingCrewMember( ByteBufferReader in ) throws IOException {
 		String crewRace = readString(in);
 		String crewName = readString(in);
 		StartingCrewState startingCrew = new StartingCrewState(crewName, crewRace);
 		return startingCrew;
 	}
 
-	public void writeStartingCrewMember( OutputStream out, StartingCrewState startingCrew ) throws IOException {
+	public void writeStartingCrewMember( ByteBufferWriter out, StartingCrewState startingCrew ) throws IOException {
 		writeString( out, startingCrew.getRace() );
 		writeString( out, startingCrew.getName() );
 	}
 
-	private CrewState readCrewMember( InputStream in ) throws IOException {
+	private CrewState readCrewMember( ByteBufferReader in ) throws IOException {
 		CrewState crew = new CrewState();
 		crew.setName( readString(in) );
 		crew.setRace( readString(in) );
@@ -509,7 +705,7 @@ public class SavedGameParser extends DatParser {
 		return crew;
 	}
 
-	public void writeCrewMember( OutputStream out, CrewState crew ) throws IOException {
+	public void writeCrewMember( ByteBufferWriter out, CrewState crew ) throws IOException {
 		writeString( out, crew.getName() );
 		writeString( out, crew.getRace() );
 		writeBool( out, crew.isEnemyBoardingDrone() );
@@ -533,7 +729,7 @@ public class SavedGameParser extends DatParser {
 		writeInt( out, crew.getSkillMasteries() );
 	}
 
-	private SystemState readSystem( InputStream in, String systemId ) throws IOException {
+	private SystemState readSystem( ByteBufferReader in, String systemId ) throws IOException {
 		SystemState system = new SystemState( systemId );
 		int capacity = readInt(in);
 
@@ -558,7 +754,7 @@ public class SavedGameParser extends DatParser {
 		return system;
 	}
 
-	public void writeSystem( OutputStream out, SystemState system ) throws IOException {
+	public void writeSystem( ByteBufferWriter out, SystemState system ) throws IOException {
 		writeInt( out, system.getCapacity() );
 		if ( system.getCapacity() > 0 ) {
 			writeInt( out, system.getPower() );
@@ -575,7 +771,7 @@ public class SavedGameParser extends DatParser {
 		}
 	}
 
-	private RoomState readRoom( InputStream in, int squaresH, int squaresV ) throws IOException {
+	private RoomState readRoom( ByteBufferReader in, int squaresH, int squaresV ) throws IOException {
 		RoomState room = new RoomState();
 		room.setOxygen( readInt(in) );
 
@@ -591,7 +787,7 @@ public class SavedGameParser extends DatParser {
 		return room;
 	}
 
-	public void writeRoom( OutputStream out, RoomState room ) throws IOException {
+	public void writeRoom( ByteBufferWriter out, RoomState room ) throws IOException {
 		writeInt( out, room.getOxygen() );
 
 		for (SquareState square : room.getSquareList()) {
@@ -601,19 +797,19 @@ public class SavedGameParser extends DatParser {
 		}
 	}
 
-	private DoorState readDoor( InputStream in ) throws IOException {
+	private DoorState readDoor( ByteBufferReader in ) throws IOException {
 		boolean open = readBool(in);
 		boolean walkingThrough = readBool(in);
 		DoorState door = new DoorState( open, walkingThrough );
 		return door;
 	}
 
-	public void writeDoor( OutputStream out, DoorState door ) throws IOException {
+	public void writeDoor( ByteBufferWriter out, DoorState door ) throws IOException {
 		writeBool( out, door.isOpen() );
 		writeBool( out, door.isWalkingThrough() );
 	}
 
-	private DroneState readDrone( InputStream in ) throws IOException {
+	private DroneState readDrone( ByteBufferReader in ) throws IOException {
 		DroneState drone = new DroneState( readString(in) );
 		drone.setArmed( readBool(in) );
 		drone.setPlayerControlled( readBool(in) );
@@ -625,7 +821,7 @@ public class SavedGameParser extends DatParser {
 		return drone;
 	}
 
-	public void writeDrone( OutputStream out, DroneState drone ) throws IOException {
+	public void writeDrone( ByteBufferWriter out, DroneState drone ) throws IOException {
 		writeString( out, drone.getDroneId() );
 		writeBool( out, drone.isArmed() );
 		writeBool( out, drone.isPlayerControlled() );
@@ -636,7 +832,9 @@ public class SavedGameParser extends DatParser {
 		writeInt( out, drone.getHealth() );
 	}
 
-	private BeaconState readBeacon( InputStream in ) throws IOException {
+	private BeaconState readBeacon( ByteBufferReader in ) throws IOException {
+		int beaconPos = in.position();
+		long beaconTime = sectionStart();
 
 		BeaconState beacon = new BeaconState();
 
@@ -683,11 +881,47 @@ public class SavedGameParser extends DatParser {
 			beacon.setStore(store);
 		}
 
+		sectionRead( ParseStats.Section.BEACONS, in, beaconPos, beaconTime );
 		return beacon;
 		
 	}
 
-	public void writeBeacon( OutputStream out, BeaconState beacon ) throws IOException {
+	/**
+	 * Advances past a beacon, the way readBeacon() would, without decoding.
+	 */
+	private void skipBeacon( ByteBufferReader in ) throws IOException {
+		int beaconPos = in.position();
+		long beaconTime = sectionStart();
+
+		if ( readBool(in) ) {  // Visited.
+			in.skipString();
+			in.skipString();
+			in.skip( 3*4 );
+		}
+
+		in.skip( 4 );  // Seen.
+
+		if ( readBool(in) ) {  // Enemy present.
+			in.skipString();
+			in.skipString();
+			in.skip( 4 );
+		}
+
+		in.skip( 2*4 );  // Fleet presence, under attack.
+
+		if ( readBool(in) ) {  // Store present.
+			skipStoreShelf(in);
+			skipStoreShelf(in);
+			in.skip( 3*4 );
+		}
+
+		sectionRead( ParseStats.Section.BEACONS, in, beaconPos, beaconTime );
+	}
+
+	public void writeBeacon( ByteBufferWriter out, BeaconState beacon ) throws IOException {
+		int beaconPos = out.size();
+		long beaconTime = sectionStart();
+
 		writeBool( out, beacon.isVisited() );
 		if ( beacon.isVisited() ) {
 			writeString( out, beacon.getBgStarscapeImageInnerPath() );
@@ -724,9 +958,13 @@ public class SavedGameParser extends DatParser {
 			writeInt( out, store.getMissiles() );
 			writeInt( out, store.getDroneParts() );
 		}
+
+		sectionWritten( ParseStats.Section.BEACONS, out, beaconPos, beaconTime );
 	}
 	
-	private StoreShelf readStoreShelf( InputStream in ) throws IOException {
+	private StoreShelf readStoreShelf( ByteBufferReader in ) throws IOException {
+		int sectionPos = in.position();
+		long sectionTime = sectionStart();
 		
 		StoreShelf shelf = new StoreShelf();
 		
@@ -748,11 +986,28 @@ public class SavedGameParser extends DatParser {
 			shelf.addItem( new StoreItem( (available > 0), itemId) );
 		}
 		
+		sectionRead( ParseStats.Section.STORE_SHELVES, in, sectionPos, sectionTime );
 		return shelf;
 		
 	}
 
-	public void writeStoreShelf( OutputStream out, StoreShelf shelf ) throws IOException {
+	private void skipStoreShelf( ByteBufferReader in ) throws IOException {
+		int sectionPos = in.position();
+		long sectionTime = sectionStart();
+
+		in.skip( 4 );  // Item type.
+
+		for (int i = 0; i < 3; i++) {
+			int available = readInt(in);
+			if ( available >= 0 ) in.skipString();
+		}
+
+		sectionRead( ParseStats.Section.STORE_SHELVES, in, sectionPos, sectionTime );
+	}
+
+	public void writeStoreShelf( ByteBufferWriter out, StoreShelf shelf ) throws IOException {
+		int sectionPos = out.size();
+		long sectionTime = sectionStart();
 
 		StoreItemType itemType = shelf.getItemType();
 		if ( itemType == StoreItemType.WEAPON ) writeInt( out, 0 );
@@ -773,9 +1028,13 @@ public class SavedGameParser extends DatParser {
 			writeInt( out, available );
 			if ( available >= 0 ) writeString( out, itemId );
 		}
+
+		sectionWritten( ParseStats.Section.STORE_SHELVES, out, sectionPos, sectionTime );
 	}
 
-	public RebelFlagshipState readRebelFlagship( InputStream in ) throws IOException {
+	public RebelFlagshipState readRebelFlagship( ByteBufferReader in ) throws IOException {
+		int sectionPos = in.position();
+		long sectionTime = sectionStart();
 
 		// TODO: Magic strings.
 		String[] blueprintIds = new String[] {"BOSS_1", "BOSS_2", "BOSS_3"};
@@ -789,10 +1048,14 @@ public class SavedGameParser extends DatParser {
 			flagship.setPreviousOccupancy( i, readInt(in) );
 		}
 
+		sectionRead( ParseStats.Section.FLAGSHIP, in, sectionPos, sectionTime );
 		return flagship;
 	}
 
-	public void writeRebelFlagship( OutputStream out, RebelFlagshipState flagship ) throws IOException {
+	public void writeRebelFlagship( ByteBufferWriter out, RebelFlagshipState flagship ) throws IOException {
+		int sectionPos = out.size();
+		long sectionTime = sectionStart();
+
 		writeInt( out, flagship.getPendingStage() );
 
 		writeInt( out, flagship.getOccupancyMap().size() );
@@ -800,13 +1063,208 @@ public class SavedGameParser extends DatParser {
 			int occupantCount = entry.getValue().intValue();
 			writeInt( out, occupantCount );
 		}
+
+		sectionWritten( ParseStats.Section.FLAGSHIP, out, sectionPos, sectionTime );
+	}
+
+
+
+	/**
+	 * Byte ranges of a lazily read saved game's undecoded sections.
+	 *
+	 * Each section is decoded into its SavedGameState the first time
+	 * it's handed out. Its range is forgotten then, since the caller
+	 * may modify it. Sections still undecoded when the state is written
+	 * are unchanged, and their original bytes are spliced in.
+	 */
+	private class LazySections {
+		private ByteBufferReader in;
+		private SavedGameState gameState;
+
+		private int stateVarsOffset = -1, stateVarsEnd = -1;
+		private int playerShipOffset = -1, playerShipEnd = -1;
+		private int[] beaconOffsets = null;  // Plus the last beacon's end.
+		private BeaconState[] beacons = null;
+		private int nearbyShipOffset = -1, nearbyShipEnd = -1;
+
+		public LazySections( ByteBufferReader scanReader, SavedGameState gameState ) {
+			// An independent position over the same bytes.
+			this.in = new ByteBufferReader( scanReader.getBuffer().duplicate() );
+			poolStrings( this.in );
+			this.gameState = gameState;
+		}
+
+		public void loadStateVars() {
+			if ( stateVarsOffset == -1 ) return;
+			try {
+				in.position( stateVarsOffset );
+				stateVarsOffset = -1;
+				readStateVars( in, gameState );
+			}
+			catch ( IOException e ) {
+				throw new RuntimeException( "Error decoding saved game state vars", e );
+			}
+		}
+
+		public void loadPlayerShip() {
+			if ( playerShipOffset == -1 ) return;
+			gameState.playerShipState = decodeShip( SavedGameParser.this, in, playerShipOffset, true );
+			playerShipOffset = -1;
+		}
+
+		public boolean hasBeacons() {
+			return ( beaconOffsets != null );
+		}
+
+		public int getBeaconCount() {
+			return beaconOffsets.length-1;
+		}
+
+		public BeaconState loadBeacon( int beaconId ) {
+			if ( beacons[beaconId] == null )
+				beacons[beaconId] = decodeBeacon( SavedGameParser.this, in, beaconOffsets[beaconId], beaconId );
+			return beacons[beaconId];
+		}
+
+		public void loadBeacons() {
+			if ( beaconOffsets == null ) return;
+			for (int i=0; i < beacons.length; i++) {
+				gameState.beaconList.add( loadBeacon(i) );
+			}
+			beaconOffsets = null;
+			beacons = null;
+		}
+
+		public boolean hasNearbyShip() {
+			return ( nearbyShipOffset != -1 );
+		}
+
+		public void loadNearbyShip() {
+			if ( nearbyShipOffset == -1 ) return;
+			gameState.nearbyShipState = decodeShip( SavedGameParser.this, in, nearbyShipOffset, false );
+			nearbyShipOffset = -1;
+		}
+
+		public void loadAll() {
+			loadStateVars();
+			loadPlayerShip();
+			loadBeacons();
+			loadNearbyShip();
+		}
+
+		/**
+		 * Returns state vars without handing them out, decoding a
+		 * throwaway copy if necessary.
+		 *
+		 * Peeks decode with their own parser and reader, so a dump can
+		 * run on another thread, and they aren't counted in ParseStats.
+		 */
+		public Map<String, Integer> peekStateVars() {
+			int offset = stateVarsOffset;
+			if ( offset == -1 ) return gameState.stateVars;
+			try {
+				SavedGameState tmpState = new SavedGameState();
+				ByteBufferReader peekIn = peekReader();
+				peekIn.position( offset );
+				new SavedGameParser().readStateVars( peekIn, tmpState );
+				return tmpState.stateVars;
+			}
+			catch ( IOException e ) {
+				throw new RuntimeException( "Error decoding saved game state vars", e );
+			}
+		}
+
+		public ShipState peekPlayerShip() {
+			int offset = playerShipOffset;
+			if ( offset == -1 ) return gameState.playerShipState;
+			return decodeShip( new SavedGameParser(), peekReader(), offset, true );
+		}
+
+		public ShipState peekNearbyShip() {
+			int offset = nearbyShipOffset;
+			if ( offset == -1 ) return gameState.nearbyShipState;
+			return decodeShip( new SavedGameParser(), peekReader(), offset, false );
+		}
+
+		/**
+		 * Returns a beacon, decoding a throwaway copy if it hasn't been
+		 * loaded.
+		 */
+		public BeaconState peekBeacon( int beaconId ) {
+			int[] beaconOffsets = this.beaconOffsets;
+			BeaconState[] beacons = this.beacons;
+			if ( beaconOffsets == null || beacons == null ) return gameState.beaconList.get( beaconId );
+			if ( beacons[beaconId] != null ) return beacons[beaconId];
+			return decodeBeacon( new SavedGameParser(), peekReader(), beaconOffsets[beaconId], beaconId );
+		}
+
+		/** Returns a reader over the same bytes, independent of ours. */
+		private ByteBufferReader peekReader() {
+			return new ByteBufferReader( in.getBuffer().duplicate() );
+		}
+
+		private ShipState decodeShip( SavedGameParser parser, ByteBufferReader in, int offset, boolean auto ) {
+			try {
+				in.position( offset );
+				return parser.readShip( in, auto );
+			}
+			catch ( IOException e ) {
+				throw new RuntimeException( "Error decoding saved game "+ (auto ? "player" : "nearby") +" ship", e );
+			}
+		}
+
+		private BeaconState decodeBeacon( SavedGameParser parser, ByteBufferReader in, int offset, int beaconId ) {
+			try {
+				in.position( offset );
+				return parser.readBeacon(in);
+			}
+			catch ( IOException e ) {
+				throw new RuntimeException( "Error decoding saved game beacon: "+ beaconId, e );
+			}
+		}
+
+		public boolean spliceStateVars( ByteBufferWriter out ) {
+			if ( stateVarsOffset == -1 ) return false;
+			splice( out, stateVarsOffset, stateVarsEnd, ParseStats.Section.STATE_VARS );
+			return true;
+		}
+
+		public boolean splicePlayerShip( ByteBufferWriter out ) {
+			if ( playerShipOffset == -1 ) return false;
+			splice( out, playerShipOffset, playerShipEnd, ParseStats.Section.SHIP );
+			return true;
+		}
+
+		public boolean spliceBeacon( ByteBufferWriter out, int beaconId ) {
+			if ( beaconOffsets == null || beacons[beaconId] != null ) return false;
+			splice( out, beaconOffsets[beaconId], beaconOffsets[beaconId+1], ParseStats.Section.BEACONS );
+			return true;
+		}
+
+		public boolean spliceNearbyShip( ByteBufferWriter out ) {
+			if ( nearbyShipOffset == -1 ) return false;
+			splice( out, nearbyShipOffset, nearbyShipEnd, ParseStats.Section.SHIP );
+			return true;
+		}
+
+		private void splice( ByteBufferWriter out, int start, int end, ParseStats.Section section ) {
+			int sectionPos = out.size();
+			long sectionTime = sectionStart();
+
+			ByteBuffer src = in.getBuffer().duplicate();
+			src.limit( end );
+			src.position( start );
+			out.writeBytes( src );
+
+			sectionWritten( section, out, sectionPos, sectionTime );
+		}
 	}
 
 
 
 	// Stash state classes here until they're finalized.
 
-	public class SavedGameState {
+	public class SavedGameState implements DumpWriter.Dumpable {
 		private boolean difficultyEasy = false;
 		private int totalShipsDefeated = 0;
 		private int totalBeaconsExplored = 0;
@@ -839,6 +1297,9 @@ public class SavedGameParser extends DatParser {
 
 		private int unknownHeaderAlpha = 0;
 
+		// Sections not yet decoded, if read lazily.
+		private LazySections lazySections = null;
+
 		public void setDifficultyEasy( boolean b ) { difficultyEasy = b; }
 		public void setTotalShipsDefeated( int n ) { totalShipsDefeated = n; }
 		public void setTotalBeaconsExplored( int n ) { totalBeaconsExplored = n; }
@@ -907,26 +1368,36 @@ public class SavedGameParser extends DatParser {
 		 * *_upgrade counts upgrades beyond the ship's default levels.
 		 */
 		public void setStateVar( String stateVarId, int stateVarValue ) {
+			if ( lazySections != null ) lazySections.loadStateVars();
 			stateVars.put(stateVarId, new Integer(stateVarValue));
 		}
 
 		public boolean hasStateVar( String stateVarId ) {
+			if ( lazySections != null ) lazySections.loadStateVars();
 			return stateVars.containsKey(stateVarId);
 		}
 
 		public int getStateVar( String stateVarId ) {
 			// Don't ask for vars that aren't present!
 
+			if ( lazySections != null ) lazySections.loadStateVars();
 			Integer result = stateVars.get(stateVarId);
 			return result.intValue();
 		}
 
-		public LinkedHashMap<String, Integer> getStateVars() { return stateVars; }
+		public LinkedHashMap<String, Integer> getStateVars() {
+			if ( lazySections != null ) lazySections.loadStateVars();
+			return stateVars;
+		}
 
 		public void setPlayerShipState( ShipState shipState ) {
+			if ( lazySections != null ) lazySections.playerShipOffset = -1;
 			this.playerShipState = shipState;
 		}
-		public ShipState getPlayerShipState() { return playerShipState; }
+		public ShipState getPlayerShipState() {
+			if ( lazySections != null ) lazySections.loadPlayerShip();
+			return playerShipState;
+		}
 
 		// TODO: See what havoc can occur when seeds change.
 		// (Arrays might change size and overflow, etc)
@@ -1024,10 +1495,32 @@ public class SavedGameParser extends DatParser {
 		 * when shown on screen to disguise the columns.
 		 */
 		public void addBeacon( BeaconState beacon ) {
+			if ( lazySections != null ) lazySections.loadBeacons();
 			beaconList.add( beacon );
 		}
 
-		public ArrayList<BeaconState> getBeaconList() { return beaconList; }
+		public ArrayList<BeaconState> getBeaconList() {
+			if ( lazySections != null ) lazySections.loadBeacons();
+			return beaconList;
+		}
+
+		public int getBeaconCount() {
+			if ( lazySections != null && lazySections.hasBeacons() )
+				return lazySections.getBeaconCount();
+			return beaconList.size();
+		}
+
+		/**
+		 * Returns a beacon by id.
+		 *
+		 * When read lazily, only this beacon is decoded, unlike
+		 * getBeaconList().
+		 */
+		public BeaconState getBeacon( int beaconId ) {
+			if ( lazySections != null && lazySections.hasBeacons() )
+				return lazySections.loadBeacon( beaconId );
+			return beaconList.get( beaconId );
+		}
 
 		public void addQuestEvent( String questEventId, int questBeaconId ) {
 			questEventMap.put( questEventId, new Integer(questBeaconId) );
@@ -1050,9 +1543,13 @@ public class SavedGameParser extends DatParser {
 		public int getCurrentBeaconId() { return currentBeaconId; }
 
 		public void setNearbyShipState( ShipState shipState ) {
+			if ( lazySections != null ) lazySections.nearbyShipOffset = -1;
 			this.nearbyShipState = shipState;
 		}
-		public ShipState getNearbyShipState() { return nearbyShipState; }
+		public ShipState getNearbyShipState() {
+			if ( lazySections != null ) lazySections.loadNearbyShip();
+			return nearbyShipState;
+		}
 
 		public void setRebelFlagshipState( RebelFlagshipState flagshipState ) {
 			this.rebelFlagshipState = flagshipState;
@@ -1069,100 +1566,117 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
+			return DumpWriter.toString( this );
+		}
+
+		/**
+		 * Writes a human-readable description of this saved game.
+		 *
+		 * Undecoded sections are peeked at, so they stay unmodified.
+		 * Beacons are decoded one at a time and discarded once written.
+		 */
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			Map<String, Integer> stateVars = this.stateVars;
+			ShipState playerShipState = this.playerShipState;
+			ShipState nearbyShipState = this.nearbyShipState;
+			if ( lazySections != null ) {
+				stateVars = lazySections.peekStateVars();
+				playerShipState = lazySections.peekPlayerShip();
+				nearbyShipState = lazySections.peekNearbyShip();
+			}
+
 			boolean first = true;
-			result.append(String.format("Ship Name: %s\n", playerShipName));
-			result.append(String.format("Ship Type: %s\n", playerShipBlueprintId));
-			result.append(String.format("Difficulty:             %s\n", (difficultyEasy ? "Easy" : "Normal") ));
-			result.append(String.format("Sector:                 %4d (%d)\n", sectorNumber, sectorNumber+1));
-			result.append(String.format("Unknown?:               %4d\n", unknownHeaderAlpha));
-			result.append(String.format("Total Ships Defeated:   %4d\n", totalShipsDefeated));
-			result.append(String.format("Total Beacons Explored: %4d\n", totalBeaconsExplored));
-			result.append(String.format("Total Scrap Collected:  %4d\n", totalScrapCollected));
-			result.append(String.format("Total Crew Hired:       %4d\n", totalCrewHired));
-
-			result.append("\nState Vars...\n");
+			out.append("Ship Name: ").append(playerShipName).append("\n");
+			out.append("Ship Type: ").append(playerShipBlueprintId).append("\n");
+			out.append("Difficulty:             ").append( (difficultyEasy ? "Easy" : "Normal") ).append("\n");
+			out.append("Sector:                 ").appendPadded(sectorNumber, 4).append(" (").append(sectorNumber+1).append(")\n");
+			out.append("Unknown?:               ").appendPadded(unknownHeaderAlpha, 4).append("\n");
+			out.append("Total Ships Defeated:   ").appendPadded(totalShipsDefeated, 4).append("\n");
+			out.append("Total Beacons Explored: ").appendPadded(totalBeaconsExplored, 4).append("\n");
+			out.append("Total Scrap Collected:  ").appendPadded(totalScrapCollected, 4).append("\n");
+			out.append("Total Crew Hired:       ").appendPadded(totalCrewHired, 4).append("\n");
+
+			out.append("\nState Vars...\n");
 			for (Map.Entry<String, Integer> entry : stateVars.entrySet()) {
-				result.append(String.format("%-16s %4d\n", entry.getKey() +":", entry.getValue().intValue()));
+				out.appendPaddedRight(entry.getKey() +":", 16).append(" ").appendPadded(entry.getValue().intValue(), 4).append("\n");
 			}
 
-			result.append("\nPlayer Ship...\n");
+			out.append("\nPlayer Ship...\n");
 			if ( playerShipState != null )
-				result.append(playerShipState.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				out.appendIndented(playerShipState);
 
-			result.append("\nCargo...\n");
+			out.append("\nCargo...\n");
 			for (String cargoItemId : cargoIdList) {
-				result.append(String.format("CargoItemId: %s\n", cargoItemId));
+				out.append("CargoItemId: ").append(cargoItemId).append("\n");
 			}
 
-			result.append("\nSector Data...\n");
-			result.append( String.format("Sector Tree Seed:   %5d\n", sectorTreeSeed) );
-			result.append( String.format("Sector Layout Seed: %5d\n", sectorLayoutSeed) );
-			result.append( String.format("Rebel Fleet Offset: %5d\n", rebelFleetOffset) );
-			result.append( String.format("Rebel Fleet Fudge:  %5d\n", rebelFleetFudge) );
-			result.append( String.format("Rebel Pursuit Mod:  %5d\n", rebelPursuitMod) );
-			result.append( String.format("Sector Hazards Map: %b\n", sectorHazardsVisible) );
-			result.append( String.format("In Hidden Sector:   %b\n", sectorIsHiddenCrystalWorlds) );
-			result.append( String.format("Rebel Flagship On:  %b\n", rebelFlagshipVisible) );
-			result.append( String.format("Flagship Nth Hop:   %5d\n", rebelFlagshipHop) );
-			result.append( String.format("Flagship Moving:    %b\n", rebelFlagshipApproaching) );
-			result.append( String.format("Player BeaconId:    %5d\n", currentBeaconId) );
-
-			result.append("\nSector Tree Breadcrumbs...\n");
+			out.append("\nSector Data...\n");
+			out.append("Sector Tree Seed:   ").appendPadded(sectorTreeSeed, 5).append("\n");
+			out.append("Sector Layout Seed: ").appendPadded(sectorLayoutSeed, 5).append("\n");
+			out.append("Rebel Fleet Offset: ").appendPadded(rebelFleetOffset, 5).append("\n");
+			out.append("Rebel Fleet Fudge:  ").appendPadded(rebelFleetFudge, 5).append("\n");
+			out.append("Rebel Pursuit Mod:  ").appendPadded(rebelPursuitMod, 5).append("\n");
+			out.append("Sector Hazards Map: ").append(sectorHazardsVisible).append("\n");
+			out.append("In Hidden Sector:   ").append(sectorIsHiddenCrystalWorlds).append("\n");
+			out.append("Rebel Flagship On:  ").append(rebelFlagshipVisible).append("\n");
+			out.append("Flagship Nth Hop:   ").appendPadded(rebelFlagshipHop, 5).append("\n");
+			out.append("Flagship Moving:    ").append(rebelFlagshipApproaching).append("\n");
+			out.append("Player BeaconId:    ").appendPadded(currentBeaconId, 5).append("\n");
+
+			out.append("\nSector Tree Breadcrumbs...\n");
 			first = true;
 			for (Boolean b : sectorList) {
 				if (first) { first = false; }
-				else { result.append(","); }
-				result.append( (b ? "T" : "F") );
+				else { out.append(","); }
+				out.append( (b ? "T" : "F") );
 			}
-			result.append("\n");
-
-			result.append("\nSector Beacons...\n");
-			int beaconId = 0;
-			first = true;
-			for( BeaconState beacon : beaconList ) {
-				if (first) { first = false; }
-				else { result.append(",\n"); }
-				result.append( String.format("BeaconId: %2d\n", beaconId++) );
-				result.append( beacon.toString().replaceAll("(^|\n)(.+)", "$1  $2") );
+			out.append("\n");
+
+			out.append("\nSector Beacons...\n");
+			boolean peekingBeacons = ( lazySections != null && lazySections.hasBeacons() );
+			int beaconCount = ( peekingBeacons ? lazySections.getBeaconCount() : beaconList.size() );
+			for (int beaconId=0; beaconId < beaconCount; beaconId++) {
+				if ( beaconId > 0 ) out.append(",\n");
+				out.append("BeaconId: ").appendPadded(beaconId, 2).append("\n");
+				out.appendIndented( (peekingBeacons ? lazySections.peekBeacon(beaconId) : beaconList.get(beaconId)) );
 			}
 
-			result.append("\nQuests...\n");
+			out.append("\nQuests...\n");
 			for (Map.Entry<String, Integer> entry : questEventMap.entrySet()) {
 				String questEventId = entry.getKey();
 				int questBeaconId = entry.getValue().intValue();
-				result.append(String.format("QuestEventId: %s, BeaconId: %d\n", questEventId, questBeaconId));
+				out.append("QuestEventId: ").append(questEventId).append(", BeaconId: ").append(questBeaconId).append("\n");
 			}
 
-			result.append("\nNext Sector Quests...\n");
+			out.append("\nNext Sector Quests...\n");
 			for (String questEventId : distantQuestEventList) {
-				result.append(String.format("QuestEventId: %s\n", questEventId));
+				out.append("QuestEventId: ").append(questEventId).append("\n");
 			}
 
-			result.append("\nNearby Ship...\n");
+			out.append("\nNearby Ship...\n");
 			if ( nearbyShipState != null )
-				result.append(nearbyShipState.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				out.appendIndented(nearbyShipState);
 
-			result.append("\nRebel Flagship...\n");
+			out.append("\nRebel Flagship...\n");
 			if ( rebelFlagshipState != null )
-				result.append(rebelFlagshipState.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				out.appendIndented(rebelFlagshipState);
 
-			result.append("\nMystery Bytes...\n");
+			out.append("\nMystery Bytes...\n");
 			first = true;
 			for (MysteryBytes m : mysteryList) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
-				result.append(m.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				else { out.append(",\n"); }
+				out.indent().append(m.toString()).outdent();
 			}
 
 			// ...
-			return result.toString();
 		}
 	}
 
 
 
-	public class ShipState {
+	public class ShipState implements DumpWriter.Dumpable {
 		public static final int MAX_RESERVE_POWER = 25;  // TODO: Magic number.
 
 		private boolean auto = false;  // Is autoShip.
@@ -1320,6 +1834,11 @@ public class SavedGameParser extends DatParser {
 		
 		@Override
 		public String toString() {
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
 			// The blueprint fetching might vary if auto == true.
 			// See autoBlueprints.xml vs blueprints.xml.
 			ShipBlueprint shipBlueprint = DataManager.get().getShip(shipBlueprintId);
@@ -1329,117 +1848,117 @@ public class SavedGameParser extends DatParser {
 			if ( shipLayout == null )
 				throw new RuntimeException( String.format("Could not find layout for%s ship: %s", (auto ? " auto" : ""), shipName) );
 
-			StringBuilder result = new StringBuilder();
 			boolean first = true;
-			result.append(String.format("Ship Name:    %s\n", shipName));
-			result.append(String.format("Ship Type:    %s\n", shipBlueprintId));
-			result.append(String.format("Ship Layout:  %s\n", shipLayoutId));
-			result.append(String.format("Gfx BaseName: %s\n", shipGfxBaseName));
-
-			result.append("\nSupplies...\n");
-			result.append(String.format("Hull:        %3d\n", hullAmt));
-			result.append(String.format("Fuel:        %3d\n", fuelAmt));
-			result.append(String.format("Drone Parts: %3d\n", dronePartsAmt));
-			result.append(String.format("Missiles:    %3d\n", missilesAmt));
-			result.append(String.format("Scrap:       %3d\n", scrapAmt));
-
-			result.append("\nStarting Crew...\n");
+			out.append("Ship Name:    ").append(shipName).append("\n");
+			out.append("Ship Type:    ").append(shipBlueprintId).append("\n");
+			out.append("Ship Layout:  ").append(shipLayoutId).append("\n");
+			out.append("Gfx BaseName: ").append(shipGfxBaseName).append("\n");
+
+			out.append("\nSupplies...\n");
+			out.append("Hull:        ").appendPadded(hullAmt, 3).append("\n");
+			out.append("Fuel:        ").appendPadded(fuelAmt, 3).append("\n");
+			out.append("Drone Parts: ").appendPadded(dronePartsAmt, 3).append("\n");
+			out.append("Missiles:    ").appendPadded(missilesAmt, 3).append("\n");
+			out.append("Scrap:       ").appendPadded(scrapAmt, 3).append("\n");
+
+			out.append("\nStarting Crew...\n");
 			first = true;
 			for (StartingCrewState sc : startingCrewList) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
-				result.append(sc.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				else { out.append(",\n"); }
+				out.appendIndented(sc);
 			}
 
-			result.append("\nCurrent Crew...\n");
+			out.append("\nCurrent Crew...\n");
 			first = true;
 			for (CrewState c : crewList) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
-				result.append(c.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				else { out.append(",\n"); }
+				out.appendIndented(c);
 			}
 
-			result.append("\nSystems...\n");
-			result.append(String.format("  Reserve Power Capacity: %2d\n", reservePowerCapacity));
+			out.append("\nSystems...\n");
+			out.append("  Reserve Power Capacity: ").appendPadded(reservePowerCapacity, 2).append("\n");
 			first = false;
 			for (Map.Entry<String, SystemState> entry : systemMap.entrySet()) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
-				result.append(entry.getValue().toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				else { out.append(",\n"); }
+				out.appendIndented(entry.getValue());
 			}
 
-			result.append("\nRooms...\n");
+			out.append("\nRooms...\n");
 			first = true;
 			for (ListIterator<RoomState> it=roomList.listIterator(); it.hasNext(); ) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
+				else { out.append(",\n"); }
 				int roomId = it.nextIndex();
 
 				String systemId = blueprintSystems.getSystemIdByRoomId( roomId );
 				if (systemId == null)
 					systemId = "empty";
 
-				result.append(String.format("RoomId: %2d (%s)\n", roomId, systemId));
-				result.append(it.next().toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				out.append("RoomId: ").appendPadded(roomId, 2).append(" (").append(systemId).append(")\n");
+				out.appendIndented(it.next());
 			}
 
-			result.append("\nHull Breaches...\n");
+			out.append("\nHull Breaches...\n");
 			int breachId = -1;
 			first = true;
 			for (Map.Entry<Point, Integer> entry : breachMap.entrySet()) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
+				else { out.append(",\n"); }
 
 				Point breachCoord = entry.getKey();
 				int breachHealth = entry.getValue().intValue();
 
-				result.append(String.format("BreachId: %2d, Raw Coords: %2d,%2d (-Layout Offset: %2d,%2d)\n", ++breachId, breachCoord.x, breachCoord.y, breachCoord.x-shipLayout.getOffsetX(), breachCoord.y-shipLayout.getOffsetY()));
-				result.append(String.format("  Breach HP: %3d\n", breachHealth));
+				out.append("BreachId: ").appendPadded(++breachId, 2);
+				out.append(", Raw Coords: ").appendPadded(breachCoord.x, 2).append(",").appendPadded(breachCoord.y, 2);
+				out.append(" (-Layout Offset: ").appendPadded(breachCoord.x-shipLayout.getOffsetX(), 2).append(",").appendPadded(breachCoord.y-shipLayout.getOffsetY(), 2).append(")\n");
+				out.append("  Breach HP: ").appendPadded(breachHealth, 3).append("\n");
 			}
 
-			result.append("\nDoors...\n");
+			out.append("\nDoors...\n");
 			int doorId = -1;
 			first = true;
 			for (Map.Entry<ShipLayout.DoorCoordinate, DoorState> entry : doorMap.entrySet()) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
+				else { out.append(",\n"); }
 
 				ShipLayout.DoorCoordinate doorCoord = entry.getKey();
 				DoorState d = entry.getValue();
 				String orientation = (doorCoord.v==1 ? "V" : "H");
 
-				result.append(String.format("DoorId: %2d (%2d,%2d,%2s)\n", ++doorId, doorCoord.x, doorCoord.y, orientation));
-				result.append(d.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				out.append("DoorId: ").appendPadded(++doorId, 2);
+				out.append(" (").appendPadded(doorCoord.x, 2).append(",").appendPadded(doorCoord.y, 2).append(",").appendPadded(orientation, 2).append(")\n");
+				out.appendIndented(d);
 			}
 
-			result.append("\nWeapons...\n");
+			out.append("\nWeapons...\n");
 			first = true;
 			for (WeaponState w : weaponList) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
-				result.append(w.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				else { out.append(",\n"); }
+				out.appendIndented(w);
 			}
 
-			result.append("\nDrones...\n");
+			out.append("\nDrones...\n");
 			first = true;
 			for (DroneState d : droneList) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
-				result.append(d.toString().replaceAll("(^|\n)(.+)", "$1  $2"));
+				else { out.append(",\n"); }
+				out.appendIndented(d);
 			}
 
-			result.append("\nAugments...\n");
+			out.append("\nAugments...\n");
 			for (String augmentId : augmentIdList) {
-				result.append(String.format("AugmentId: %s\n", augmentId));
+				out.append("AugmentId: ").append(augmentId).append("\n");
 			}
-			
-			return result.toString();
 		}
 	}
 
 
 
-	public class StartingCrewState {
+	public class StartingCrewState implements DumpWriter.Dumpable {
 		private String name, race;
 
 		public StartingCrewState(String name, String race) {
@@ -1457,16 +1976,19 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
-			result.append(String.format("Name: %s\n", name));
-			result.append(String.format("Race: %s\n", race));
-			return result.toString();
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			out.append("Name: ").append(name).append("\n");
+			out.append("Race: ").append(race).append("\n");
 		}
 	}
 
 
 
-	public static class CrewState {
+	public static class CrewState implements DumpWriter.Dumpable {
 		// TODO: magic numbers.
 		// Might be worth putting in the config file.
 		public static final int MASTERY_INTERVAL_PILOT = 15;
@@ -1611,34 +2133,37 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
-			result.append(String.format("Name:              %s\n", name));
-			result.append(String.format("Race:              %s\n", race));
-			result.append(String.format("Enemy Drone:       %b\n", enemyBoardingDrone));
-			result.append(String.format("Gender:            %s\n", (male ? "Male" : "Female") ));
-			result.append(String.format("Health:            %3d\n", health));
-			result.append(String.format("RoomId:            %3d\n", blueprintRoomId));
-			result.append(String.format("Room Square:       %3d\n", roomSquare));
-			result.append(String.format("Player Controlled: %b\n", playerControlled));
-			result.append(String.format("Sprite Position:   %3d,%3d\n", spriteX, spriteY));
-			result.append(String.format("Pilot Skill:       %3d (Mastery Interval: %2d)\n", pilotSkill, MASTERY_INTERVAL_PILOT));
-			result.append(String.format("Engine Skill:      %3d (Mastery Interval: %2d)\n", engineSkill, MASTERY_INTERVAL_ENGINE));
-			result.append(String.format("Shield Skill:      %3d (Mastery Interval: %2d)\n", shieldSkill, MASTERY_INTERVAL_SHIELD));
-			result.append(String.format("Weapon Skill:      %3d (Mastery Interval: %2d)\n", weaponSkill, MASTERY_INTERVAL_WEAPON));
-			result.append(String.format("Repair Skill:      %3d (Mastery Interval: %2d)\n", repairSkill, MASTERY_INTERVAL_REPAIR));
-			result.append(String.format("Combat Skill:      %3d (Mastery Interval: %2d)\n", combatSkill, MASTERY_INTERVAL_COMBAT));
-			result.append(String.format("Repairs:           %3d\n", repairs));
-			result.append(String.format("Combat Kills:      %3d\n", combatKills));
-			result.append(String.format("Piloted Evasions:  %3d\n", pilotedEvasions));
-			result.append(String.format("Jumps Survived:    %3d\n", jumpsSurvived));
-			result.append(String.format("Skill Masteries:   %3d\n", skillMasteries));
-			return result.toString();
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			out.append("Name:              ").append(name).append("\n");
+			out.append("Race:              ").append(race).append("\n");
+			out.append("Enemy Drone:       ").append(enemyBoardingDrone).append("\n");
+			out.append("Gender:            ").append( (male ? "Male" : "Female") ).append("\n");
+			out.append("Health:            ").appendPadded(health, 3).append("\n");
+			out.append("RoomId:            ").appendPadded(blueprintRoomId, 3).append("\n");
+			out.append("Room Square:       ").appendPadded(roomSquare, 3).append("\n");
+			out.append("Player Controlled: ").append(playerControlled).append("\n");
+			out.append("Sprite Position:   ").appendPadded(spriteX, 3).append(",").appendPadded(spriteY, 3).append("\n");
+			out.append("Pilot Skill:       ").appendPadded(pilotSkill, 3).append(" (Mastery Interval: ").appendPadded(MASTERY_INTERVAL_PILOT, 2).append(")\n");
+			out.append("Engine Skill:      ").appendPadded(engineSkill, 3).append(" (Mastery Interval: ").appendPadded(MASTERY_INTERVAL_ENGINE, 2).append(")\n");
+			out.append("Shield Skill:      ").appendPadded(shieldSkill, 3).append(" (Mastery Interval: ").appendPadded(MASTERY_INTERVAL_SHIELD, 2).append(")\n");
+			out.append("Weapon Skill:      ").appendPadded(weaponSkill, 3).append(" (Mastery Interval: ").appendPadded(MASTERY_INTERVAL_WEAPON, 2).append(")\n");
+			out.append("Repair Skill:      ").appendPadded(repairSkill, 3).append(" (Mastery Interval: ").appendPadded(MASTERY_INTERVAL_REPAIR, 2).append(")\n");
+			out.append("Combat Skill:      ").appendPadded(combatSkill, 3).append(" (Mastery Interval: ").appendPadded(MASTERY_INTERVAL_COMBAT, 2).append(")\n");
+			out.append("Repairs:           ").appendPadded(repairs, 3).append("\n");
+			out.append("Combat Kills:      ").appendPadded(combatKills, 3).append("\n");
+			out.append("Piloted Evasions:  ").appendPadded(pilotedEvasions, 3).append("\n");
+			out.append("Jumps Survived:    ").appendPadded(jumpsSurvived, 3).append("\n");
+			out.append("Skill Masteries:   ").appendPadded(skillMasteries, 3).append("\n");
 		}
 	}
 
 
 
-	public static class SystemState {
+	public static class SystemState implements DumpWriter.Dumpable {
 		// Above this number, FTL can't find a number image to use.
 		// A warning pic will appear in its place.
 		public static final int MAX_IONIZED_BARS = 9;  // TODO: Magic number.
@@ -1694,25 +2219,28 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
 			if (capacity > 0) {
-				result.append(String.format("SystemId:           %s\n", systemId));
-				result.append(String.format("Power:              %d/%d\n", power, capacity));
-				result.append(String.format("Damaged Bars:       %3d\n", damagedBars));
-				result.append(String.format("Ionized Bars:       %3d\n", ionizedBars));
-				result.append(String.format("Repair Progress:    %3d%%\n", repairProgress));
-				result.append(String.format("Damage Progress:    %3d%%\n", damageProgress));
-				result.append(String.format("Deionization Ticks: %s\n", (deionizationTicks==Integer.MIN_VALUE ? "N/A" : deionizationTicks) ));
+				out.append("SystemId:           ").append(systemId).append("\n");
+				out.append("Power:              ").append(power).append("/").append(capacity).append("\n");
+				out.append("Damaged Bars:       ").appendPadded(damagedBars, 3).append("\n");
+				out.append("Ionized Bars:       ").appendPadded(ionizedBars, 3).append("\n");
+				out.append("Repair Progress:    ").appendPadded(repairProgress, 3).append("%\n");
+				out.append("Damage Progress:    ").appendPadded(damageProgress, 3).append("%\n");
+				out.append("Deionization Ticks: ").append( (deionizationTicks==Integer.MIN_VALUE ? "N/A" : Integer.toString(deionizationTicks)) ).append("\n");
 			} else {
-				result.append(String.format("%s: N/A\n", systemId));
+				out.append(systemId).append(": N/A\n");
 			}
-			return result.toString();
 		}
 	}
 
 
 
-	public static class RoomState {
+	public static class RoomState implements DumpWriter.Dumpable {
 		private int oxygen = 100;
 		private ArrayList<SquareState> squareList = new ArrayList<SquareState>();
 
@@ -1742,12 +2270,17 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
-			result.append(String.format("Oxygen: %3d%%\n", oxygen));
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			out.append("Oxygen: ").appendPadded(oxygen, 3).append("%\n");
 			for (SquareState square : squareList) {
-				result.append(String.format("Square: Fire HP: %3d, Ignition: %3d%%, Gamma?: %2d\n", square.fireHealth, square.ignitionProgress, square.gamma));
+				out.append("Square: Fire HP: ").appendPadded(square.fireHealth, 3);
+				out.append(", Ignition: ").appendPadded(square.ignitionProgress, 3);
+				out.append("%, Gamma?: ").appendPadded(square.gamma, 2).append("\n");
 			}
-			return result.toString();
 		}
 	}
 
@@ -1767,7 +2300,7 @@ public class SavedGameParser extends DatParser {
 
 
 
-	public static class DoorState {
+	public static class DoorState implements DumpWriter.Dumpable {
 		private boolean open = false;
 		private boolean walkingThrough = false;
 
@@ -1787,15 +2320,18 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
-			result.append(String.format("Open: %b, Walking Through: %b\n", open, walkingThrough));
-			return result.toString();
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			out.append("Open: ").append(open).append(", Walking Through: ").append(walkingThrough).append("\n");
 		}
 	}
 
 
 
-	public static class WeaponState {
+	public static class WeaponState implements DumpWriter.Dumpable {
 		private String weaponId = null;
 		private boolean armed = false;
 		private int cooldownTicks = 0;
@@ -1828,21 +2364,23 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
+			return DumpWriter.toString( this );
+		}
 
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
 			WeaponBlueprint weaponBlueprint = DataManager.get().getWeapon(weaponId);
 			String cooldownString = ( weaponBlueprint!=null ? weaponBlueprint.getCooldown()+"" : "?" );
 
-			result.append(String.format("WeaponId:       %s\n", weaponId));
-			result.append(String.format("Armed:          %b\n", armed));
-			result.append(String.format("Cooldown Ticks: %2d (max: %-2s)\n", cooldownTicks, cooldownString));
-			return result.toString();
+			out.append("WeaponId:       ").append(weaponId).append("\n");
+			out.append("Armed:          ").append(armed).append("\n");
+			out.append("Cooldown Ticks: ").appendPadded(cooldownTicks, 2).append(" (max: ").appendPaddedRight(cooldownString, 2).append(")\n");
 		}
 	}
 
 
 
-	public class DroneState {
+	public class DroneState implements DumpWriter.Dumpable {
 		private String droneId;
 		private boolean armed = false;
 		private boolean playerControlled = true;  // False when not armed.
@@ -1876,15 +2414,18 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
-			result.append(String.format("DroneId:           %s\n", droneId));
-			result.append(String.format("Armed:             %b\n", armed));
-			result.append(String.format("Health:            %3d\n", health));
-			result.append(String.format("RoomId:            %3d\n", blueprintRoomId));
-			result.append(String.format("Room Square:       %3d\n", roomSquare));
-			result.append(String.format("Player Controlled: %b\n", playerControlled));
-			result.append(String.format("Sprite Position:   %3d,%3d\n", spriteX, spriteY));
-			return result.toString();
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			out.append("DroneId:           ").append(droneId).append("\n");
+			out.append("Armed:             ").append(armed).append("\n");
+			out.append("Health:            ").appendPadded(health, 3).append("\n");
+			out.append("RoomId:            ").appendPadded(blueprintRoomId, 3).append("\n");
+			out.append("Room Square:       ").appendPadded(roomSquare, 3).append("\n");
+			out.append("Player Controlled: ").append(playerControlled).append("\n");
+			out.append("Sprite Position:   ").appendPadded(spriteX, 3).append(",").appendPadded(spriteY, 3).append("\n");
 		}
 	}
 
@@ -1892,7 +2433,7 @@ public class SavedGameParser extends DatParser {
 
 	public enum FleetPresence { NONE, REBEL, FEDERATION, BOTH }
 
-	public class BeaconState {
+	public class BeaconState implements DumpWriter.Dumpable {
 		
 		private boolean visited;
 		private String bgStarscapeImageInnerPath;
@@ -1916,35 +2457,36 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
-			
-			result.append(String.format("Visited:           %b\n", visited));
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			out.append("Visited:           ").append(visited).append("\n");
 			if ( visited ) {
-				result.append(String.format("Bkg Starscape:     %s\n", bgStarscapeImageInnerPath));
-				result.append(String.format("Bkg Sprite:        %s\n", bgSpriteImageInnerPath));
-				result.append(String.format("Bkg Sprite Coords: %3d,%3d\n", bgSpritePosX, bgSpritePosY));
-				result.append(String.format("Unknown?:          %3d\n", unknownVisitedAlpha));
+				out.append("Bkg Starscape:     ").append(bgStarscapeImageInnerPath).append("\n");
+				out.append("Bkg Sprite:        ").append(bgSpriteImageInnerPath).append("\n");
+				out.append("Bkg Sprite Coords: ").appendPadded(bgSpritePosX, 3).append(",").appendPadded(bgSpritePosY, 3).append("\n");
+				out.append("Unknown?:          ").appendPadded(unknownVisitedAlpha, 3).append("\n");
 			}
-			
-			result.append(String.format("Seen:              %b\n", seen));
-			
-			result.append(String.format("Enemy Present:     %b\n", enemyPresent));
+
+			out.append("Seen:              ").append(seen).append("\n");
+
+			out.append("Enemy Present:     ").append(enemyPresent).append("\n");
 			if ( enemyPresent ) {
-				result.append(String.format("  Ship Event ID:          %s\n", shipEventId));
-				result.append(String.format("  Ship Blueprint List ID: %s\n", shipBlueprintListId));
-				result.append(String.format("  Unknown?:               %5d\n", unknownEnemyPresentAlpha));
+				out.append("  Ship Event ID:          ").append(shipEventId).append("\n");
+				out.append("  Ship Blueprint List ID: ").append(shipBlueprintListId).append("\n");
+				out.append("  Unknown?:               ").appendPadded(unknownEnemyPresentAlpha, 5).append("\n");
 			}
-			
-			result.append(String.format("Fleets Present:    %s\n", fleetPresence));
-			
-			result.append(String.format("Under Attack:      %b\n", underAttack));
-			
-			result.append(String.format("Store Present:     %b\n", storePresent));
+
+			out.append("Fleets Present:    ").appendValue(fleetPresence).append("\n");
+
+			out.append("Under Attack:      ").append(underAttack).append("\n");
+
+			out.append("Store Present:     ").append(storePresent).append("\n");
 			if ( storePresent ) {
-				result.append( store.toString().replaceAll("(^|\n)(.+)", "$1  $2") );
+				out.appendIndented( store );
 			}
-
-			return result.toString();
 		}
 		
 		public String getBgSpriteImageInnerPath() {
@@ -2041,26 +2583,27 @@ public class SavedGameParser extends DatParser {
 
 
 
-	public class StoreState {
+	public class StoreState implements DumpWriter.Dumpable {
 		
 		private int fuel, missiles, droneParts;
 		private StoreShelf topShelf, bottomShelf;
 		
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
-			
-			result.append( String.format("Fuel:        %2d\n", fuel) );
-			result.append( String.format("Missiles:    %2d\n", missiles) );
-			result.append( String.format("Drone Parts: %2d\n", droneParts) );
-			
-			result.append( "\nTop Shelf...\n" );
-			result.append( topShelf.toString().replaceAll("(^|\n)(.+)", "$1  $2") );
-
-			result.append( "\nBottom Shelf...\n" );
-			result.append( bottomShelf.toString().replaceAll("(^|\n)(.+)", "$1  $2") );
-			
-			return result.toString();
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			out.append( "Fuel:        " ).appendPadded( fuel, 2 ).append( "\n" );
+			out.append( "Missiles:    " ).appendPadded( missiles, 2 ).append( "\n" );
+			out.append( "Drone Parts: " ).appendPadded( droneParts, 2 ).append( "\n" );
+
+			out.append( "\nTop Shelf...\n" );
+			out.appendIndented( topShelf );
+
+			out.append( "\nBottom Shelf...\n" );
+			out.appendIndented( bottomShelf );
 		}
 		
 		public int getFuel() {
@@ -2098,7 +2641,7 @@ public class SavedGameParser extends DatParser {
 
 	public enum StoreItemType { WEAPON, DRONE, AUGMENT, CREW, SYSTEM };
 	
-	public class StoreShelf {
+	public class StoreShelf implements DumpWriter.Dumpable {
 		
 		private StoreItemType itemType;
 		
@@ -2110,17 +2653,19 @@ public class SavedGameParser extends DatParser {
 		
 		@Override
 		public String toString() {
-			StringBuilder result = new StringBuilder();
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
 			boolean first = true;
 
-			result.append( String.format("Item Type: %s\n", itemType) );
+			out.append( "Item Type: " ).appendValue( itemType ).append( "\n" );
 			for (StoreItem item : items) {
 				if (first) { first = false; }
-				else { result.append(",\n"); }
-				result.append( item.toString().replaceAll("(^|\n)(.+)", "$1  $2") );
+				else { out.append(",\n"); }
+				out.appendIndented( item );
 			}
-			
-			return result.toString();
 		}
 
 		public List<StoreItem> getItems() {
@@ -2138,7 +2683,7 @@ public class SavedGameParser extends DatParser {
 		
 	}
 	
-	public class StoreItem {
+	public class StoreItem implements DumpWriter.Dumpable {
 		private boolean available;
 		private String itemId;
 
@@ -2157,13 +2702,18 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
-			return String.format("%s (%s)\n", itemId, (available ? "Available" : "Sold Out"));
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
+			out.append( itemId ).append( " (" ).append( (available ? "Available" : "Sold Out") ).append( ")\n" );
 		}
 	}
 
 
 
-	public class RebelFlagshipState {
+	public class RebelFlagshipState implements DumpWriter.Dumpable {
 		private String[] shipBlueprintIds;
 		private int pendingStage = 1;
 		private LinkedHashMap<Integer, Integer> occupancyMap = new LinkedHashMap<Integer, Integer>();
@@ -2229,6 +2779,11 @@ public class SavedGameParser extends DatParser {
 
 		@Override
 		public String toString() {
+			return DumpWriter.toString( this );
+		}
+
+		@Override
+		public void dump( DumpWriter out ) throws IOException {
 			// Use the first, most complete, blueprint for room names.
 			ShipBlueprint shipBlueprint = DataManager.get().getShip( shipBlueprintIds[0] );
 			if ( shipBlueprint == null )
@@ -2237,11 +2792,9 @@ public class SavedGameParser extends DatParser {
 			ShipBlueprint.SystemList blueprintSystems = shipBlueprint.getSystemList();
 
 
-			StringBuilder result = new StringBuilder();
+			out.append( "Pending Ship Type: " ).append( shipBlueprintIds[pendingStage-1] ).append( "\n" );
 
-			result.append( String.format("Pending Ship Type: %s\n", shipBlueprintIds[pendingStage-1] ) );
-
-			result.append( "\nOccupancy of Last Seen Type...\n" );
+			out.append( "\nOccupancy of Last Seen Type...\n" );
 			for (Map.Entry<Integer, Integer> entry : occupancyMap.entrySet()) {
 				int roomId = entry.getKey().intValue();
 				int occupantCount = entry.getValue().intValue();
@@ -2250,10 +2803,8 @@ public class SavedGameParser extends DatParser {
 				if (systemId == null)
 					systemId = "empty";
 
-				result.append( String.format("RoomId: %2d (%-10s), Crew: %d\n", roomId, systemId, occupantCount) );
+				out.append( "RoomId: " ).appendPadded( roomId, 2 ).append( " (" ).appendPaddedRight( systemId, 10 ).append( "), Crew: " ).append( occupantCount ).append( "\n" );
 			}
-
-			return result.toString();
 		}
 	}
 
@@ -0,0 +1,161 @@
+package net.blerf.ftl.parser;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * A symbol table that maps raw encoded bytes to canonical Strings.
+ *
+ * Saved games repeat a small vocabulary of ids (races, weapons,
+ * systems, augments, events...). Looking them up here by their bytes
+ * returns a shared instance without allocating a byte[] or String on
+ * a hit, and identical ids end up identical objects.
+ *
+ * A pool may have a parent, which is consulted first and never
+ * modified. That lets a pool seeded once with known blueprint ids be
+ * shared read-only across threads, while each parser adds whatever
+ * else it encounters to a private child.
+ *
+ * Instances are not thread-safe for modification.
+ */
+public class StringPool {
+
+	/** Strings longer than this (in bytes) aren't worth pooling. */
+	public static final int MAX_POOLED_LENGTH = 64;
+
+	/** Past this many entries, misses are decoded but not remembered. */
+	public static final int MAX_ENTRIES = 16384;
+
+	private StringPool parent;
+	private int[] hashes;
+	private byte[][] keys;
+	private String[] values;
+	private int count = 0;
+
+
+	public StringPool() {
+		this( null );
+	}
+
+	public StringPool( StringPool parent ) {
+		this.parent = parent;
+		hashes = new int[64];
+		keys = new byte[64][];
+		values = new String[64];
+	}
+
+	/** Returns the number of entries in this pool, excluding its parent. */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Adds a known string, returning the canonical instance.
+	 */
+	public String seed( String s ) {
+		byte[] key = s.getBytes();
+		return intern( ByteBuffer.wrap(key), 0, key.length );
+	}
+
+	/**
+	 * Returns a canonical String for bytes within a buffer.
+	 *
+	 * The buffer's position is not changed.
+	 *
+	 * @param buf a buffer to read from, with absolute gets
+	 * @param offset the index of the first byte
+	 * @param length the number of bytes
+	 */
+	public String intern( ByteBuffer buf, int offset, int length ) {
+		int hash = hash( buf, offset, length );
+
+		if ( parent != null ) {
+			String result = parent.find( hash, buf, offset, length );
+			if ( result != null ) return result;
+		}
+
+		int mask = values.length-1;
+		int slot = hash & mask;
+		while ( values[slot] != null ) {
+			if ( hashes[slot] == hash && matches( keys[slot], buf, offset, length ) )
+				return values[slot];
+			slot = (slot+1) & mask;
+		}
+
+		byte[] key = new byte[length];
+		for (int i=0; i < length; i++) {
+			key[i] = buf.get( offset+i );
+		}
+		String result = new String( key );
+
+		if ( count < MAX_ENTRIES ) {
+			hashes[slot] = hash;
+			keys[slot] = key;
+			values[slot] = result;
+			count++;
+			if ( count*2 > values.length ) grow();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns a pooled String, or null, without adding anything.
+	 */
+	private String find( int hash, ByteBuffer buf, int offset, int length ) {
+		if ( parent != null ) {
+			String result = parent.find( hash, buf, offset, length );
+			if ( result != null ) return result;
+		}
+
+		int mask = values.length-1;
+		int slot = hash & mask;
+		while ( values[slot] != null ) {
+			if ( hashes[slot] == hash && matches( keys[slot], buf, offset, length ) )
+				return values[slot];
+			slot = (slot+1) & mask;
+		}
+		return null;
+	}
+
+	private void grow() {
+		int[] oldHashes = hashes;
+		byte[][] oldKeys = keys;
+		String[] oldValues = values;
+
+		int capacity = oldValues.length*2;
+		hashes = new int[capacity];
+		keys = new byte[capacity][];
+		values = new String[capacity];
+
+		int mask = capacity-1;
+		for (int i=0; i < oldValues.length; i++) {
+			if ( oldValues[i] == null ) continue;
+
+			int slot = oldHashes[i] & mask;
+			while ( values[slot] != null )
+				slot = (slot+1) & mask;
+
+			hashes[slot] = oldHashes[i];
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+		}
+	}
+
+	private static int hash( ByteBuffer buf, int offset, int length ) {
+		int h = length;
+		for (int i=0; i < length; i++) {
+			h = 31*h + buf.get( offset+i );
+		}
+		// Spread the low bits, since slots are picked by masking.
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean matches( byte[] key, ByteBuffer buf, int offset, int length ) {
+		if ( key.length != length ) return false;
+		for (int i=0; i < length; i++) {
+			if ( key[i] != buf.get( offset+i ) ) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,128 @@
+package net.blerf.ftl.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+
+/**
+ * A Reader that repairs FTL's malformed XML as it's read.
+ *
+ * FTL's data files have multiple root elements, comments that
+ * don't close, mismatched tags, etc. This cleans them a line at a
+ * time, wraps everything in a single root element, and strips any
+ * BOM, without ever holding the whole document.
+ *
+ * Subclasses supply the per-line repairs. Recently emitted lines are
+ * remembered, so a parser's error can be reported alongside the
+ * line it was complaining about.
+ */
+public abstract class XmlSanitizingReader extends Reader {
+
+	private static final char BOM = '\uFEFF';
+	private static final int RECENT_LINES = 256;
+
+	private BufferedReader in;
+	private String rootName;
+
+	private String chunk = null;
+	private int chunkPos = 0;
+	private boolean started = false;
+	private boolean ended = false;
+	private boolean firstLine = true;
+
+	private String[] recentLines = new String[RECENT_LINES];
+	private int lineCount = 0;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param in the raw XML
+	 * @param rootName an element to wrap the content in
+	 */
+	public XmlSanitizingReader( Reader in, String rootName ) {
+		this.in = (in instanceof BufferedReader ? (BufferedReader)in : new BufferedReader(in));
+		this.rootName = rootName;
+	}
+
+	/**
+	 * Repairs a line of the original XML.
+	 *
+	 * @return the cleaned line, or null to omit it entirely
+	 */
+	protected abstract String filterLine( String line );
+
+	/**
+	 * Returns an emitted line by number, if it was recent enough to be
+	 * remembered.
+	 *
+	 * @param lineNum a 1-based line number, as a parser would report,
+	 *                counting the added root element's line
+	 * @return the line, or null
+	 */
+	public String getRecentLine( int lineNum ) {
+		if ( lineNum < 1 || lineNum > lineCount || lineNum <= lineCount - RECENT_LINES ) return null;
+		return recentLines[(lineNum-1) % RECENT_LINES];
+	}
+
+	/**
+	 * Advances to the next chunk of output.
+	 *
+	 * @return false at the end of the stream
+	 */
+	private boolean nextChunk() throws IOException {
+		if ( !started ) {
+			started = true;
+			emit( "<"+ rootName +">" );
+			return true;
+		}
+		if ( ended ) return false;
+
+		String line;
+		while ( (line = in.readLine()) != null ) {
+			if ( firstLine && line.length() > 0 && line.charAt(0) == BOM )
+				line = line.substring(1);
+			firstLine = false;
+
+			line = filterLine( line );
+			if ( line != null ) {
+				emit( line );
+				return true;
+			}
+		}
+
+		ended = true;
+		emit( "</"+ rootName +">" );
+		return true;
+	}
+
+	private void emit( String line ) {
+		recentLines[lineCount % RECENT_LINES] = line;
+		lineCount++;
+		chunk = line +"\n";
+		chunkPos = 0;
+	}
+
+	@Override
+	public int read( char[] cbuf, int off, int len ) throws IOException {
+		if ( len == 0 ) return 0;
+
+		int total = 0;
+		while ( total < len ) {
+			if ( chunk == null || chunkPos >= chunk.length() ) {
+				if ( !nextChunk() ) break;
+			}
+			int n = Math.min( len - total, chunk.length() - chunkPos );
+			chunk.getChars( chunkPos, chunkPos + n, cbuf, off + total );
+			chunkPos += n;
+			total += n;
+		}
+		return ( total == 0 ? -1 : total );
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
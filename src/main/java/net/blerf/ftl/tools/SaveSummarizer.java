@@ -0,0 +1,336 @@
+package net.blerf.ftl.tools;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.blerf.ftl.model.Profile;
+import net.blerf.ftl.model.Stats;
+import net.blerf.ftl.parser.ByteBufferReader;
+import net.blerf.ftl.parser.DataManager;
+import net.blerf.ftl.parser.ProfileParser;
+import net.blerf.ftl.parser.SavedGameParser;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Summarizes many profiles and saved games, without a display.
+ *
+ * Files are split among a fork-join pool's workers, each with its
+ * own parsers (parsers keep per-instance buffers and string pools,
+ * so they can't be shared). A tab-separated record is written for
+ * each file as soon as it's parsed, so output order varies between
+ * runs.
+ *
+ * Saved games are read lazily, so beacons and the nearby ship are
+ * only skipped, not decoded. Ship layouts still come from
+ * DataManager, which must be initialized first.
+ */
+public class SaveSummarizer {
+
+	private static final Logger log = LogManager.getLogger(SaveSummarizer.class);
+
+	public static final String[] COLUMNS = new String[] {"file", "type", "ship", "sector", "scrap", "crew", "victories", "error"};
+
+	/** Files per task, below which the pool stops splitting work. */
+	private static final int LEAF_SIZE = 4;
+
+	private static final int PROFILE_VERSION = 4;
+
+	private final ThreadLocal<ProfileParser> profileParser = new ThreadLocal<ProfileParser>() {
+		@Override
+		protected ProfileParser initialValue() {
+			return new ProfileParser();
+		}
+	};
+	private final ThreadLocal<SavedGameParser> savedGameParser = new ThreadLocal<SavedGameParser>() {
+		@Override
+		protected SavedGameParser initialValue() {
+			return new SavedGameParser();
+		}
+	};
+
+	private int threadCount;
+	private Writer out = null;
+	private AtomicInteger failureCount = new AtomicInteger();
+
+
+	/**
+	 * Constructs a summarizer using a worker per processor.
+	 */
+	public SaveSummarizer() {
+		this( Runtime.getRuntime().availableProcessors() );
+	}
+
+	public SaveSummarizer( int threadCount ) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Summarizes profiles and saved games from the command line.
+	 *
+	 * Usage: --batch [--ftl ftlFolder] [--threads N] [--out file]
+	 *   path|glob...
+	 *
+	 * Paths may be files, or folders to search for prof.sav and
+	 * continue.sav. Globs (e.g. "archive/player_??/prof.sav") are
+	 * matched beneath their leading literal folders, with "**"
+	 * crossing folder boundaries. With no --out, records go to stdout,
+	 * mixed with any console logging.
+	 *
+	 * @param defaultFtlPath an FTL folder, if --ftl isn't given, or null
+	 * @return the number of files that couldn't be summarized, or -1
+	 *         for bad arguments
+	 */
+	public static int run( String[] args, File defaultFtlPath ) throws IOException {
+		File ftlPath = defaultFtlPath;
+		File outFile = null;
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		List<String> patterns = new ArrayList<String>();
+
+		for (int i=0; i < args.length; i++) {
+			String arg = args[i];
+			if ( arg.equals("--ftl") || arg.equals("--threads") || arg.equals("--out") ) {
+				if ( i+1 >= args.length ) {
+					System.err.println( "Missing a value for "+ arg );
+					return -1;
+				}
+				String value = args[++i];
+				if ( arg.equals("--ftl") ) ftlPath = new File( value );
+				else if ( arg.equals("--out") ) outFile = new File( value );
+				else {
+					try {
+						threadCount = Integer.parseInt( value );
+					}
+					catch ( NumberFormatException e ) {
+						System.err.println( "Not a number for "+ arg +": "+ value );
+						return -1;
+					}
+				}
+			}
+			else if ( arg.startsWith("--") ) {
+				System.err.println( "Unknown option: "+ arg );
+				return -1;
+			}
+			else {
+				patterns.add( arg );
+			}
+		}
+
+		if ( patterns.isEmpty() ) {
+			System.err.println( "Usage: --batch [--ftl ftlFolder] [--threads N] [--out file] path|glob..." );
+			return -1;
+		}
+		if ( ftlPath == null || !new File(ftlPath, "resources/data.dat").exists() ) {
+			System.err.println( "FTL data was not found. Pass the FTL folder with --ftl." );
+			return -1;
+		}
+
+		List<File> files = new ArrayList<File>();
+		for ( String pattern : patterns ) {
+			files.addAll( findFiles( pattern ) );
+		}
+		log.info( "Summarizing "+ files.size() +" files with "+ threadCount +" threads" );
+
+		DataManager.init( ftlPath );
+		Writer writer = null;
+		try {
+			if ( outFile != null )
+				writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream(outFile), "UTF-8" ), 64 * 1024 );
+			else
+				writer = new BufferedWriter( new OutputStreamWriter( System.out ), 64 * 1024 );
+
+			long startTime = System.nanoTime();
+			SaveSummarizer summarizer = new SaveSummarizer( threadCount );
+			int failures = summarizer.summarize( files, writer );
+			long elapsed = (System.nanoTime() - startTime) / 1000000;
+
+			log.info( String.format( "Summarized %d files (%d failed) in %d ms", files.size(), failures, elapsed ) );
+			return failures;
+		}
+		finally {
+			try {
+				if ( outFile != null ) {if (writer != null) writer.close();}
+				else {if (writer != null) writer.flush();}
+			}
+			catch (IOException e) {}
+
+			DataManager.get().close();
+		}
+	}
+
+	/**
+	 * Returns files matching a path or glob.
+	 *
+	 * A folder yields every prof.sav and continue.sav beneath it.
+	 */
+	public static List<File> findFiles( String pattern ) throws IOException {
+		final List<File> result = new ArrayList<File>();
+
+		boolean isGlob = ( pattern.indexOf('*') != -1 || pattern.indexOf('?') != -1 || pattern.indexOf('[') != -1 || pattern.indexOf('{') != -1 );
+		if ( !isGlob ) {
+			File f = new File( pattern );
+			if ( f.isFile() ) {
+				result.add( f );
+				return result;
+			}
+			if ( !f.isDirectory() ) throw new IOException( "No such file or folder: "+ pattern );
+			pattern = new File( f, "**" ).getPath();
+		}
+
+		// Walk from the deepest folder before the first wildcard,
+		// matching paths relative to it.
+		String normalized = pattern.replace( File.separatorChar, '/' );
+		int wildcard = normalized.length();
+		for ( char c : new char[] {'*', '?', '[', '{'} ) {
+			int n = normalized.indexOf(c);
+			if ( n != -1 ) wildcard = Math.min( wildcard, n );
+		}
+		int slash = normalized.lastIndexOf( '/', wildcard );
+		final File root = new File( (slash == -1 ? "." : normalized.substring(0, Math.max(1, slash))) );
+		final PathMatcher matcher = ( isGlob ? FileSystems.getDefault().getPathMatcher( "glob:"+ normalized.substring(slash+1) ) : null );
+
+		if ( !root.isDirectory() ) return result;
+		Files.walkFileTree( root.toPath(), new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile( Path file, BasicFileAttributes attrs ) {
+				if ( !attrs.isRegularFile() ) return FileVisitResult.CONTINUE;
+
+				boolean matched;
+				if ( matcher != null ) {
+					matched = matcher.matches( root.toPath().relativize( file ) );
+				} else {
+					String name = file.getFileName().toString();
+					matched = ( name.equals("prof.sav") || name.equals("continue.sav") );
+				}
+				if ( matched ) result.add( file.toFile() );
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed( Path file, IOException e ) {
+				log.warn( "Skipping unreadable path: "+ file, e );
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Summarizes files, writing a header and then a record per file.
+	 *
+	 * @return the number of files that couldn't be summarized
+	 */
+	public int summarize( List<File> files, Writer out ) throws IOException {
+		this.out = out;
+		failureCount.set( 0 );
+
+		writeRecord( COLUMNS );
+
+		ForkJoinPool pool = new ForkJoinPool( threadCount );
+		try {
+			pool.invoke( new SummarizeTask( files, 0, files.size() ) );
+		}
+		finally {
+			pool.shutdown();
+		}
+		out.flush();
+
+		return failureCount.get();
+	}
+
+	/**
+	 * Returns a record for one file, never throwing.
+	 */
+	public String[] summarizeFile( File f ) {
+		String path = f.getPath();
+		try {
+			ByteBufferReader in = ByteBufferReader.fromFile( f );
+			if ( in.size() >= 4 && in.getBuffer().getInt(0) == PROFILE_VERSION ) {
+				Profile p = profileParser.get().readProfile( in );
+				Stats stats = p.getStats();
+				return new String[] {path, "profile", "", "", Integer.toString(stats.getTotalScrapCollected()), Integer.toString(stats.getTotalCrewHired()), Integer.toString(stats.getTotalVictories()), ""};
+			}
+			else {
+				SavedGameParser.SavedGameState gs = savedGameParser.get().readSavedGameLazily( in );
+				SavedGameParser.ShipState ship = gs.getPlayerShipState();
+				return new String[] {path, "savedgame", gs.getPlayerShipName() +" ("+ gs.getPlayerShipBlueprintId() +")", Integer.toString(gs.getSectorNumber()+1), Integer.toString(ship.getScrapAmt()), Integer.toString(ship.getCrewList().size()), "", ""};
+			}
+		}
+		catch ( Exception e ) {
+			// The error goes in the record. Log4j can't resolve stack
+			// frames in fork-join workers, so the trace isn't logged.
+			String message = e.toString().replaceAll( "\\s+", " " );
+			log.debug( "Could not summarize "+ path +": "+ message );
+			failureCount.incrementAndGet();
+			return new String[] {path, "", "", "", "", "", "", message};
+		}
+	}
+
+	private void writeRecord( String[] fields ) throws IOException {
+		StringBuilder buf = new StringBuilder();
+		for (int i=0; i < fields.length; i++) {
+			if ( i > 0 ) buf.append( '\t' );
+			buf.append( fields[i].replace('\t', ' ').replace('\n', ' ') );
+		}
+		buf.append( '\n' );
+
+		synchronized ( out ) {
+			out.write( buf.toString() );
+		}
+	}
+
+
+
+	/**
+	 * Summarizes a range of files, splitting it while it's large.
+	 */
+	private class SummarizeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private List<File> files;
+		private int start;
+		private int end;
+
+		public SummarizeTask( List<File> files, int start, int end ) {
+			this.files = files;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if ( end - start > LEAF_SIZE ) {
+				int mid = (start + end) >>> 1;
+				invokeAll( new SummarizeTask(files, start, mid), new SummarizeTask(files, mid, end) );
+				return;
+			}
+
+			for (int i=start; i < end; i++) {
+				try {
+					writeRecord( summarizeFile( files.get(i) ) );
+				}
+				catch ( IOException e ) {
+					throw new RuntimeException( "Error writing summary", e );
+				}
+			}
+		}
+	}
+}
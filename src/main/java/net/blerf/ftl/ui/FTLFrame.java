@@ -14,8 +14,6 @@ import java.awt.image.BufferedImage;
 import java.awt.image.RasterFormatException;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -24,13 +22,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.RandomAccessFile;
 import java.net.URL;
-import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,6 +48,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JToolBar;
+import javax.swing.ProgressMonitor;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
@@ -65,17 +63,25 @@ import net.blerf.ftl.model.Profile;
 import net.blerf.ftl.model.Score;
 import net.blerf.ftl.model.Score.Difficulty;
 import net.blerf.ftl.model.Stats;
+import net.blerf.ftl.parser.ByteBufferReader;
+import net.blerf.ftl.parser.ByteBufferWriter;
 import net.blerf.ftl.parser.DataManager;
+import net.blerf.ftl.parser.DatExtractor;
+import net.blerf.ftl.parser.DumpWriter;
 import net.blerf.ftl.parser.MysteryBytes;
+import net.blerf.ftl.parser.ParseStats;
 import net.blerf.ftl.parser.ProfileParser;
+import net.blerf.ftl.parser.RoundTripVerifier;
 import net.blerf.ftl.parser.SavedGameParser;
 import net.blerf.ftl.ui.ExtensionFileFilter;
 import net.blerf.ftl.ui.GeneralAchievementsPanel;
+import net.blerf.ftl.ui.ImageCache;
 import net.blerf.ftl.ui.ProfileStatsPanel;
 import net.blerf.ftl.ui.SavedGameDumpPanel;
 import net.blerf.ftl.ui.SavedGameGeneralPanel;
 import net.blerf.ftl.ui.SavedGameFloorplanPanel;
 import net.blerf.ftl.ui.ShipUnlockPanel;
+import net.blerf.ftl.ui.SpriteAtlas;
 import net.blerf.ftl.ui.StatusbarMouseListener;
 import net.blerf.ftl.xml.Achievement;
 import net.blerf.ftl.xml.ShipBlueprint;
@@ -120,6 +126,10 @@ public class FTLFrame extends JFrame {
 	private SavedGameDumpPanel savedGameDumpPanel;
 	private SavedGameGeneralPanel savedGameGeneralPanel;
 	private SavedGameFloorplanPanel savedGameFloorplanPanel;
+	private JTabbedPane savedGameTabsPane;
+	private ParseStatsPanel parseStatsPanel = null;
+	private ParseStats parseStats = null;
+	private boolean verifySavedGames = false;
 	private JLabel statusLbl;
 	private final HyperlinkListener linkListener;
 	
@@ -190,7 +200,7 @@ public class FTLFrame extends JFrame {
 		setupSavedGameToolbar(savedGameToolbar);
 		savedGamePane.add(savedGameToolbar, BorderLayout.NORTH);
 
-		JTabbedPane savedGameTabsPane = new JTabbedPane();
+		savedGameTabsPane = new JTabbedPane();
 		savedGamePane.add( savedGameTabsPane, BorderLayout.CENTER );
 
 		savedGameDumpPanel = new SavedGameDumpPanel(this);
@@ -227,10 +237,150 @@ public class FTLFrame extends JFrame {
 		t.start();
 	}
 	
+	/**
+	 * Extracts both dats in a background thread, with a cancellable
+	 * progress dialog.
+	 */
+	private void extractDats( final File outFolder ) {
+		final ProgressMonitor monitor = new ProgressMonitor( this, "Extracting dat content...", "", 0, 100 );
+		monitor.setMillisToDecideToPopup( 0 );
+		monitor.setMillisToPopup( 0 );
+
+		final AtomicBoolean cancelled = new AtomicBoolean( false );
+
+		Thread t = new Thread("ExtractDats") {
+			@Override
+			public void run() {
+				boolean completed = false;
+				Exception error = null;
+				try {
+					completed = DataManager.get().unpackData( outFolder, createExtractionListener(monitor, cancelled, "data.dat") );
+					if ( completed )
+						completed = DataManager.get().unpackResources( outFolder, createExtractionListener(monitor, cancelled, "resource.dat") );
+				}
+				catch ( Exception e ) {
+					error = e;
+				}
+				finally {
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							monitor.close();
+						}
+					});
+				}
+
+				final boolean finalCompleted = completed;
+				final Exception finalError = error;
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if ( finalError != null ) {
+							log.error("Error extracting dat", finalError);
+							showErrorDialog("Error extracting dat:\n" + finalError.getMessage());
+						}
+						else if ( finalCompleted ) {
+							JOptionPane.showMessageDialog(FTLFrame.this, "All dat content extracted successfully.", "Extraction Complete", JOptionPane.PLAIN_MESSAGE);
+						}
+						else {
+							log.trace("Extraction cancelled");
+							setStatusText( "Extraction cancelled." );
+						}
+					}
+				});
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * Returns a listener that forwards progress to a monitor, on the EDT.
+	 */
+	private DatExtractor.ProgressListener createExtractionListener( final ProgressMonitor monitor, final AtomicBoolean cancelled, final String datName ) {
+		return new DatExtractor.ProgressListener() {
+			public boolean extractionProgress( long bytesDone, long bytesTotal, final int entriesDone, final int entriesTotal ) {
+				final int percent = (bytesTotal > 0 ? (int)(bytesDone * 100 / bytesTotal) : 100);
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if ( monitor.isCanceled() ) cancelled.set( true );
+						monitor.setNote( datName +": "+ entriesDone +" / "+ entriesTotal +" files" );
+						monitor.setProgress( percent );
+					}
+				});
+				return !cancelled.get();
+			}
+		};
+	}
+
 	private void showErrorDialog( String message ) {
 		JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
 	}
 
+	/**
+	 * Reports a file that didn't survive a mock write unchanged.
+	 *
+	 * @param fileType "Profile" or "Saved Game"
+	 */
+	private void showParserErrorDialog( String fileType, RoundTripVerifier.Mismatch mismatch ) {
+		String details = mismatch.toString().replaceAll("&", "&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;");
+
+		String errText = "<b>FTL Profile Editor has detected that it cannot interpret your "+ fileType.toLowerCase() +" correctly.<br/>" +
+				"Saving it may result in loss of data.</b>" +
+				"<br/><br/>" +
+				"Please copy (Ctrl-A, Ctrl-C) the following text and paste it into a new bug report <a href='"+bugReportUrl+"'>here</a> " +
+				"(GitHub signup is free) or post to the FLT forums <a href='"+forumThreadUrl+"'>here</a> (Signup also free)." +
+				"<br/>If using GitHub, set the issue title as \""+ fileType +" Parser Error\"<br/><br/>I will fix the problem and release a new version as soon as I can :)" +
+				"<br/><br/><pre>" + details + "</pre>";
+
+		JDialog failDialog = createHtmlDialog( fileType +" Parser Error", errText );
+		failDialog.setVisible(true);
+	}
+
+	/**
+	 * Checks in a background thread that a saved game re-encodes to
+	 * the same bytes.
+	 *
+	 * The editor reads saved games lazily, and a lazy write would just
+	 * splice the original bytes back, so this parses a separate,
+	 * fully decoded copy. Mystery bytes are known not to survive, so
+	 * they're left out of the comparison.
+	 */
+	private void verifySavedGame( final File f ) {
+		Thread t = new Thread("VerifySavedGame") {
+			@Override
+			public void run() {
+				try {
+					RoundTripVerifier verifier = new RoundTripVerifier();
+					final SavedGameParser parser = new SavedGameParser();
+					final SavedGameParser.SavedGameState gs = parser.readSavedGame( verifier.read(f) );
+					for (MysteryBytes m : gs.getMysteryList()) {
+						if ( m.getOffset() >= 0 ) verifier.ignore( (int)m.getOffset(), m.getLength() );
+					}
+
+					final RoundTripVerifier.Mismatch mismatch = verifier.verify( parser, new RoundTripVerifier.Encoder() {
+						@Override
+						public void encode( ByteBufferWriter out ) throws IOException {
+							parser.writeSavedGame(out, gs);
+						}
+					});
+
+					if ( mismatch != null ) {
+						log.error("Mismatch on mock write - Unable to assure valid parsing");
+						SwingUtilities.invokeLater(new Runnable() {
+							public void run() {
+								showParserErrorDialog( "Saved Game", mismatch );
+							}
+						});
+					}
+				}
+				catch ( Exception e ) {
+					log.error( "Error verifying saved game", e );
+				}
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+	}
+
 	private void initCheckboxIcons() {
 
 		log.trace( "Initialising checkbox locked icon" );
@@ -238,23 +388,21 @@ public class FTLFrame extends JFrame {
 		Graphics g = iconShadeImage.getGraphics();
 		g.setColor( new Color(0, 0, 0, 150) );
 		g.fillRect(0, 0, maxIconWidth, maxIconHeight);
-		InputStream stream = null;
 		try {
-			stream = DataManager.get().getResourceInputStream("img/customizeUI/box_lock_on.png");
-			BufferedImage lock = ImageIO.read( stream );
+			BufferedImage lock = ImageCache.get().getImage("img/customizeUI/box_lock_on.png");
 			int x = (maxIconWidth-lock.getWidth()) / 2;
 			int y = (maxIconHeight-lock.getHeight()) / 2;
 			g.drawImage(lock, x, y, null);
 		} catch (IOException e) {
 			log.error( "Error reading lock image" , e );
-		}	finally {
-			try {if (stream != null) stream.close();}
-			catch (IOException f) {}
 		}
 	}
 	
-	public Image getScaledImage( InputStream in ) throws IOException {
-		BufferedImage img = ImageIO.read( in );
+	/**
+	 * Returns an image from resource.dat, shrunk to fit an icon.
+	 */
+	public Image getScaledImage( String innerPath ) throws IOException {
+		BufferedImage img = ImageCache.get().getImage( innerPath );
 		int width = img.getWidth();
 		int height = img.getHeight();
 		
@@ -268,20 +416,16 @@ public class FTLFrame extends JFrame {
 			width /= height/maxIconHeight;
 			height = maxIconHeight;
 		}
-		Image scaled = img.getScaledInstance(width, height, Image.SCALE_SMOOTH);
-		return scaled;
+		return ImageCache.get().getSmoothScaledImage( innerPath, width, height );
 	}
 
 	public ImageIcon getCrewIcon(String race) {
 		if (race == null || race.length() == 0) return null;
 
 		ImageIcon result = null;
-		int offsetX = 0, offsetY = 0, w = 35, h = 35;
-		InputStream in = null;
+		int w = 35, h = 35;
 		try {
-			in = DataManager.get().getResourceInputStream("img/people/"+ race +"_player_yellow.png");
-			BufferedImage bigImage = ImageIO.read( in );
-			BufferedImage croppedImage = bigImage.getSubimage(offsetX, offsetY, w, h);
+			BufferedImage croppedImage = SpriteAtlas.get("img/people/"+ race +"_player_yellow.png", w, h).getFrame(0, 0);
 
 			// Shrink the crop area until non-transparent pixels are hit.
 			int lowX = Integer.MAX_VALUE, lowY = Integer.MAX_VALUE;
@@ -309,20 +453,14 @@ public class FTLFrame extends JFrame {
 
 		} catch (IOException e) {
 			log.error( "Failed to load and crop race ("+ race +")", e );
-
-		} finally {
-			try {if (in != null) in.close();}
-			catch (IOException f) {}
-    }
+		}
 		return result;
 	}
 
 	
 	public void setCheckboxIcons( JCheckBox box, String baseImagePath ) {
-		InputStream stream = null;
 		try {
-			stream = DataManager.get().getResourceInputStream(baseImagePath);
-			Image scaled = getScaledImage(stream);
+			Image scaled = getScaledImage(baseImagePath);
 			int scaledYoffset = (maxIconHeight-scaled.getHeight(null))/2;
 			BufferedImage unlocked = new BufferedImage(maxIconWidth, maxIconHeight, BufferedImage.TYPE_INT_ARGB);
 			unlocked.getGraphics().drawImage(scaled, 0, scaledYoffset, null);
@@ -334,10 +472,6 @@ public class FTLFrame extends JFrame {
 			
 		} catch (IOException e) {
 			log.error( "Error reading checkbox image (" + baseImagePath + ")" , e );
-
-		}	finally {
-			try {if (stream != null) stream.close();}
-			catch (IOException f) {}
 		}
 	}
 	
@@ -375,64 +509,31 @@ public class FTLFrame extends JFrame {
 			public void actionPerformed(ActionEvent e) {
 				log.trace( "Open profile button clicked" );
 				if ( fc.showOpenDialog(FTLFrame.this) == JFileChooser.APPROVE_OPTION ) {
-					RandomAccessFile raf = null;
-					InputStream in = null;
 					try {
 						log.trace( "File selected: " + fc.getSelectedFile().getAbsolutePath() );
 						
-						// Read whole file so we can hash it
-						raf = new RandomAccessFile( fc.getSelectedFile(), "r" );
-						byte[] data = new byte[(int)raf.length()];
-						raf.readFully(data);
-						raf.close();
+						// Read the file
+						RoundTripVerifier verifier = new RoundTripVerifier();
+						ByteBufferReader in = verifier.read( fc.getSelectedFile() );
 						
-						MessageDigest md = MessageDigest.getInstance("MD5");
-						byte[] readHash = md.digest(data);
-						
-						in = new ByteArrayInputStream(data);
 						// Parse file data
-						ProfileParser ftl = new ProfileParser();
-						Profile p = ftl.readProfile(in);
-						in.close();
+						final ProfileParser ftl = new ProfileParser();
+						Profile p = ftl.readProfile( in );
 						
 						FTLFrame.this.loadProfile(p);
 						
-						// Perform mock write
-						ByteArrayOutputStream out = new ByteArrayOutputStream();
-						FTLFrame.this.updateProfile(profile);
-						ftl.writeProfile(out, profile);
-						out.close();
-						
-						// Hash result
-						byte[] outData = out.toByteArray();
-						md.reset();
-						byte[] writeHash = md.digest(outData);
-						
-						// Compare
-						for (int i = 0; i < readHash.length; i++) {
-							if ( readHash[i] != writeHash[i] ) {
-								log.error("Hash fail on mock write - Unable to assure valid parsing");
-								
-								String hex = "";
-								for (int j = 0; j < data.length; j++) {
-									hex += String.format("%02x", data[j]);
-									if ( (j+1) % 32 == 0 )
-										hex +="\n";
-								}
-								
-								String errText = "<b>FTL Profile Editor has detected that it cannot interpret your profile correctly.<br/>" +
-										"Using this app may result in loss of stats/achievements.</b>" +
-										"<br/><br/>" +
-										"Please copy (Ctrl-A, Ctrl-C) the following text and paste it into a new bug report <a href='"+bugReportUrl+"'>here</a> " +
-										"(GitHub signup is free) or post to the FLT forums <a href='"+forumThreadUrl+"'>here</a> (Signup also free)." +
-										"<br/>If using GitHub, set the issue title as \"Profile Parser Error\"<br/><br/>I will fix the problem and release a new version as soon as I can :)" +
-										"<br/><br/><pre>" + hex + "</pre>";
-								
-								JDialog failDialog = createHtmlDialog( "Profile Parser Error", errText );
-								failDialog.setVisible(true);
-
-								break;
+						// Perform mock write and compare
+						RoundTripVerifier.Mismatch mismatch = verifier.verify( ftl, new RoundTripVerifier.Encoder() {
+							@Override
+							public void encode( ByteBufferWriter out ) throws IOException {
+								FTLFrame.this.updateProfile(profile);
+								ftl.writeProfile(out, profile);
 							}
+						});
+						
+						if ( mismatch != null ) {
+							log.error("Mismatch on mock write - Unable to assure valid parsing");
+							showParserErrorDialog( "Profile", mismatch );
 						}
 						
 						log.trace("Read completed successfully");
@@ -440,11 +541,6 @@ public class FTLFrame extends JFrame {
 					} catch( Exception f ) {
 						log.error( "Error reading profile", f );
 						showErrorDialog( "Error reading profile:\n" + f.getMessage() );
-					} finally {
-						try {if (raf != null) raf.close();}
-						catch (IOException g) {}
-						try {if (in != null) in.close();}
-						catch (IOException g) {}
 					}
 				} else {
 					log.trace("Open dialog cancelled");
@@ -460,21 +556,18 @@ public class FTLFrame extends JFrame {
 			public void actionPerformed(ActionEvent e) {
 				log.trace( "Save profile button clicked" );
 				if ( fc.showSaveDialog(FTLFrame.this) == JFileChooser.APPROVE_OPTION ) {
-					FileOutputStream out = null;
 					try {
 						File file = fc.getSelectedFile();
 						log.trace("File selected: " + file.getAbsolutePath());
 						ProfileParser ftl = new ProfileParser();
-						out = new FileOutputStream( file );
+						ByteBufferWriter out = new ByteBufferWriter( (int)file.length() );
 						FTLFrame.this.updateProfile(profile);
 						ftl.writeProfile(out, profile);
+						out.writeToFile( file );
 						
 					} catch( IOException f ) {
 						log.error( "Error writing profile", f );
 						showErrorDialog( "Error saving profile:\n" + f.getMessage() );
-					} finally {
-						try {if (out != null) out.close();}
-						catch (IOException g) {}
 					}
 				} else {
 					log.trace( "Save dialog cancelled" );
@@ -522,22 +615,10 @@ public class FTLFrame extends JFrame {
 				extractChooser.setMultiSelectionEnabled(false);
 
 				if ( extractChooser.showSaveDialog(FTLFrame.this) == JFileChooser.APPROVE_OPTION ) {
-					try {
-						
-						File f = extractChooser.getSelectedFile();
-						log.trace("Dir selected: " + f.getAbsolutePath());
+					File f = extractChooser.getSelectedFile();
+					log.trace("Dir selected: " + f.getAbsolutePath());
 
-						JOptionPane.showMessageDialog(FTLFrame.this, "This may take a few seconds.\nClick OK to proceed.", "About to Extract", JOptionPane.PLAIN_MESSAGE);
-
-						DataManager.get().unpackData(f);
-						DataManager.get().unpackResources(f);
-
-						JOptionPane.showMessageDialog(FTLFrame.this, "All dat content extracted successfully.", "Extraction Complete", JOptionPane.PLAIN_MESSAGE);
-						
-					} catch( IOException ex ) {
-						log.error("Error extracting dat", ex);
-						showErrorDialog("Error extracting dat:\n" + ex.getMessage());
-					}
+					extractDats(f);
 				} else
 					log.trace("Extract dialog cancelled");
 			}
@@ -593,8 +674,14 @@ public class FTLFrame extends JFrame {
 						log.trace( "File selected: " + fc.getSelectedFile().getAbsolutePath() );
 
 						SavedGameParser parser = new SavedGameParser();
-						SavedGameParser.SavedGameState gs = parser.readSavedGame( fc.getSelectedFile() );
+						if ( parseStats != null ) {
+							parseStats.reset();
+							parser.setParseStats( parseStats );
+						}
+						SavedGameParser.SavedGameState gs = parser.readSavedGameLazily( fc.getSelectedFile() );
 						loadGameState( gs );
+						if ( parseStatsPanel != null ) parseStatsPanel.setParseStats( parseStats );
+						if ( verifySavedGames ) verifySavedGame( fc.getSelectedFile() );
 
 						log.trace( "Read completed successfully" );
 
@@ -631,21 +718,20 @@ public class FTLFrame extends JFrame {
 				if ( gameState == null ) return;
 
 				if ( fc.showSaveDialog(FTLFrame.this) == JFileChooser.APPROVE_OPTION ) {
-					FileOutputStream out = null;
 					try {
 						File file = fc.getSelectedFile();
 						log.trace("File selected: " + file.getAbsolutePath());
 						SavedGameParser parser = new SavedGameParser();
-						out = new FileOutputStream( file );
+						parser.setParseStats( parseStats );
+						ByteBufferWriter out = new ByteBufferWriter( (int)file.length() );
 						FTLFrame.this.updateGameState(gameState);
 						parser.writeSavedGame(out, gameState);
+						out.writeToFile( file );
+						if ( parseStatsPanel != null ) parseStatsPanel.setParseStats( parseStats );
 						
 					} catch( IOException f ) {
 						log.error( "Error writing game state", f );
 						showErrorDialog( "Error saving game state:\n" + f.getMessage() );
-					} finally {
-						try {if (out != null) out.close();}
-						catch (IOException g) {}
 					}
 				} else {
 					log.trace( "Save dialog cancelled" );
@@ -680,7 +766,7 @@ public class FTLFrame extends JFrame {
 						}
 
 						out = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( file ) ) );
-						out.write(gameState.toString());
+						gameState.dump( new DumpWriter(out) );
 						out.close();
 						
 					} catch( IOException f ) {
@@ -964,6 +1050,32 @@ public class FTLFrame extends JFrame {
 		loadGameState(gs);
 	}
 
+	/**
+	 * Toggles recording saved games' per-section timings and byte
+	 * counts, shown in an extra tab. Off by default.
+	 */
+	public void setParseStatsEnabled( boolean b ) {
+		if ( b == (parseStats != null) ) return;
+
+		if ( b ) {
+			parseStats = new ParseStats();
+			parseStatsPanel = new ParseStatsPanel(this);
+			savedGameTabsPane.add( "Parse Stats", parseStatsPanel );
+		} else {
+			savedGameTabsPane.remove( parseStatsPanel );
+			parseStatsPanel = null;
+			parseStats = null;
+		}
+	}
+
+	/**
+	 * Toggles checking that opened saved games re-encode to the same
+	 * bytes. Off by default.
+	 */
+	public void setSavedGameVerificationEnabled( boolean b ) {
+		verifySavedGames = b;
+	}
+
 	public void setStatusText( String text ) {
 		if (text.length() > 0)
 			statusLbl.setText(text);
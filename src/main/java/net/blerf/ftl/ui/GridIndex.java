@@ -0,0 +1,103 @@
+package net.blerf.ftl.ui;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+
+/**
+ * A uniform grid over rectangles, for finding what's under a point.
+ *
+ * Each rectangle is filed under every cell it overlaps, so a lookup
+ * only tests the few rectangles sharing the point's cell. With cells
+ * about the size of the things indexed, that's roughly constant time
+ * no matter how many there are.
+ *
+ * Where rectangles overlap, the one added first wins, like a linear
+ * scan in insertion order would.
+ *
+ * Rectangles are copied when added: changing one afterward won't
+ * move it in the grid. Clear and re-add instead.
+ */
+public class GridIndex<T> {
+
+	private static class Entry<T> {
+		public final Rectangle bounds;
+		public final T value;
+
+		public Entry( Rectangle bounds, T value ) {
+			this.bounds = bounds;
+			this.value = value;
+		}
+	}
+
+	private HashMap<Long, ArrayList<Entry<T>>> cells = new HashMap<Long, ArrayList<Entry<T>>>();
+	private int cellSize;
+	private int count = 0;
+
+
+	public GridIndex( int cellSize ) {
+		if ( cellSize <= 0 ) throw new IllegalArgumentException( "Cell size must be positive: "+ cellSize );
+		this.cellSize = cellSize;
+	}
+
+	public void clear() {
+		cells.clear();
+		count = 0;
+	}
+
+	/** Returns the number of rectangles added. */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Adds a rectangle. Empty rectangles are ignored.
+	 */
+	public void add( Rectangle bounds, T value ) {
+		if ( bounds.isEmpty() ) return;
+
+		Entry<T> entry = new Entry<T>( new Rectangle(bounds), value );
+		count++;
+		int minX = getCell( bounds.x );
+		int minY = getCell( bounds.y );
+		int maxX = getCell( bounds.x + bounds.width - 1 );
+		int maxY = getCell( bounds.y + bounds.height - 1 );
+
+		for (int cy=minY; cy <= maxY; cy++) {
+			for (int cx=minX; cx <= maxX; cx++) {
+				Long key = getKey( cx, cy );
+				ArrayList<Entry<T>> cell = cells.get( key );
+				if ( cell == null ) {
+					cell = new ArrayList<Entry<T>>( 2 );
+					cells.put( key, cell );
+				}
+				cell.add( entry );
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of the first-added rectangle containing a
+	 * point, or null.
+	 */
+	public T get( int x, int y ) {
+		ArrayList<Entry<T>> cell = cells.get( getKey( getCell(x), getCell(y) ) );
+		if ( cell == null ) return null;
+
+		// Entries were appended in order, so the first hit is the earliest.
+		for (Entry<T> entry : cell) {
+			if ( entry.bounds.contains( x, y ) ) return entry.value;
+		}
+		return null;
+	}
+
+	/** Floor division, so negative coordinates get their own cells. */
+	private int getCell( int n ) {
+		return ( n >= 0 ? n / cellSize : (n+1) / cellSize - 1 );
+	}
+
+	private static Long getKey( int cx, int cy ) {
+		return Long.valueOf( ((long)cy << 32) | (cx & 0xFFFFFFFFL) );
+	}
+}
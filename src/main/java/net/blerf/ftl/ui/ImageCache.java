@@ -0,0 +1,289 @@
+package net.blerf.ftl.ui;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.RasterFormatException;
+import java.awt.image.RescaleOp;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import net.blerf.ftl.parser.DataManager;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Decoded images from resource.dat, shared by every panel.
+ *
+ * Images are keyed by inner path plus the transform applied to them
+ * (crop, scale, tint), and weighed by their decoded pixel bytes. When
+ * the total exceeds a budget, least recently used images are evicted.
+ * An image heavier than the whole budget is returned uncached.
+ *
+ * Crops are copied out of their source, so evicting a sheet actually
+ * frees it. Returned images are shared: draw from them, or copy them,
+ * but don't modify them.
+ *
+ * This is thread-safe. Decoding happens outside the lock, so two
+ * threads missing on the same key may both decode it.
+ */
+public class ImageCache {
+
+	private static final Logger log = LogManager.getLogger(ImageCache.class);
+
+	public static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+
+	private static final ImageCache instance = new ImageCache( DEFAULT_BUDGET );
+
+	/** Returns the application-wide cache. */
+	public static ImageCache get() {
+		return instance;
+	}
+
+	private LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<String, BufferedImage>( 64, 0.75f, true );
+	private long budget;
+	private long weight = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+
+	public ImageCache( long budget ) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Sets the maximum decoded pixel bytes to keep, evicting as needed.
+	 */
+	public synchronized void setBudget( long budget ) {
+		this.budget = budget;
+		trim();
+	}
+
+	public synchronized long getBudget() { return budget; }
+	public synchronized long getWeight() { return weight; }
+	public synchronized int size() { return images.size(); }
+	public synchronized long getHitCount() { return hitCount; }
+	public synchronized long getMissCount() { return missCount; }
+	public synchronized long getEvictionCount() { return evictionCount; }
+
+	/** Drops every image, keeping the counters. */
+	public synchronized void clear() {
+		images.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Returns an image as decoded.
+	 */
+	public BufferedImage getImage( String innerPath ) throws IOException {
+		BufferedImage result = lookup( innerPath );
+		if ( result != null ) return result;
+
+		return store( innerPath, decode( innerPath ) );
+	}
+
+	/**
+	 * Returns an image converted for fast drawing on the screen.
+	 *
+	 * This is meant for sprite sheets, which are sliced into views
+	 * rather than copied (see SpriteAtlas). The decoded original
+	 * isn't cached alongside it. Without a display, the decoded image
+	 * is returned as is.
+	 */
+	public BufferedImage getCompatibleImage( String innerPath ) throws IOException {
+		String key = innerPath +"#compatible";
+		BufferedImage result = lookup( key );
+		if ( result != null ) return result;
+
+		result = decode( innerPath );
+		if ( !GraphicsEnvironment.isHeadless() ) {
+			GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+			if ( !result.getColorModel().equals( gc.getColorModel(result.getTransparency()) ) ) {
+				BufferedImage compatibleImage = gc.createCompatibleImage( result.getWidth(), result.getHeight(), result.getTransparency() );
+				Graphics2D g2d = compatibleImage.createGraphics();
+				g2d.drawImage( result, 0, 0, null );
+				g2d.dispose();
+				result = compatibleImage;
+			}
+		}
+
+		return store( key, result );
+	}
+
+	/**
+	 * Returns a rectangular area of an image.
+	 *
+	 * @throws RasterFormatException if the area is out of bounds
+	 */
+	public BufferedImage getCroppedImage( String innerPath, int x, int y, int w, int h ) throws IOException {
+		String key = innerPath +"#crop="+ x +","+ y +","+ w +","+ h;
+		BufferedImage result = lookup( key );
+		if ( result != null ) return result;
+
+		BufferedImage bigImage = getImage( innerPath );
+		BufferedImage subImage = bigImage.getSubimage( x, y, w, h );
+
+		// Copy, so the crop doesn't pin the whole sheet in memory.
+		// Keep a standard type where possible, since custom ones draw slowly.
+		int type = bigImage.getType();
+		if ( type != BufferedImage.TYPE_CUSTOM && type != BufferedImage.TYPE_BYTE_BINARY && type != BufferedImage.TYPE_BYTE_INDEXED ) {
+			result = new BufferedImage( w, h, type );
+			subImage.copyData( result.getRaster() );
+		} else {
+			WritableRaster raster = bigImage.getColorModel().createCompatibleWritableRaster( w, h );
+			subImage.copyData( raster );
+			result = new BufferedImage( bigImage.getColorModel(), raster, bigImage.isAlphaPremultiplied(), null );
+		}
+
+		return store( key, result );
+	}
+
+	/**
+	 * Returns an image scaled with bilinear interpolation.
+	 *
+	 * If the dimensions are non-positive or already match, the
+	 * original image is returned.
+	 */
+	public BufferedImage getScaledImage( String innerPath, int w, int h ) throws IOException {
+		BufferedImage origImage = getImage( innerPath );
+		if ( w <= 0 || h <= 0 || (origImage.getWidth() == w && origImage.getHeight() == h) )
+			return origImage;
+
+		String key = innerPath +"#scale="+ w +","+ h;
+		BufferedImage result = lookup( key );
+		if ( result != null ) return result;
+
+		result = new BufferedImage( w, h, Transparency.TRANSLUCENT );
+		Graphics2D g2d = result.createGraphics();
+		g2d.setRenderingHint( RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR );
+		g2d.drawImage( origImage, 0, 0, w, h, null );
+		g2d.dispose();
+
+		return store( key, result );
+	}
+
+	/**
+	 * Returns an image shrunk with area averaging, for downscaling
+	 * large images to icons without aliasing.
+	 */
+	public BufferedImage getSmoothScaledImage( String innerPath, int w, int h ) throws IOException {
+		BufferedImage origImage = getImage( innerPath );
+		if ( w <= 0 || h <= 0 || (origImage.getWidth() == w && origImage.getHeight() == h) )
+			return origImage;
+
+		String key = innerPath +"#smooth="+ w +","+ h;
+		BufferedImage result = lookup( key );
+		if ( result != null ) return result;
+
+		// A BufferedImage's scaled instance is produced synchronously.
+		Image scaled = origImage.getScaledInstance( w, h, Image.SCALE_SMOOTH );
+		result = new BufferedImage( w, h, BufferedImage.TYPE_INT_ARGB );
+		Graphics2D g2d = result.createGraphics();
+		g2d.drawImage( scaled, 0, 0, null );
+		g2d.dispose();
+
+		return store( key, result );
+	}
+
+	/**
+	 * Returns a scaled image with its color components multiplied.
+	 *
+	 * @param factors red, green, blue, and alpha multipliers
+	 */
+	public BufferedImage getTintedImage( String innerPath, int w, int h, float[] factors ) throws IOException {
+		StringBuilder keyBuf = new StringBuilder( innerPath ).append( "#scale=" ).append( w ).append( "," ).append( h ).append( "#tint=" );
+		for (int i=0; i < factors.length; i++) {
+			if ( i > 0 ) keyBuf.append( "," );
+			keyBuf.append( factors[i] );
+		}
+		String key = keyBuf.toString();
+		BufferedImage result = lookup( key );
+		if ( result != null ) return result;
+
+		BufferedImage scaledImage = getScaledImage( innerPath, w, h );
+		BufferedImage canvas = new BufferedImage( scaledImage.getWidth(), scaledImage.getHeight(), BufferedImage.TYPE_INT_ARGB );
+		Graphics2D g2d = canvas.createGraphics();
+		g2d.drawImage( scaledImage, 0, 0, null );
+		g2d.dispose();
+		RescaleOp op = new RescaleOp( factors, new float[factors.length], null );
+		result = op.filter( canvas, null );
+
+		return store( key, result );
+	}
+
+	private BufferedImage decode( String innerPath ) throws IOException {
+		BufferedImage result = null;
+		InputStream in = null;
+		try {
+			in = DataManager.get().getResourceInputStream( innerPath );
+			result = ImageIO.read( in );
+		}
+		finally {
+			try {if (in != null) in.close();}
+			catch (IOException e) {}
+		}
+		if ( result == null ) throw new IOException( "Unrecognized image format: "+ innerPath );
+		return result;
+	}
+
+	private synchronized BufferedImage lookup( String key ) {
+		BufferedImage result = images.get( key );
+		if ( result != null ) hitCount++;
+		else missCount++;
+		return result;
+	}
+
+	/**
+	 * Adds an image, returning whichever instance ends up cached.
+	 */
+	private synchronized BufferedImage store( String key, BufferedImage image ) {
+		BufferedImage existing = images.get( key );
+		if ( existing != null ) return existing;  // Another thread won.
+
+		long imageWeight = getWeight( image );
+		if ( imageWeight > budget ) {
+			log.debug( "Image too large to cache ("+ imageWeight +" bytes): "+ key );
+			return image;
+		}
+		images.put( key, image );
+		weight += imageWeight;
+		trim();
+		return image;
+	}
+
+	private void trim() {
+		Iterator<Map.Entry<String, BufferedImage>> it = images.entrySet().iterator();
+		while ( weight > budget && it.hasNext() ) {
+			weight -= getWeight( it.next().getValue() );
+			it.remove();
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Returns the bytes backing an image's pixels.
+	 */
+	private static long getWeight( BufferedImage image ) {
+		DataBuffer db = image.getRaster().getDataBuffer();
+		return (long)db.getSize() * db.getNumBanks() * DataBuffer.getDataTypeSize( db.getDataType() ) / 8;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format( "%d images, %d/%d KiB, %d hits, %d misses, %d evictions", images.size(), weight/1024, budget/1024, hitCount, missCount, evictionCount );
+	}
+}
@@ -0,0 +1,105 @@
+package net.blerf.ftl.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+
+import net.blerf.ftl.parser.ParseStats;
+import net.blerf.ftl.ui.FTLFrame;
+import net.blerf.ftl.ui.StatusbarMouseListener;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Shows per-section byte counts and timings for the current saved
+ * game, with a button to export them as CSV.
+ */
+public class ParseStatsPanel extends JPanel {
+
+	private static final Logger log = LogManager.getLogger(ParseStatsPanel.class);
+
+	private FTLFrame frame;
+
+	private JTextArea statsArea = null;
+	private ParseStats parseStats = null;
+
+	public ParseStatsPanel( FTLFrame frame ) {
+		super( new BorderLayout() );
+
+		this.frame = frame;
+
+		statsArea = new JTextArea("");
+		statsArea.setEditable(false);
+		statsArea.setFont( new Font( "Monospaced", Font.PLAIN, statsArea.getFont().getSize() ) );
+		statsArea.setBackground( new Color(212, 208, 200) );
+		JScrollPane statsScrollPane = new JScrollPane( statsArea );
+		this.add( statsScrollPane, BorderLayout.CENTER );
+
+		JButton exportButton = new JButton("Export CSV...");
+		exportButton.addActionListener( new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				exportStats();
+			}
+		});
+		exportButton.addMouseListener( new StatusbarMouseListener(frame, "Save these stats as CSV, for offline analysis.") );
+		JPanel buttonPanel = new JPanel();
+		buttonPanel.add( exportButton );
+		this.add( buttonPanel, BorderLayout.SOUTH );
+	}
+
+	/**
+	 * Shows stats, refreshing if they're the same instance as before.
+	 */
+	public void setParseStats( ParseStats parseStats ) {
+		this.parseStats = parseStats;
+		statsArea.setText( (parseStats != null ? parseStats.toString() : "") );
+		statsArea.setCaretPosition(0);
+		statsArea.repaint();
+	}
+
+	private void exportStats() {
+		log.trace( "Export parse stats button clicked" );
+		if ( parseStats == null ) return;
+
+		JFileChooser exportChooser = new JFileChooser();
+		ExtensionFileFilter csvFilter = new ExtensionFileFilter("CSV Files (*.csv)", new String[] {".csv"});
+		exportChooser.addChoosableFileFilter( csvFilter );
+		if ( exportChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION ) {
+			log.trace( "Export dialog cancelled" );
+			return;
+		}
+
+		File file = exportChooser.getSelectedFile();
+		if ( !file.exists() && exportChooser.getFileFilter() == csvFilter && !csvFilter.accept(file) ) {
+			file = new File( file.getAbsolutePath() + csvFilter.getPrimarySuffix() );
+		}
+
+		BufferedWriter out = null;
+		try {
+			out = new BufferedWriter( new FileWriter(file) );
+			parseStats.writeCsv( out );
+		} catch ( IOException f ) {
+			log.error( "Error exporting parse stats", f );
+			JOptionPane.showMessageDialog(frame, "Error exporting parse stats:\n" + f.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+		} finally {
+			try {if (out != null) out.close();}
+			catch (IOException g) {}
+		}
+	}
+}
@@ -6,7 +6,6 @@ import java.awt.GridLayout;
 import java.awt.Image;
 import java.awt.Insets;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -80,18 +79,10 @@ public class ProfileStatsPanel extends JPanel {
 		topScoresPanel.removeAll();
 		int i = 0;
 		for ( Score s : p.getStats().getTopScores() ) {
-			InputStream stream = null;
-			try {
-				ShipBlueprint ship = DataManager.get().getShip( s.getShipType() );
-				stream = DataManager.get().getResourceInputStream("img/ship/"+ship.getImg()+"_base.png");
-				Image img = frame.getScaledImage( stream );
-				TopScorePanel tsp = new TopScorePanel( ++i, img, s.getShipName(), s.getScore(), s.getSector(), s.getDifficulty() );
-				topScoresPanel.add( tsp );
-
-			}	finally {
-				try {if (stream != null) stream.close();}
-				catch (IOException f) {}
-			}
+			ShipBlueprint ship = DataManager.get().getShip( s.getShipType() );
+			Image img = frame.getScaledImage( "img/ship/"+ship.getImg()+"_base.png" );
+			TopScorePanel tsp = new TopScorePanel( ++i, img, s.getShipName(), s.getScore(), s.getSector(), s.getDifficulty() );
+			topScoresPanel.add( tsp );
 		}
 
 		Stats stats = p.getStats();
@@ -3,6 +3,8 @@ package net.blerf.ftl.ui;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Font;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,7 +16,12 @@ import javax.swing.BoxLayout;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.text.DefaultCaret;
 
+import net.blerf.ftl.parser.ByteBufferReader;
+import net.blerf.ftl.parser.ByteBufferWriter;
+import net.blerf.ftl.parser.DumpWriter;
 import net.blerf.ftl.parser.SavedGameParser;
 import net.blerf.ftl.ui.FTLFrame;
 import net.blerf.ftl.ui.StatusbarMouseListener;
@@ -23,13 +30,28 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
+/**
+ * Shows a saved game's dump.
+ *
+ * The dump is written on a background thread and appended in chunks
+ * as it's produced, so large saves neither block the EDT nor need
+ * the whole dump built as one String first.
+ *
+ * Other panels keep editing the game state on the EDT, so the thread
+ * never touches it. The state is encoded on the EDT, and the thread
+ * dumps its own copy decoded from those bytes.
+ */
 public class SavedGameDumpPanel extends JPanel {
 
 	private static final Logger log = LogManager.getLogger(SavedGameDumpPanel.class);
 
+	/** Chars to collect before handing them to the EDT. */
+	private static final int CHUNK_SIZE = 32 * 1024;
+
 	private FTLFrame frame;
 
 	private JTextArea dumpArea = null;
+	private volatile int dumpGeneration = 0;
 
 	public SavedGameDumpPanel( FTLFrame frame ) {
 		super( new BorderLayout() );
@@ -41,13 +63,105 @@ public class SavedGameDumpPanel extends JPanel {
 		dumpArea.setFont( new Font( "Monospaced", Font.PLAIN, dumpArea.getFont().getSize() ) );
 		//dumpArea.setOpaque(false);
 		dumpArea.setBackground( new Color(212, 208, 200) );
+		// Keep the view at the top while chunks are appended.
+		((DefaultCaret)dumpArea.getCaret()).setUpdatePolicy( DefaultCaret.NEVER_UPDATE );
 		JScrollPane dumpScrollPane = new JScrollPane( dumpArea );
 		this.add( dumpScrollPane, BorderLayout.CENTER );
 	}
 
+	/**
+	 * Clears the dump and starts writing a new one, abandoning any
+	 * dump still in progress.
+	 */
 	public void setGameState( SavedGameParser.SavedGameState gameState ) {
-		dumpArea.setText( gameState.toString() );
+		final int generation = ++dumpGeneration;
 		dumpArea.setCaretPosition(0);
-		dumpArea.repaint();
+		dumpArea.setText("");
+		if ( gameState == null ) return;
+
+		final ByteBuffer snapshot;
+		try {
+			ByteBufferWriter out = new ByteBufferWriter();
+			new SavedGameParser().writeSavedGame( out, gameState );
+			snapshot = out.getBuffer();
+		}
+		catch ( IOException e ) {
+			log.error( "Error encoding game state to dump", e );
+			return;
+		}
+
+		Thread t = new Thread("DumpSavedGame") {
+			@Override
+			public void run() {
+				ChunkAppender chunks = new ChunkAppender( generation );
+				try {
+					SavedGameParser.SavedGameState copy = new SavedGameParser().readSavedGameLazily( new ByteBufferReader(snapshot) );
+					copy.dump( new DumpWriter(chunks) );
+					chunks.flush();
+				}
+				catch ( AbandonedException e ) {
+					return;
+				}
+				catch ( Exception e ) {
+					log.error( "Error dumping game state", e );
+				}
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+	}
+
+
+
+	/**
+	 * Collects text and appends it to the dump area on the EDT.
+	 *
+	 * Once a newer dump has started, flushing throws an
+	 * AbandonedException, ending the stale dump early.
+	 */
+	private class ChunkAppender implements Appendable {
+		private final int generation;
+		private StringBuilder buf = new StringBuilder( CHUNK_SIZE );
+
+		public ChunkAppender( int generation ) {
+			this.generation = generation;
+		}
+
+		@Override
+		public Appendable append( CharSequence csq ) throws IOException {
+			buf.append( csq );
+			if ( buf.length() >= CHUNK_SIZE ) flush();
+			return this;
+		}
+
+		@Override
+		public Appendable append( CharSequence csq, int start, int end ) throws IOException {
+			buf.append( csq, start, end );
+			if ( buf.length() >= CHUNK_SIZE ) flush();
+			return this;
+		}
+
+		@Override
+		public Appendable append( char c ) throws IOException {
+			buf.append( c );
+			if ( buf.length() >= CHUNK_SIZE ) flush();
+			return this;
+		}
+
+		public void flush() {
+			if ( generation != dumpGeneration ) throw new AbandonedException();
+			if ( buf.length() == 0 ) return;
+
+			final String chunk = buf.toString();
+			buf.setLength( 0 );
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					if ( generation == dumpGeneration ) dumpArea.append( chunk );
+				}
+			});
+		}
+	}
+
+	private static class AbandonedException extends RuntimeException {
 	}
 }
@@ -18,11 +18,13 @@ import java.awt.Image;
 import java.awt.Insets;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.RenderingHints;
 import java.awt.Stroke;
 import java.awt.Transparency;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
@@ -30,24 +32,23 @@ import java.awt.event.MouseMotionAdapter;
 import java.awt.font.LineMetrics;
 import java.awt.image.BufferedImage;
 import java.awt.image.RasterFormatException;
-import java.awt.image.RescaleOp;
-import java.io.InputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JComponent;
-import javax.swing.ImageIcon;
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
@@ -67,7 +68,10 @@ import net.blerf.ftl.parser.DataManager;
 import net.blerf.ftl.parser.SavedGameParser;
 import net.blerf.ftl.ui.FieldEditorPanel;
 import net.blerf.ftl.ui.FTLFrame;
+import net.blerf.ftl.ui.GridIndex;
+import net.blerf.ftl.ui.ImageCache;
 import net.blerf.ftl.ui.RegexDocument;
+import net.blerf.ftl.ui.SpriteAtlas;
 import net.blerf.ftl.ui.StatusbarMouseListener;
 import net.blerf.ftl.xml.ShipBlueprint;
 import net.blerf.ftl.xml.ShipChassis;
@@ -80,20 +84,15 @@ import org.apache.logging.log4j.Logger;
 
 public class SavedGameFloorplanPanel extends JPanel {
 
-	private static final Integer WEAPON_LAYER = new Integer(5);
-	private static final Integer BASE_LAYER = new Integer(10);
-	private static final Integer FLOOR_LAYER = new Integer(11);
-	private static final Integer ROOM_LAYER = new Integer(12);
-	private static final Integer DECOR_LAYER = new Integer(13);
-	private static final Integer WALL_LAYER = new Integer(15);
-	private static final Integer SYSTEM_LAYER = new Integer(16);
-	private static final Integer BREACH_LAYER = new Integer(17);
-	private static final Integer FIRE_LAYER = new Integer(18);
-	private static final Integer CREW_LAYER = new Integer(30);
-	private static final Integer DOOR_LAYER = new Integer(40);
+	private static final Integer SPRITE_LAYER = new Integer(10);
 	private static final Integer MISC_SELECTION_LAYER = new Integer(50);
 	private static final Integer SQUARE_SELECTION_LAYER = new Integer(60);
 	private static final int squareSize = 35, tileEdge = 1;
+	private static final int RENDER_THREADS = 2;
+	private static final String DOOR_SHEET_PATH = "img/effects/door_sheet.png";
+	private static final String BREACH_SHEET_PATH = "img/effects/breach.png";
+	private static final String FIRE_SHEET_PATH = "img/effects/fire_L1_strip8.png";
+	private static final float[] SYSTEM_OVERLAY_TINT = new float[] { 0.49f, 0.49f, 0.49f, 1f };  // Darken white to gray.
 	private static final Logger log = LogManager.getLogger(SavedGameFloorplanPanel.class);
 
 	private GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
@@ -111,7 +110,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 	private HashMap<Rectangle, Integer> roomRegions = new HashMap<Rectangle, Integer>();
 	private HashMap<Rectangle, Integer> squareRegions = new HashMap<Rectangle, Integer>();
 	private ArrayList<Rectangle> blockedRegions = new ArrayList<Rectangle>();
-	private ArrayList<JComponent> roomDecorations = new ArrayList<JComponent>();
+	private ArrayList<ImageSprite> roomDecorations = new ArrayList<ImageSprite>();
 	private ArrayList<WeaponSprite> weaponSprites = new ArrayList<WeaponSprite>();
 	private ArrayList<RoomSprite> roomSprites = new ArrayList<RoomSprite>();
 	private ArrayList<SystemSprite> systemSprites = new ArrayList<SystemSprite>();
@@ -119,15 +118,22 @@ public class SavedGameFloorplanPanel extends JPanel {
 	private ArrayList<FireSprite> fireSprites = new ArrayList<FireSprite>();
 	private ArrayList<DoorSprite> doorSprites = new ArrayList<DoorSprite>();
 	private ArrayList<CrewSprite> crewSprites = new ArrayList<CrewSprite>();
-	private HashMap<String, HashMap<Rectangle, BufferedImage>> cachedImages = new HashMap<String, HashMap<Rectangle, BufferedImage>>();
+
+	private ExecutorService renderPool = Executors.newFixedThreadPool( RENDER_THREADS, createRenderThreadFactory() );
+	private int renderGeneration = 0;  // Only touched on the EDT.
+	private List<RenderStage> pendingStages = new ArrayList<RenderStage>();
 
 	private JLayeredPane shipPanel = null;
 	private JPanel sidePanel = null;
 	private JScrollPane sideScroll = null;
 
-	private JLabel baseLbl = null;
-	private JLabel floorLbl = null;
-	private JLabel wallLbl = null;
+	private SpriteCanvas spriteCanvas = null;
+	private ImageSprite baseSprite = null;
+	private ImageSprite floorSprite = null;
+	private ImageSprite wallSprite = null;
+	private ArrayList<ImageSprite> baseSprites = new ArrayList<ImageSprite>();
+	private ArrayList<ImageSprite> floorSprites = new ArrayList<ImageSprite>();
+	private ArrayList<ImageSprite> wallSprites = new ArrayList<ImageSprite>();
 	private JLabel crewLbl = null;
 	private SpriteSelector miscSelector = null;
 	private SquareSelector squareSelector = null;
@@ -145,22 +151,41 @@ public class SavedGameFloorplanPanel extends JPanel {
 		sidePanel.setLayout( new BoxLayout(sidePanel, BoxLayout.Y_AXIS) );
 		sidePanel.setBorder( BorderFactory.createEmptyBorder(4, 4, 4, 6) );
 
-		baseLbl = new JLabel();
-		baseLbl.setOpaque(false);
-		baseLbl.setBounds( 0, 0, 50, 50 );
-		shipPanel.add( baseLbl, BASE_LAYER );
-
-		floorLbl = new JLabel();
-		floorLbl.setOpaque(false);
-		floorLbl.setBounds( 0, 0, 50, 50 );
-		shipPanel.add( floorLbl, FLOOR_LAYER );
-
-		wallLbl = new JLabel();
-		wallLbl.setOpaque(false);
-		wallLbl.setBounds( 0, 0, 50, 50 );
-		shipPanel.add( wallLbl, WALL_LAYER );
-
-		miscSelector = new SpriteSelector( new ArrayList[] {weaponSprites, doorSprites} );
+		// Bottom to top.
+		List<List<? extends FloorplanSprite>> spriteLayers = new ArrayList<List<? extends FloorplanSprite>>();
+		spriteLayers.add( weaponSprites );
+		spriteLayers.add( baseSprites );
+		spriteLayers.add( floorSprites );
+		spriteLayers.add( roomSprites );
+		spriteLayers.add( roomDecorations );
+		spriteLayers.add( wallSprites );
+		spriteLayers.add( systemSprites );
+		spriteLayers.add( breachSprites );
+		spriteLayers.add( fireSprites );
+		spriteLayers.add( crewSprites );
+		spriteLayers.add( doorSprites );
+		spriteCanvas = new SpriteCanvas( spriteLayers );
+		spriteCanvas.setBackground( shipPanel.getBackground() );
+		spriteCanvas.setOpaque(true);
+		spriteCanvas.setBounds( 0, 0, 50, 50 );
+		shipPanel.add( spriteCanvas, SPRITE_LAYER );
+
+		baseSprite = new ImageSprite( null );
+		baseSprite.setBounds( 0, 0, 50, 50 );
+		baseSprites.add( baseSprite );
+
+		floorSprite = new ImageSprite( null );
+		floorSprite.setBounds( 0, 0, 50, 50 );
+		floorSprites.add( floorSprite );
+
+		wallSprite = new ImageSprite( null );
+		wallSprite.setBounds( 0, 0, 50, 50 );
+		wallSprites.add( wallSprite );
+
+		List<List<? extends JComponent>> miscLists = new ArrayList<List<? extends JComponent>>();
+		miscLists.add( weaponSprites );
+		miscLists.add( doorSprites );
+		miscSelector = new SpriteSelector( miscLists );
 		miscSelector.setOpaque(false);
 		miscSelector.setBounds( 0, 0, 50, 50 );
 		shipPanel.add( miscSelector, MISC_SELECTION_LAYER );
@@ -338,6 +363,10 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 		ActionListener ctrlListener = new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
+				// Layers still loading would re-add sprites from the game
+				// state after these edits, undoing them.
+				finishRendering();
+
 				Object source = e.getSource();
 				if ( source == selectRoomBtn ) {
 					selectRoom();
@@ -380,7 +409,6 @@ public class SavedGameFloorplanPanel extends JPanel {
 					for (ListIterator<CrewSprite> it = crewSprites.listIterator(); it.hasNext(); ) {
 						CrewSprite crewSprite = it.next();
 						if ( !crewSprite.isPlayerControlled() ) {
-							shipPanel.remove( crewSprite );
 							it.remove();
 						}
 					}
@@ -388,15 +416,11 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 				} else if (source == resetBreachesBtn ) {
 					clearSidePanel();
-					for (BreachSprite breachSprite : breachSprites)
-						shipPanel.remove( breachSprite );
 					breachSprites.clear();
 					shipPanel.repaint();
 
 				} else if (source == resetFiresBtn ) {
 					clearSidePanel();
-					for (FireSprite fireSprite : fireSprites)
-						shipPanel.remove( fireSprite );
 					fireSprites.clear();
 					shipPanel.repaint();
 				}
@@ -460,55 +484,46 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 	public void setGameState( SavedGameParser.SavedGameState gameState ) {
 		String prevGfxBaseName = shipGfxBaseName;
+		if ( !pendingStages.isEmpty() ) prevGfxBaseName = null;  // The ship's graphics may be incomplete.
+		renderGeneration++;
+		pendingStages.clear();
+
 		miscSelector.setVisible( false );
 		miscSelector.setMousePoint( -1, -1 );
+		miscSelector.invalidateIndex();
 		squareSelector.reset();
 		clearSidePanel();
 
-		for (WeaponSprite weaponSprite : weaponSprites)
-			shipPanel.remove( weaponSprite );
 		weaponSprites.clear();
 
-		for (RoomSprite roomSprite : roomSprites)
-			shipPanel.remove( roomSprite );
 		roomSprites.clear();
 
-		for (SystemSprite systemSprite : systemSprites)
-			shipPanel.remove( systemSprite );
 		systemSprites.clear();
 
-		for (BreachSprite breachSprite : breachSprites)
-			shipPanel.remove( breachSprite );
 		breachSprites.clear();
 
-		for (FireSprite fireSprite : fireSprites)
-			shipPanel.remove( fireSprite );
 		fireSprites.clear();
 
-		for (DoorSprite doorSprite : doorSprites)
-			shipPanel.remove( doorSprite );
 		doorSprites.clear();
 
-		for (CrewSprite crewSprite : crewSprites)
-			shipPanel.remove( crewSprite );
 		crewSprites.clear();
 
 		if ( gameState == null ) {
+			shipGfxBaseName = null;
 			roomRegions.clear();
 			squareRegions.clear();
+			squareSelector.invalidateIndex();
 			blockedRegions.clear();
-			baseLbl.setIcon(null);
-			floorLbl.setIcon(null);
-
-			for (JComponent roomDecor : roomDecorations)
-				shipPanel.remove( roomDecor );
+			baseSprite.setImage(null);
+			floorSprite.setImage(null);
 			roomDecorations.clear();
+			wallSprite.setImage(null);
 
-			wallLbl.setIcon(null);
+			shipPanel.repaint();
 			return;
 		}
 
-		SavedGameParser.ShipState shipState = gameState.getPlayerShipState();
+		final SavedGameParser.ShipState shipState = gameState.getPlayerShipState();
 		shipBlueprint = DataManager.get().getShip( shipState.getShipBlueprintId() );
 		shipLayout = DataManager.get().getShipLayout( shipState.getShipLayoutId() );
 		shipChassis = DataManager.get().getShipChassis( shipState.getShipLayoutId() );
@@ -516,20 +531,20 @@ public class SavedGameFloorplanPanel extends JPanel {
 		shipReservePowerCapacity = shipState.getReservePowerCapacity();
 		originX = shipChassis.getImageBounds().x * -1;
 		originY = shipChassis.getImageBounds().y * -1;
-		ShipBlueprint.SystemList blueprintSystems = shipBlueprint.getSystemList();
+		final ShipBlueprint.SystemList blueprintSystems = shipBlueprint.getSystemList();
+		final ShipLayout layout = shipLayout;  // The field may change before stages run.
 
 		if ( shipGfxBaseName != prevGfxBaseName ) {
 			// Associate graphical regions with roomIds and squares.
 			roomRegions.clear();
 			squareRegions.clear();
 			for (int i=0; i < shipLayout.getRoomCount(); i++) {
-				EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo(i);
-				int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-				int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
+				int roomLocX = shipLayout.getRoomLocationX( i );
+				int roomLocY = shipLayout.getRoomLocationY( i );
 				int roomX = originX + squareSize * roomLocX;
 				int roomY = originY + squareSize * roomLocY;
-				int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-				int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
+				int squaresH = shipLayout.getRoomSquaresH( i );
+				int squaresV = shipLayout.getRoomSquaresV( i );
 
 				for (int j=0; j < squaresH*squaresV; j++) {
 					int squareX = roomX + tileEdge + (j%squaresH)*squareSize;
@@ -539,6 +554,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 					squareRegions.put( squareRect, j );
 				}
 			}
+			squareSelector.invalidateIndex();
 			// Find squares that don't allow crew in them (medbay's slot).
 			blockedRegions.clear();
 			ShipBlueprint.SystemList.SystemRoom medicalSystem = blueprintSystems.getMedicalRoom();
@@ -550,13 +566,12 @@ public class SavedGameFloorplanPanel extends JPanel {
 					if ( badSquareId >= 0 ) {
 						log.trace(String.format("Found a blocked region: roomId: %2d, squareId: %d", badRoomId, badSquareId) );
 
-						EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo(badRoomId);
-						int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-						int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
+						int roomLocX = shipLayout.getRoomLocationX( badRoomId );
+						int roomLocY = shipLayout.getRoomLocationY( badRoomId );
 						int roomX = originX + squareSize * roomLocX;
 						int roomY = originY + squareSize * roomLocY;
-						int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-						int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
+						int squaresH = shipLayout.getRoomSquaresH( badRoomId );
+						int squaresV = shipLayout.getRoomSquaresV( badRoomId );
 
 						int squareX = roomX + tileEdge + (badSquareId%squaresH)*squareSize;
 						int squareY = roomY + tileEdge + (badSquareId/squaresH)*squareSize;
@@ -566,88 +581,130 @@ public class SavedGameFloorplanPanel extends JPanel {
 				}
 			}
 
+			// Outline the chassis until the fuselage image loads.
+			ShipChassis.ChassisImageBounds chassisBounds = shipChassis.getImageBounds();
+			baseSprite.setImage( createPlaceholderImage( chassisBounds.w, chassisBounds.h ) );
+			baseSprite.setSize( chassisBounds.w, chassisBounds.h );
+			floorSprite.setImage(null);
+			wallSprite.setImage(null);
+			roomDecorations.clear();
+
+			final String basePath = "img/ship/"+ shipGfxBaseName +"_base.png";
+			final String floorPath = "img/ship/"+ shipGfxBaseName +"_floor.png";
 
 			// Load the fuselage image.
-			InputStream in = null;
-			try {
-				in = DataManager.get().getResourceInputStream("img/ship/"+ shipGfxBaseName +"_base.png");
-				BufferedImage baseImage = ImageIO.read( in );
-				in.close();
-				baseLbl.setIcon( new ImageIcon(baseImage) );
-				baseLbl.setSize( new Dimension(baseImage.getWidth(), baseImage.getHeight()) );
+			submitStage( new RenderStage("base") {
+				@Override
+				protected void prepare() throws IOException {
+					ImageCache.get().getImage( basePath );
+				}
 
-			} catch (IOException e) {
-				log.error( "Failed to load ship base image ("+ shipGfxBaseName +")", e );
+				@Override
+				protected void build() {
+					try {
+						BufferedImage baseImage = ImageCache.get().getImage( basePath );
+						baseSprite.setImage( baseImage );
+						baseSprite.setSize( baseImage.getWidth(), baseImage.getHeight() );
 
-			} finally {
-				try {if (in != null) in.close();}
-				catch (IOException f) {}
-	    }
+					} catch (IOException e) {
+						log.error( "Failed to load ship base image ("+ shipGfxBaseName +")", e );
+					}
+				}
+			});
 
 			// Load the interior image.
-			try {
-				in = DataManager.get().getResourceInputStream("img/ship/"+ shipGfxBaseName +"_floor.png");
-				BufferedImage floorImage = ImageIO.read( in );
-				in.close();
-				floorLbl.setIcon( new ImageIcon(floorImage) );
-				floorLbl.setSize( new Dimension(floorImage.getWidth(), floorImage.getHeight()) );
-
-			} catch (IOException e) {
-				log.error( "Failed to load ship floor image ("+ shipGfxBaseName +")", e );
-
-			} finally {
-				try {if (in != null) in.close();}
-				catch (IOException f) {}
-	    }
-
-			for (JComponent roomDecor : roomDecorations)
-				shipPanel.remove( roomDecor );
-			roomDecorations.clear();
-			for (ShipBlueprint.SystemList.SystemRoom systemRoom : blueprintSystems.getSystemRooms()) {
-				String roomImgPath = systemRoom.getImg();
+			submitStage( new RenderStage("floor") {
+				@Override
+				protected void prepare() throws IOException {
+					ImageCache.get().getImage( floorPath );
+				}
 
-				int roomId = systemRoom.getRoomId();
-				EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo(roomId);
-				int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-				int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
-				int roomX = originX + squareSize * roomLocX;
-				int roomY = originY + squareSize * roomLocY;
-				int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-				int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
-
-				if ( roomImgPath != null ) {
-					// Gotta scale because Zoltan #2's got a tall Doors image for a wide room. :/
-					BufferedImage decorImage = getScaledImage( "img/ship/interior/"+ roomImgPath +".png", squaresH*squareSize, squaresV*squareSize );
-					JLabel decorLbl = new JLabel( new ImageIcon(decorImage) );
-					decorLbl.setOpaque(false);
-					decorLbl.setBounds( roomX, roomY, squaresH*squareSize, squaresV*squareSize );
-					roomDecorations.add( decorLbl );
-					shipPanel.add( decorLbl, DECOR_LAYER );
+				@Override
+				protected void build() {
+					try {
+						BufferedImage floorImage = ImageCache.get().getImage( floorPath );
+						floorSprite.setImage( floorImage );
+						floorSprite.setSize( floorImage.getWidth(), floorImage.getHeight() );
+						updateShipPanelSize();
+
+					} catch (IOException e) {
+						log.error( "Failed to load ship floor image ("+ shipGfxBaseName +")", e );
+					}
+				}
+			});
+
+			// Room decorations, scaled to fit.
+			submitStage( new RenderStage("decor") {
+				@Override
+				protected void prepare() throws IOException {
+					for (ShipBlueprint.SystemList.SystemRoom systemRoom : blueprintSystems.getSystemRooms()) {
+						int roomId = systemRoom.getRoomId();
+						if ( systemRoom.getImg() != null ) {
+							int squaresH = layout.getRoomSquaresH( roomId );
+							int squaresV = layout.getRoomSquaresV( roomId );
+							ImageCache.get().getScaledImage( "img/ship/interior/"+ systemRoom.getImg() +".png", squaresH*squareSize, squaresV*squareSize );
+						}
+						if ( systemRoom == blueprintSystems.getTeleporterRoom() ) {
+							ImageCache.get().getScaledImage( "img/ship/interior/teleporter_off.png", 20, 20 );
+						}
+					}
 				}
 
-				if ( systemRoom == blueprintSystems.getTeleporterRoom() ) {
-					for (int s=0; s < squaresH*squaresV; s++) {
-						int decorX = roomX + (s%squaresH)*squareSize + squareSize/2;
-						int decorY = roomY + (s/squaresH)*squareSize + squareSize/2;
-
-						BufferedImage decorImage = getScaledImage( "img/ship/interior/teleporter_off.png", 20, 20 );
-						JLabel decorLbl = new JLabel( new ImageIcon(decorImage) );
-						decorLbl.setOpaque(false);
-						decorLbl.setSize( squaresH*squareSize, squaresV*squareSize );
-						placeSprite( decorX, decorY, decorLbl );
-						roomDecorations.add( decorLbl );
-						shipPanel.add( decorLbl, DECOR_LAYER );
+				@Override
+				protected void build() {
+					for (ShipBlueprint.SystemList.SystemRoom systemRoom : blueprintSystems.getSystemRooms()) {
+						String roomImgPath = systemRoom.getImg();
+
+						int roomId = systemRoom.getRoomId();
+						int roomLocX = layout.getRoomLocationX( roomId );
+						int roomLocY = layout.getRoomLocationY( roomId );
+						int roomX = originX + squareSize * roomLocX;
+						int roomY = originY + squareSize * roomLocY;
+						int squaresH = layout.getRoomSquaresH( roomId );
+						int squaresV = layout.getRoomSquaresV( roomId );
+
+						if ( roomImgPath != null ) {
+							// Gotta scale because Zoltan #2's got a tall Doors image for a wide room. :/
+							BufferedImage decorImage = getScaledImage( "img/ship/interior/"+ roomImgPath +".png", squaresH*squareSize, squaresV*squareSize );
+							ImageSprite decorSprite = new ImageSprite( decorImage );
+							decorSprite.setBounds( roomX, roomY, squaresH*squareSize, squaresV*squareSize );
+							roomDecorations.add( decorSprite );
+						}
+
+						if ( systemRoom == blueprintSystems.getTeleporterRoom() ) {
+							for (int s=0; s < squaresH*squaresV; s++) {
+								int decorX = roomX + (s%squaresH)*squareSize + squareSize/2;
+								int decorY = roomY + (s/squaresH)*squareSize + squareSize/2;
+
+								BufferedImage decorImage = getScaledImage( "img/ship/interior/teleporter_off.png", 20, 20 );
+								ImageSprite decorSprite = new ImageSprite( decorImage );
+								decorSprite.setSize( squaresH*squareSize, squaresV*squareSize );
+								placeSprite( decorX, decorY, decorSprite );
+								roomDecorations.add( decorSprite );
+							}
+						}
 					}
 				}
-			}
+			});
 
-			// Draw walls and floor crevices.
-			BufferedImage wallImage = gc.createCompatibleImage( floorLbl.getIcon().getIconWidth(), floorLbl.getIcon().getIconHeight(), Transparency.BITMASK );
-			Graphics2D wallG = (Graphics2D)wallImage.createGraphics();
-			drawWalls( wallG, originX, originY, shipState, shipLayout );
-			wallG.dispose();
-			wallLbl.setIcon( new ImageIcon(wallImage) );
-			wallLbl.setSize( new Dimension(wallImage.getWidth(), wallImage.getHeight()) );
+			// Draw walls and floor crevices, over an area the floor's size.
+			submitStage( new RenderStage("walls") {
+				@Override
+				protected void prepare() throws IOException {
+					ImageCache.get().getImage( floorPath );
+				}
+
+				@Override
+				protected void build() {
+					Dimension wallSize = getShipImageSize( floorPath );
+					BufferedImage wallImage = gc.createCompatibleImage( wallSize.width, wallSize.height, Transparency.BITMASK );
+					Graphics2D wallG = (Graphics2D)wallImage.createGraphics();
+					drawWalls( wallG, originX, originY, shipState, shipLayout );
+					wallG.dispose();
+					wallSprite.setImage( wallImage );
+					wallSprite.setSize( wallImage.getWidth(), wallImage.getHeight() );
+				}
+			});
 		}
 
 		List<ShipChassis.WeaponMountList.WeaponMount> weaponMounts = shipChassis.getWeaponMountList().mount;
@@ -669,23 +726,21 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 		// Add rooms.
 		for (int i=0; i < shipLayout.getRoomCount(); i++) {
-			EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo(i);
-			int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-			int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
+			int roomLocX = shipLayout.getRoomLocationX( i );
+			int roomLocY = shipLayout.getRoomLocationY( i );
 			int roomX = originX + squareSize * roomLocX;
 			int roomY = originY + squareSize * roomLocY;
-			int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-			int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
+			int squaresH = shipLayout.getRoomSquaresH( i );
+			int squaresV = shipLayout.getRoomSquaresV( i );
 			int oxygen = shipState.getRoom(i).getOxygen();
 
 			RoomSprite roomSprite = new RoomSprite( i, shipState.getRoom(i) );
 			roomSprite.setBounds( roomX, roomY, squaresH*squareSize, squaresV*squareSize );
 			roomSprites.add( roomSprite );
-			shipPanel.add( roomSprite, ROOM_LAYER );
 		}
 
 		// Add systems.
-		ArrayList<String> systemIds = new ArrayList<String>();
+		final ArrayList<String> systemIds = new ArrayList<String>();
 		systemIds.add( SystemBlueprint.ID_PILOT );
 		systemIds.add( SystemBlueprint.ID_DOORS );
 		systemIds.add( SystemBlueprint.ID_SENSORS );
@@ -699,101 +754,138 @@ public class SavedGameFloorplanPanel extends JPanel {
 		systemIds.add( SystemBlueprint.ID_CLOAKING );
 		systemIds.add( SystemBlueprint.ID_ARTILLERY );
 
-		for (String systemId : systemIds) {
-			int[] roomIds = shipBlueprint.getSystemList().getRoomIdBySystemId( systemId );
-			if ( roomIds != null ) {
-				for (int i=0; i < roomIds.length; i++) {
-					EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo( roomIds[i] );
-					int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-					int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
-					int roomX = originX + squareSize * roomLocX;
-					int roomY = originY + squareSize * roomLocY;
-					int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-					int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
-
-					int systemX = roomX + tileEdge + squaresH*squareSize/2;
-					int systemY = roomY + tileEdge + squaresV*squareSize/2;
-
-					SavedGameParser.SystemState systemState = shipState.getSystem( systemId );
-					addSystemSprite( systemX, systemY, systemState );
+		submitStage( new RenderStage("systems") {
+			@Override
+			protected void prepare() throws IOException {
+				for (String systemId : systemIds) {
+					if ( blueprintSystems.getRoomIdBySystemId( systemId ) != null )
+						ImageCache.get().getTintedImage( getSystemOverlayPath(systemId), 32, 32, SYSTEM_OVERLAY_TINT );
 				}
 			}
-		}
 
-		// Add breaches
-		for (Map.Entry<Point, Integer> breachEntry : shipState.getBreachMap().entrySet()) {
-			int breachCoordX = breachEntry.getKey().x-shipLayout.getOffsetX();
-			int breachCoordY = breachEntry.getKey().y-shipLayout.getOffsetY();
-			int breachX = originX+tileEdge + breachCoordX*squareSize + squareSize/2;
-			int breachY = originY+tileEdge + breachCoordY*squareSize + squareSize/2;
+			@Override
+			protected void build() {
+				for (String systemId : systemIds) {
+					int[] roomIds = blueprintSystems.getRoomIdBySystemId( systemId );
+					if ( roomIds == null ) continue;
+
+					for (int i=0; i < roomIds.length; i++) {
+						int roomId = roomIds[i];
+						int roomLocX = shipLayout.getRoomLocationX( roomId );
+						int roomLocY = shipLayout.getRoomLocationY( roomId );
+						int roomX = originX + squareSize * roomLocX;
+						int roomY = originY + squareSize * roomLocY;
+						int squaresH = shipLayout.getRoomSquaresH( roomId );
+						int squaresV = shipLayout.getRoomSquaresV( roomId );
 
-			Rectangle squareRect = null;
-			int roomId = -1;
-			int squareId = -1;
-			for (Map.Entry<Rectangle, Integer> regionEntry : roomRegions.entrySet()) {
-				if ( regionEntry.getKey().contains( breachX, breachY ) ) {
-					squareRect = regionEntry.getKey();
-					roomId = regionEntry.getValue().intValue();
-					break;
+						int systemX = roomX + tileEdge + squaresH*squareSize/2;
+						int systemY = roomY + tileEdge + squaresV*squareSize/2;
+
+						SavedGameParser.SystemState systemState = shipState.getSystem( systemId );
+						addSystemSprite( systemX, systemY, systemState );
+					}
 				}
 			}
-			if ( squareRegions.containsKey(squareRect) )
-				squareId = squareRegions.get(squareRect).intValue();
+		});
+
+		// Add breaches and fires.
+		submitStage( new RenderStage("hazards") {
+			@Override
+			protected void prepare() throws IOException {
+				SpriteAtlas.get( BREACH_SHEET_PATH, 19, 19 );
+				SpriteAtlas.get( FIRE_SHEET_PATH, 32, 32 );
+			}
 
-			addBreachSprite( breachX, breachY, roomId, squareId, breachEntry.getValue().intValue() );
-		}
+			@Override
+			protected void build() {
+				for (Map.Entry<Point, Integer> breachEntry : shipState.getBreachMap().entrySet()) {
+					int breachCoordX = breachEntry.getKey().x-shipLayout.getOffsetX();
+					int breachCoordY = breachEntry.getKey().y-shipLayout.getOffsetY();
+					int breachX = originX+tileEdge + breachCoordX*squareSize + squareSize/2;
+					int breachY = originY+tileEdge + breachCoordY*squareSize + squareSize/2;
 
-		// Add fires.
-		for (int i=0; i < shipLayout.getRoomCount(); i++) {
-			EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo(i);
-			int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-			int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
-			int roomX = originX + squareSize * roomLocX;
-			int roomY = originY + squareSize * roomLocY;
-			int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-			int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
+					int roomId = shipLayout.getRoomIdAt( breachCoordX, breachCoordY );
+					int squareId = shipLayout.getSquareIdAt( breachCoordX, breachCoordY );
 
-			SavedGameParser.RoomState roomState = shipState.getRoom(i);
-			for (int s=0; s < squaresH*squaresV; s++) {
-				int fireHealth = roomState.getSquare(s).fireHealth;
-				if ( fireHealth > 0 ) {
-					int fireX = roomX+tileEdge + (s%squaresH)*squareSize + squareSize/2;
-					int fireY = roomY+tileEdge + (s/squaresH)*squareSize + squareSize/2;
-					addFireSprite( fireX, fireY, i, s, fireHealth );
+					addBreachSprite( breachX, breachY, roomId, squareId, breachEntry.getValue().intValue() );
+				}
+
+				for (int i=0; i < shipLayout.getRoomCount(); i++) {
+					int roomLocX = shipLayout.getRoomLocationX( i );
+					int roomLocY = shipLayout.getRoomLocationY( i );
+					int roomX = originX + squareSize * roomLocX;
+					int roomY = originY + squareSize * roomLocY;
+					int squaresH = shipLayout.getRoomSquaresH( i );
+					int squaresV = shipLayout.getRoomSquaresV( i );
+
+					SavedGameParser.RoomState roomState = shipState.getRoom(i);
+					for (int s=0; s < squaresH*squaresV; s++) {
+						int fireHealth = roomState.getSquare(s).fireHealth;
+						if ( fireHealth > 0 ) {
+							int fireX = roomX+tileEdge + (s%squaresH)*squareSize + squareSize/2;
+							int fireY = roomY+tileEdge + (s/squaresH)*squareSize + squareSize/2;
+							addFireSprite( fireX, fireY, i, s, fireHealth );
+						}
+					}
 				}
 			}
-		}
+		});
 
 		// Add doors.
-		int doorLevel = shipState.getSystem(SystemBlueprint.ID_DOORS).getCapacity()-1;  // Convert to 0-based.
-		for (Map.Entry<ShipLayout.DoorCoordinate, SavedGameParser.DoorState> entry : shipState.getDoorMap().entrySet()) {
-			ShipLayout.DoorCoordinate doorCoord = entry.getKey();
-			SavedGameParser.DoorState doorState = entry.getValue();
-			int doorX = originX + doorCoord.x*squareSize + (doorCoord.v==1 ? 0 : squareSize/2);
-			int doorY = originY + doorCoord.y*squareSize + (doorCoord.v==1 ? squareSize/2 : 0);
+		submitStage( new RenderStage("doors") {
+			@Override
+			protected void prepare() throws IOException {
+				SpriteAtlas.get( DOOR_SHEET_PATH, 35, 35 );
+			}
 
-			addDoorSprite( doorX, doorY, doorLevel, doorCoord, doorState );
-		}
+			@Override
+			protected void build() {
+				int doorLevel = shipState.getSystem(SystemBlueprint.ID_DOORS).getCapacity()-1;  // Convert to 0-based.
+				for (Map.Entry<ShipLayout.DoorCoordinate, SavedGameParser.DoorState> entry : shipState.getDoorMap().entrySet()) {
+					ShipLayout.DoorCoordinate doorCoord = entry.getKey();
+					SavedGameParser.DoorState doorState = entry.getValue();
+					int doorX = originX + doorCoord.x*squareSize + (doorCoord.v==1 ? 0 : squareSize/2);
+					int doorY = originY + doorCoord.y*squareSize + (doorCoord.v==1 ? squareSize/2 : 0);
+
+					addDoorSprite( doorX, doorY, doorLevel, doorCoord, doorState );
+				}
+			}
+		});
 
 		// Add crew.
+		final ArrayList<String> crewImagePaths = new ArrayList<String>();
 		for (SavedGameParser.CrewState crewState : shipState.getCrewList()) {
-			EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo( crewState.getRoomId() );
-			int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-			int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
-			int roomX = originX + squareSize * roomLocX;
-			int roomY = originY + squareSize * roomLocY;
-			int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-			int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
-
-			int crewX = roomX + tileEdge + (crewState.getRoomSquare()%squaresH)*squareSize + squareSize/2;
-			int crewY = roomY + tileEdge + (crewState.getRoomSquare()/squaresH)*squareSize + squareSize/2;
-			addCrewSprite( crewX, crewY, crewState );
+			String crewImagePath = getCrewImagePath( crewState.getRace(), crewState.isMale(), crewState.isPlayerControlled() );
+			if ( !crewImagePaths.contains( crewImagePath ) ) crewImagePaths.add( crewImagePath );
 		}
 
-		miscSelector.setSize( floorLbl.getIcon().getIconWidth(), floorLbl.getIcon().getIconHeight() );
-		squareSelector.setSize( floorLbl.getIcon().getIconWidth(), floorLbl.getIcon().getIconHeight() );
+		submitStage( new RenderStage("crew") {
+			@Override
+			protected void prepare() throws IOException {
+				for (String crewImagePath : crewImagePaths) {
+					SpriteAtlas.get( crewImagePath, 35, 35 );
+				}
+			}
 
-		shipPanel.setPreferredSize( new Dimension(floorLbl.getIcon().getIconWidth(), floorLbl.getIcon().getIconHeight()) );
+			@Override
+			protected void build() {
+				for (SavedGameParser.CrewState crewState : shipState.getCrewList()) {
+					int roomId = crewState.getRoomId();
+					int roomLocX = shipLayout.getRoomLocationX( roomId );
+					int roomLocY = shipLayout.getRoomLocationY( roomId );
+					int roomX = originX + squareSize * roomLocX;
+					int roomY = originY + squareSize * roomLocY;
+					int squaresH = shipLayout.getRoomSquaresH( roomId );
+					int squaresV = shipLayout.getRoomSquaresV( roomId );
+
+					int crewX = roomX + tileEdge + (crewState.getRoomSquare()%squaresH)*squareSize + squareSize/2;
+					int crewY = roomY + tileEdge + (crewState.getRoomSquare()/squaresH)*squareSize + squareSize/2;
+					addCrewSprite( crewX, crewY, crewState );
+				}
+			}
+		});
+
+		updateShipPanelSize();
 
 		miscSelector.setVisible( true );
 
@@ -801,7 +893,85 @@ public class SavedGameFloorplanPanel extends JPanel {
 		shipPanel.repaint();
 	}
 
+	private static ThreadFactory createRenderThreadFactory() {
+		return new ThreadFactory() {
+			private AtomicInteger n = new AtomicInteger();
+			@Override
+			public Thread newThread( Runnable r ) {
+				Thread t = new Thread( r, "Floorplan-"+ n.incrementAndGet() );
+				t.setDaemon( true );
+				t.setPriority( Thread.MIN_PRIORITY );
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * Builds any layers still loading, on the spot.
+	 *
+	 * Call this before editing sprites, or reading them back into a
+	 * game state.
+	 */
+	private void finishRendering() {
+		while ( !pendingStages.isEmpty() ) {
+			publishStage( pendingStages.get(0) );
+		}
+	}
+
+	private void submitStage( RenderStage stage ) {
+		pendingStages.add( stage );
+		renderPool.execute( stage );
+	}
+
+	/**
+	 * Builds a layer on the EDT, unless it's stale or already built.
+	 */
+	private void publishStage( RenderStage stage ) {
+		if ( stage.generation != renderGeneration ) return;
+		if ( !pendingStages.remove( stage ) ) return;
+
+		stage.build();
+		shipPanel.revalidate();
+		shipPanel.repaint();
+	}
+
+	/**
+	 * Sizes the ship panel and its selectors to the floor image, or
+	 * to the chassis bounds while that's loading.
+	 */
+	private void updateShipPanelSize() {
+		int w, h;
+		if ( floorSprite.getImage() != null ) {
+			w = floorSprite.getImage().getWidth();
+			h = floorSprite.getImage().getHeight();
+		} else {
+			w = shipChassis.getImageBounds().w;
+			h = shipChassis.getImageBounds().h;
+		}
+		spriteCanvas.setSize( w, h );
+		miscSelector.setSize( w, h );
+		squareSelector.setSize( w, h );
+
+		shipPanel.setPreferredSize( new Dimension(w, h) );
+	}
+
+	/**
+	 * Returns the size of a ship image, or the chassis bounds if it
+	 * can't be loaded.
+	 */
+	private Dimension getShipImageSize( String innerPath ) {
+		try {
+			BufferedImage image = ImageCache.get().getImage( innerPath );
+			return new Dimension( image.getWidth(), image.getHeight() );
+
+		} catch (IOException e) {
+			return new Dimension( shipChassis.getImageBounds().w, shipChassis.getImageBounds().h );
+		}
+	}
+
 	public void updateGameState( SavedGameParser.SavedGameState gameState ) {
+		finishRendering();
+
 		SavedGameParser.ShipState shipState = gameState.getPlayerShipState();
 		shipBlueprint = DataManager.get().getShip( shipState.getShipBlueprintId() );
 		shipLayout = DataManager.get().getShipLayout( shipState.getShipLayoutId() );
@@ -850,11 +1020,10 @@ public class SavedGameFloorplanPanel extends JPanel {
 			int roomId = breachSprite.getRoomId();
 			int squareId = breachSprite.getSquareId();
 
-			EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo( roomId );
-			int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-			int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
-			int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-			int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
+			int roomLocX = shipLayout.getRoomLocationX( roomId );
+			int roomLocY = shipLayout.getRoomLocationY( roomId );
+			int squaresH = shipLayout.getRoomSquaresH( roomId );
+			int squaresV = shipLayout.getRoomSquaresV( roomId );
 
 			int breachX = roomLocX + squareId%squaresH + shipLayout.getOffsetX();
 			int breachY = roomLocY + squareId/squaresV + shipLayout.getOffsetY();
@@ -1199,53 +1368,26 @@ public class SavedGameFloorplanPanel extends JPanel {
 	}
 
 	/**
-	 * Gets a cropped area of an image and caches the result.
+	 * Gets a sprite sheet, decoded once and shared, to slice frames from.
 	 *
-	 * If something goes wrong, a dummy image will be created with
-	 * the expected dimensions.
+	 * If something goes wrong, a dummy sheet will be created with
+	 * the expected number of frames.
 	 */
-	private BufferedImage getCroppedImage( String innerPath, int x, int y, int w, int h) {
-		Rectangle keyRect = new Rectangle( x, y, w, h );
-		BufferedImage result = null;
-		HashMap<Rectangle, BufferedImage> cacheMap = cachedImages.get(innerPath);
-		if ( cacheMap != null ) result = cacheMap.get(keyRect);
-		if (result != null) return result;
-		log.trace( "Image not in cache, loading and cropping...: "+ innerPath );
-
-		InputStream in = null;
+	private SpriteAtlas getSpriteAtlas( String innerPath, int frameW, int frameH, int columns, int rows ) {
 		try {
-			in = DataManager.get().getResourceInputStream( innerPath );
-			BufferedImage bigImage = ImageIO.read(in);
-			result = bigImage.getSubimage(x, y, w, h);
+			SpriteAtlas atlas = SpriteAtlas.get( innerPath, frameW, frameH );
+			if ( atlas.getColumnCount() >= columns && atlas.getRowCount() >= rows )
+				return atlas;
 
-		} catch (RasterFormatException e) {
-			log.error( "Failed to load and crop image: "+ innerPath, e );
+			log.error( "Sprite sheet has fewer than "+ columns +"x"+ rows +" frames: "+ innerPath );
 		} catch (IOException e) {
-			log.error( "Failed to load and crop image: "+ innerPath, e );
-		} finally {
-			try {if (in != null) in.close();}
-			catch (IOException f) {}
-		}
-
-		if ( result == null ) {  // Guarantee a returned image, with a stand-in.
-			result = gc.createCompatibleImage( w, h, Transparency.OPAQUE );
-			Graphics2D g2d = (Graphics2D)result.createGraphics();
-			g2d.setColor( new Color(150, 150, 200) );
-			g2d.fillRect( 0, 0, w-1, h-1 );
-			g2d.dispose();
-		}
-
-		if ( cacheMap == null ) {
-			cacheMap = new HashMap<Rectangle, BufferedImage>();
-			cachedImages.put( innerPath, cacheMap );
+			log.error( "Failed to load sprite sheet: "+ innerPath, e );
 		}
-		cacheMap.put( keyRect, result );
-
-		return result;
+		return new SpriteAtlas( createDummyImage( columns*frameW, rows*frameH ), frameW, frameH );
 	}
 
 	/**
-	 * Gets an image, scaling if necessary, and caches the result.
+	 * Gets an image, scaling if necessary, from the shared cache.
 	 *
 	 * If something goes wrong, a dummy image will be created with
 	 * the expected dimensions.
@@ -1255,55 +1397,71 @@ public class SavedGameFloorplanPanel extends JPanel {
 	 * used for the dummy image.
 	 */
 	private BufferedImage getScaledImage( String innerPath, int w, int h) {
-		Rectangle keyRect = new Rectangle( 0, 0, w, h );
-		BufferedImage result = null;
-		HashMap<Rectangle, BufferedImage> cacheMap = cachedImages.get(innerPath);
-		if ( cacheMap != null ) result = cacheMap.get(keyRect);
-		if (result != null) return result;
-		log.trace( "Image not in cache, loading and scaling...: "+ innerPath );
-
-
-		InputStream in = null;
 		try {
-			in = DataManager.get().getResourceInputStream( innerPath );
-			BufferedImage origImage = ImageIO.read(in);
-
-			if ( w <= 0 || h <= 0 || (origImage.getWidth() == w && origImage.getHeight() == h) ) {
-				result = origImage;
-			} else {
-				BufferedImage scaledImage = new BufferedImage(w, h, Transparency.TRANSLUCENT);
-				Graphics2D g2d = scaledImage.createGraphics();
-				g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-				g2d.drawImage(origImage, 0, 0, w, h, null);
-				g2d.dispose();
-				result = scaledImage;
-			}
+			return ImageCache.get().getScaledImage( innerPath, w, h );
 
 		} catch (RasterFormatException e) {
 			log.error( "Failed to load and scale image: "+ innerPath, e );
 		} catch (IOException e) {
 			log.error( "Failed to load and scale image: "+ innerPath, e );
-		} finally {
-			try {if (in != null) in.close();}
-			catch (IOException f) {}
 		}
+		return createDummyImage( Math.abs(w), Math.abs(h) );
+	}
 
-		if ( result == null ) {  // Guarantee a returned image, with a stand-in.
-			w = Math.abs(w);
-			h = Math.abs(h);
-			result = gc.createCompatibleImage( w, h, Transparency.OPAQUE );
-			Graphics2D g2d = (Graphics2D)result.createGraphics();
-			g2d.setColor( new Color(150, 150, 200) );
-			g2d.fillRect( 0, 0, w-1, h-1 );
-			g2d.dispose();
-		}
+	/**
+	 * Creates a translucent outline to show while an image loads.
+	 */
+	private BufferedImage createPlaceholderImage( int w, int h ) {
+		BufferedImage result = gc.createCompatibleImage( Math.max(1, w), Math.max(1, h), Transparency.TRANSLUCENT );
+		Graphics2D g2d = (Graphics2D)result.createGraphics();
+		g2d.setColor( new Color(150, 150, 200, 64) );
+		g2d.fillRect( 0, 0, w-1, h-1 );
+		g2d.setColor( new Color(150, 150, 200, 160) );
+		g2d.drawRect( 0, 0, w-1, h-1 );
+		g2d.dispose();
+		return result;
+	}
+
+	/**
+	 * Returns the inner path of a system's room icon.
+	 */
+	private String getSystemOverlayPath( String systemId ) {
+		return "img/icons/s_"+ systemId +"_overlay.png";  // Assuming these are interchangeable.
+	}
+
+	/**
+	 * Returns the inner path of a crew member's sprite sheet.
+	 */
+	private String getCrewImagePath( String race, boolean male, boolean playerControlled ) {
+		String imgRace = race;
+		String suffix = "";
 
-		if ( cacheMap == null ) {
-			cacheMap = new HashMap<Rectangle, BufferedImage>();
-			cachedImages.put( innerPath, cacheMap );
+		if ( race.equals("battle") ) {
+			suffix = "_enemy_sheet";
+		} else {
+			// Only humans can be female. Other races keep the flag but ignore it.
+			if ( !male && race.equals("human") ) {
+				imgRace = "female";  // Never an actual race?
+			}
+
+			if ( playerControlled ) {
+				suffix = "_player_yellow";
+			} else {
+				suffix = "_enemy_red";
+			}
 		}
-		cacheMap.put( keyRect, result );
+		return "img/people/"+ imgRace + suffix +".png";
+	}
 
+	/**
+	 * Creates a stand-in for an image that couldn't be loaded.
+	 */
+	private BufferedImage createDummyImage( int w, int h ) {
+		BufferedImage result = gc.createCompatibleImage( w, h, Transparency.OPAQUE );
+		Graphics2D g2d = (Graphics2D)result.createGraphics();
+		g2d.setColor( new Color(150, 150, 200) );
+		g2d.fillRect( 0, 0, w-1, h-1 );
+		g2d.dispose();
 		return result;
 	}
 
@@ -1318,23 +1476,22 @@ public class SavedGameFloorplanPanel extends JPanel {
 			weaponSprite.setLocation( weaponMount.x - weaponSprite.getWidth()/2, weaponMount.y - weaponSprite.getHeight() );
 		}
 		weaponSprites.add( weaponSprite );
-		shipPanel.add( weaponSprite, WEAPON_LAYER );
 	}
 
 	private void addDoorSprite( int centerX, int centerY, int level, ShipLayout.DoorCoordinate doorCoord, SavedGameParser.DoorState doorState ) {
-		int offsetX = 0, offsetY = 0, w = 35, h = 35;
+		int w = 35, h = 35;
 		int levelCount = 3;
 
-		// Dom't scale the image, but pass negative size to define the fallback dummy image.
-		BufferedImage bigImage = getScaledImage( "img/effects/door_sheet.png", -1*((offsetX+4*w)+w), -1*((offsetY+(levelCount-1)*h)+h) );
+		// Columns are animation frames, closed to open. Rows are levels.
+		SpriteAtlas doorAtlas = getSpriteAtlas( DOOR_SHEET_PATH, w, h, 5, levelCount );
 
 		BufferedImage[] closedImages = new BufferedImage[levelCount];
 		BufferedImage[] openImages = new BufferedImage[levelCount];
 
 		for (int i=0; i < levelCount; i++) {
 			int chop = 10;  // Chop 10 pixels off the sides for skinny doors.
-			closedImages[i] = bigImage.getSubimage(offsetX+chop, offsetY+i*h, w-chop*2, h);
-			openImages[i] = bigImage.getSubimage(offsetX+4*w+chop, offsetY+i*h, w-chop*2, h);
+			closedImages[i] = doorAtlas.getFrame( 0, i, chop, 0 );
+			openImages[i] = doorAtlas.getFrame( 4, i, chop, 0 );
 		}
 
 		DoorSprite doorSprite = new DoorSprite( closedImages, openImages, level, doorCoord, doorState );
@@ -1345,48 +1502,44 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 		placeSprite( centerX, centerY, doorSprite );
 		doorSprites.add( doorSprite );
-		shipPanel.add( doorSprite, DOOR_LAYER );
 	}
 
 	private void addSystemSprite( int centerX, int centerY, SavedGameParser.SystemState systemState ) {
 		int w = 32, h = 32;
-		String overlayBaseName = systemState.getSystemId();  // Assuming these are interchangeable.
-		BufferedImage overlayImage = getScaledImage( "img/icons/s_"+ overlayBaseName +"_overlay.png", w, h );
+		String overlayPath = getSystemOverlayPath( systemState.getSystemId() );
 
 		// Darken the white icon to gray...
-		BufferedImage canvas = gc.createCompatibleImage(w, h, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g2d = canvas.createGraphics();
-		g2d.drawImage(overlayImage, 0, 0, null);
-		g2d.dispose();
-		RescaleOp op = new RescaleOp(new float[] { 0.49f, 0.49f, 0.49f, 1f }, new float[] { 0, 0, 0, 0 }, null);
-		overlayImage = op.filter(canvas, null);
+		BufferedImage overlayImage;
+		try {
+			overlayImage = ImageCache.get().getTintedImage( overlayPath, w, h, SYSTEM_OVERLAY_TINT );
+		} catch (IOException e) {
+			log.error( "Failed to load and tint image: "+ overlayPath, e );
+			overlayImage = createDummyImage( w, h );
+		}
 
 		SystemSprite systemSprite = new SystemSprite( overlayImage, systemState );
 		systemSprite.setBounds( centerX-w/2, centerY-h/2, w, h );
 		systemSprites.add( systemSprite );
-		shipPanel.add( systemSprite, SYSTEM_LAYER );
 	}
 
 	private void addBreachSprite( int centerX, int centerY, int roomId, int squareId, int health ) {
-		int offsetX = 0, offsetY = 0, w = 19, h = 19;
+		int w = 19, h = 19;
 
-		BufferedImage breachImage = getCroppedImage( "img/effects/breach.png", offsetX+6*w, offsetY, w, h );
+		BufferedImage breachImage = getSpriteAtlas( BREACH_SHEET_PATH, w, h, 7, 1 ).getFrame( 6, 0 );
 
 		BreachSprite breachSprite = new BreachSprite( breachImage, roomId, squareId, health );
 		breachSprite.setBounds( centerX-w/2, centerY-h/2, w, h );
 		breachSprites.add( breachSprite );
-		shipPanel.add( breachSprite, BREACH_LAYER );
 	}
 
 	private void addFireSprite( int centerX, int centerY, int roomId, int squareId, int health ) {
-		int offsetX = 0, offsetY = 0, w = 32, h = 32;
+		int w = 32, h = 32;
 
-		BufferedImage fireImage = getCroppedImage( "img/effects/fire_L1_strip8.png", offsetX, offsetY, w, h );
+		BufferedImage fireImage = getSpriteAtlas( FIRE_SHEET_PATH, w, h, 8, 1 ).getFrame( 0, 0 );
 
 		FireSprite fireSprite = new FireSprite( fireImage, roomId, squareId, health );
 		fireSprite.setBounds( centerX-w/2, centerY-h/2, w, h );
 		fireSprites.add( fireSprite );
-		shipPanel.add( fireSprite, FIRE_LAYER );
 	}
 
 	private void addCrewSprite( int centerX, int centerY, SavedGameParser.CrewState crewState ) {
@@ -1395,7 +1548,6 @@ public class SavedGameFloorplanPanel extends JPanel {
 		int h = crewSprite.getImageHeight();
 		crewSprite.setBounds( centerX-w/2, centerY-h/2, w, h );
 		crewSprites.add( crewSprite );
-		shipPanel.add( crewSprite, CREW_LAYER );
 	}
 
 	/** Relocates a JComponent within its parent's null layout. */
@@ -1417,13 +1569,12 @@ public class SavedGameFloorplanPanel extends JPanel {
 		int fromX, fromY, toX, toY;
 
 		for (int i=0; i < shipLayout.getRoomCount(); i++) {
-			EnumMap<ShipLayout.RoomInfo, Integer> roomInfoMap = shipLayout.getRoomInfo(i);
-			int roomLocX = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_X ).intValue();
-			int roomLocY = roomInfoMap.get( ShipLayout.RoomInfo.LOCATION_Y ).intValue();
+			int roomLocX = shipLayout.getRoomLocationX( i );
+			int roomLocY = shipLayout.getRoomLocationY( i );
 			int roomX = originX + squareSize * roomLocX;
 			int roomY = originY + squareSize * roomLocY;
-			int squaresH = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_H ).intValue();
-			int squaresV = roomInfoMap.get( ShipLayout.RoomInfo.SQUARES_V ).intValue();
+			int squaresH = shipLayout.getRoomSquaresH( i );
+			int squaresV = shipLayout.getRoomSquaresV( i );
 
 			// Draw floor lines within rooms.
 			wallG.setColor( floorCrackColor );
@@ -2097,7 +2248,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 			public void actionPerformed(ActionEvent e) {
 				clearSidePanel();
 				breachSprites.remove( breachSprite );
-				shipPanel.remove( breachSprite );
+				breachSprite.repaint();  // Clear where it was.
 			}
 		});
 
@@ -2134,7 +2285,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 			public void actionPerformed(ActionEvent e) {
 				clearSidePanel();
 				fireSprites.remove( fireSprite );
-				shipPanel.remove( fireSprite );
+				fireSprite.repaint();  // Clear where it was.
 			}
 		});
 
@@ -2315,7 +2466,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 			public void actionPerformed(ActionEvent e) {
 				clearSidePanel();
 				crewSprites.remove( crewSprite );
-				shipPanel.remove( crewSprite );
+				crewSprite.repaint();  // Clear where it was.
 			}
 		});
 
@@ -2324,7 +2475,156 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 
 
-	public class WeaponSprite extends JComponent {
+	/**
+	 * One layer of the floorplan, loaded in the background.
+	 *
+	 * Swing components can only be made on the EDT, so a worker just
+	 * decodes and scales the layer's images into the shared cache.
+	 * Then the layer is built on the EDT from cache hits. If a stage
+	 * gets built before its images are ready, it loads them itself.
+	 */
+	private abstract class RenderStage implements Runnable {
+		private final String title;
+		private final int generation = renderGeneration;
+
+		public RenderStage( String title ) {
+			this.title = title;
+		}
+
+		/** Warms the image cache. Runs on a worker thread. */
+		protected abstract void prepare() throws IOException;
+
+		/** Adds the layer's components. Runs on the EDT. */
+		protected abstract void build();
+
+		@Override
+		public void run() {
+			try {
+				prepare();
+			}
+			catch ( Exception e ) {
+				// The build will try again and report it.
+				log.debug( "Failed to prepare floorplan "+ title +" layer: "+ e.getMessage() );
+			}
+			SwingUtilities.invokeLater( new Runnable() {
+				@Override
+				public void run() {
+					publishStage( RenderStage.this );
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Paints every sprite layer in one pass.
+	 *
+	 * Sprites aren't children of any container, so Swing doesn't lay
+	 * out, clip, or paint them one by one. This walks the layers bottom
+	 * to top and paints whichever sprites intersect the dirty area.
+	 */
+	public class SpriteCanvas extends JComponent {
+		private List<List<? extends FloorplanSprite>> layers;
+
+		public SpriteCanvas( List<List<? extends FloorplanSprite>> layers ) {
+			this.layers = layers;
+		}
+
+		@Override
+		public void paintComponent( Graphics g ) {
+			Rectangle clip = g.getClipBounds();
+			if ( clip == null ) clip = new Rectangle( 0, 0, this.getWidth(), this.getHeight() );
+
+			if ( this.isOpaque() ) {
+				g.setColor( this.getBackground() );
+				g.fillRect( clip.x, clip.y, clip.width, clip.height );
+			}
+
+			for (List<? extends FloorplanSprite> layer : layers) {
+				// Walk backward: earlier sprites were on top when each was a component.
+				for (int i=layer.size()-1; i >= 0; i--) {
+					FloorplanSprite sprite = layer.get(i);
+					if ( !sprite.isVisible() || !sprite.getBounds().intersects( clip ) ) continue;
+
+					Graphics spriteG = g.create( sprite.getX(), sprite.getY(), sprite.getWidth(), sprite.getHeight() );
+					try {
+						spriteG.setColor( this.getForeground() );
+						spriteG.setFont( this.getFont() );
+						sprite.paintComponent( spriteG );
+					}
+					finally {
+						spriteG.dispose();
+					}
+				}
+			}
+		}
+	}
+
+
+
+	/**
+	 * Something drawn on the SpriteCanvas.
+	 *
+	 * A sprite keeps its bounds and state as a component would, but it
+	 * isn't added to the ship panel. Repaints and moves are forwarded to
+	 * the canvas as dirty rectangles.
+	 */
+	public class FloorplanSprite extends JComponent {
+
+		@Override
+		public void setBounds( int x, int y, int w, int h ) {
+			if ( x == this.getX() && y == this.getY() && w == this.getWidth() && h == this.getHeight() ) return;
+
+			this.repaint();  // Where it was.
+			super.setBounds( x, y, w, h );
+			this.repaint();
+		}
+
+		@Override
+		public void repaint( long tm, int x, int y, int w, int h ) {
+			if ( spriteCanvas != null )
+				spriteCanvas.repaint( tm, this.getX()+x, this.getY()+y, w, h );
+		}
+
+		@Override
+		public void paintComponent( Graphics g ) {
+			super.paintComponent(g);
+		}
+	}
+
+
+
+	/**
+	 * An image centered within its bounds.
+	 */
+	public class ImageSprite extends FloorplanSprite {
+		private BufferedImage image;
+
+		public ImageSprite( BufferedImage image ) {
+			this.image = image;
+			this.setOpaque(false);
+		}
+
+		public void setImage( BufferedImage image ) {
+			this.image = image;
+			this.repaint();
+		}
+		public BufferedImage getImage() { return image; }
+
+		@Override
+		public void paintComponent( Graphics g ) {
+			super.paintComponent(g);
+			if ( image == null ) return;
+
+			int x = (this.getWidth() - image.getWidth()) / 2;
+			int y = (this.getHeight() - image.getHeight()) / 2;
+			g.drawImage( image, x, y, this );
+		}
+	}
+
+
+
+	public class WeaponSprite extends FloorplanSprite {
 		private int imageWidth = 64, imageHeight = 25;
 		private boolean rotated;
 		private String slotString;
@@ -2383,7 +2683,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 
 
-	public class RoomSprite extends JComponent {
+	public class RoomSprite extends FloorplanSprite {
 		private final Color maxColor = new Color( 230, 226, 219 );
 		private final Color minColor = new Color( 255, 176, 169 );
 		private final Color vacuumBorderColor = new Color(255, 180, 0);
@@ -2456,7 +2756,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 
 
-	public class SystemSprite extends JComponent {
+	public class SystemSprite extends FloorplanSprite {
 		private BufferedImage overlayImage;
 		private String systemId;
 		private int capacity;
@@ -2509,7 +2809,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 
 
-	public class BreachSprite extends JComponent {
+	public class BreachSprite extends FloorplanSprite {
 		private BufferedImage breachImage;
 		private int roomId;
 		private int squareId;
@@ -2542,7 +2842,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 
 
-	public class FireSprite extends JComponent {
+	public class FireSprite extends FloorplanSprite {
 		private BufferedImage fireImage;
 		private int roomId;
 		private int squareId;
@@ -2575,7 +2875,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 
 
-	public class DoorSprite extends JComponent {
+	public class DoorSprite extends FloorplanSprite {
 		private BufferedImage[] closedImages;
 		private BufferedImage[] openImages;
 		private int level;
@@ -2643,7 +2943,7 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 
 
-	public class CrewSprite extends JComponent {
+	public class CrewSprite extends FloorplanSprite {
 		private BufferedImage crewImage;
 		private int roomId;
 		private int squareId;
@@ -2750,25 +3050,9 @@ public class SavedGameFloorplanPanel extends JPanel {
 			health = Math.min( health, SavedGameParser.CrewState.getMaxHealth(race) );
 
 			// Always same size: no repositioning needed to align image's center with the square's.
-			int offsetX = 0, offsetY = 0, w = 35, h = 35;
-			String imgRace = race;
-			String suffix = "";
-
-			if ( getRace().equals("battle") ) {
-				suffix = "_enemy_sheet";
-			} else {
-				// Only humans can be female. Other races keep the flag but ignore it.
-				if ( !isMale() && getRace().equals("human") ) {
-					imgRace = "female";  // Never an actual race?
-				}
-
-				if ( isPlayerControlled() ) {
-					suffix = "_player_yellow";
-				} else {
-					suffix = "_enemy_red";
-				}
-			}
-			crewImage = getCroppedImage( "img/people/"+ imgRace + suffix +".png", offsetX, offsetY, w, h );
+			int w = 35, h = 35;
+			String crewImagePath = getCrewImagePath( getRace(), isMale(), isPlayerControlled() );
+			crewImage = getSpriteAtlas( crewImagePath, w, h, 1, 1 ).getFrame( 0, 0 );
 		}
 
 		@Override
@@ -2793,6 +3077,8 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 		private HashMap<Rectangle, Integer> roomRegions;
 		private HashMap<Rectangle, Integer> squareRegions;
+		private GridIndex<Rectangle> squareIndex = new GridIndex<Rectangle>( squareSize );
+		private boolean indexStale = true;
 		private SquareCriteria squareCriteria = defaultCriteria;
 		private SquareSelectionCallback callback = null;
 		private Point mousePoint = new Point( -1, -1 );
@@ -2811,12 +3097,8 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 				Rectangle newRect = null;
 				if ( mousePoint.x > 0 && mousePoint.y > 0 ) {
-					for (Map.Entry<Rectangle, Integer> entry : squareRegions.entrySet()) {
-						if ( entry.getKey().contains( mousePoint ) ) {
-							newRect = entry.getKey();
-							break;
-						}
-					}
+					if ( indexStale ) updateIndex();
+					newRect = squareIndex.get( mousePoint.x, mousePoint.y );
 				}
 				if ( newRect != currentRect ) {
 					if ( currentRect != null ) this.repaint( currentRect );
@@ -2826,6 +3108,19 @@ public class SavedGameFloorplanPanel extends JPanel {
 			}
 		}
 
+		/** Notes that the regions changed, so hit-testing must re-index them. */
+		public void invalidateIndex() {
+			indexStale = true;
+		}
+
+		private void updateIndex() {
+			squareIndex.clear();
+			for (Rectangle squareRect : squareRegions.keySet()) {
+				squareIndex.add( squareRect, squareRect );
+			}
+			indexStale = false;
+		}
+
 		public int getRoomId() {
 			int roomId = -1;
 			if ( roomRegions.containsKey( currentRect ) )
@@ -2968,14 +3263,27 @@ public class SavedGameFloorplanPanel extends JPanel {
 	public class SpriteSelector extends JComponent {
 		private SpriteCriteria defaultCriteria = new SpriteCriteria();
 
-		private ArrayList[] spriteLists;
+		private List<List<? extends JComponent>> spriteLists;
+		private GridIndex<JComponent> spriteIndex = new GridIndex<JComponent>( squareSize );
+		private ArrayList<JComponent> indexedSprites = new ArrayList<JComponent>();
+		private boolean indexStale = true;
+		private ComponentListener spriteListener = new ComponentAdapter() {
+			@Override
+			public void componentMoved( ComponentEvent e ) {
+				indexStale = true;
+			}
+			@Override
+			public void componentResized( ComponentEvent e ) {
+				indexStale = true;
+			}
+		};
 		private SpriteCriteria spriteCriteria = defaultCriteria;
 		private SpriteSelectionCallback callback = null;
 		private Point mousePoint = new Point( -1, -1 );
 		private JComponent currentSprite = null;
 		private boolean paintDescription = false;
 
-		public SpriteSelector( ArrayList[] spriteLists ) {
+		public SpriteSelector( List<List<? extends JComponent>> spriteLists ) {
 			this.spriteLists = spriteLists;
 		}
 
@@ -2986,15 +3294,8 @@ public class SavedGameFloorplanPanel extends JPanel {
 
 				JComponent newSprite = null;
 				if ( mousePoint.x > 0 && mousePoint.y > 0 ) {
-					for (ArrayList spriteList : spriteLists) {
-						for (JComponent sprite : (ArrayList<JComponent>)spriteList) {
-							if ( sprite.getBounds().contains( mousePoint ) ) {
-								newSprite = sprite;
-								break;
-							}
-						}
-						if ( newSprite != null ) break;
-					}
+					if ( indexStale || getSpriteCount() != indexedSprites.size() ) updateIndex();
+					newSprite = spriteIndex.get( mousePoint.x, mousePoint.y );
 				}
 				if ( newSprite != currentSprite ) {
 					if ( currentSprite != null ) this.repaint( currentSprite.getBounds() );
@@ -3004,6 +3305,39 @@ public class SavedGameFloorplanPanel extends JPanel {
 			}
 		}
 
+		/**
+		 * Notes that the sprites changed, so hit-testing must re-index them.
+		 *
+		 * Moved or resized sprites, and lists changing size, are noticed
+		 * automatically. Call this after replacing a sprite in a list.
+		 */
+		public void invalidateIndex() {
+			indexStale = true;
+		}
+
+		private int getSpriteCount() {
+			int result = 0;
+			for (List<? extends JComponent> spriteList : spriteLists)
+				result += spriteList.size();
+			return result;
+		}
+
+		private void updateIndex() {
+			for (JComponent sprite : indexedSprites)
+				sprite.removeComponentListener( spriteListener );
+			indexedSprites.clear();
+			spriteIndex.clear();
+
+			for (List<? extends JComponent> spriteList : spriteLists) {
+				for (JComponent sprite : spriteList) {
+					spriteIndex.add( sprite.getBounds(), sprite );
+					sprite.addComponentListener( spriteListener );
+					indexedSprites.add( sprite );
+				}
+			}
+			indexStale = false;
+		}
+
 		public JComponent getSprite() {
 			return currentSprite;
 		}
@@ -0,0 +1,62 @@
+package net.blerf.ftl.ui;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import net.blerf.ftl.ui.ImageCache;
+
+
+/**
+ * A sprite sheet laid out as a grid of equally sized frames.
+ *
+ * The sheet is decoded once, through ImageCache, and frames are
+ * getSubimage() views into it: slicing never decodes or copies
+ * pixels. Views share the sheet's pixels, so they mustn't be
+ * modified.
+ */
+public class SpriteAtlas {
+
+	private BufferedImage sheet;
+	private int frameWidth;
+	private int frameHeight;
+
+
+	public SpriteAtlas( BufferedImage sheet, int frameWidth, int frameHeight ) {
+		this.sheet = sheet;
+		this.frameWidth = frameWidth;
+		this.frameHeight = frameHeight;
+	}
+
+	/**
+	 * Returns an atlas over a sheet in resource.dat.
+	 */
+	public static SpriteAtlas get( String innerPath, int frameWidth, int frameHeight ) throws IOException {
+		return new SpriteAtlas( ImageCache.get().getCompatibleImage( innerPath ), frameWidth, frameHeight );
+	}
+
+	public BufferedImage getSheet() { return sheet; }
+	public int getFrameWidth() { return frameWidth; }
+	public int getFrameHeight() { return frameHeight; }
+	public int getColumnCount() { return sheet.getWidth() / frameWidth; }
+	public int getRowCount() { return sheet.getHeight() / frameHeight; }
+
+	/**
+	 * Returns a frame by its column and row.
+	 *
+	 * @throws java.awt.image.RasterFormatException if the frame is
+	 *         outside the sheet
+	 */
+	public BufferedImage getFrame( int column, int row ) {
+		return getFrame( column, row, 0, 0 );
+	}
+
+	/**
+	 * Returns a frame with its edges trimmed.
+	 *
+	 * @param insetX pixels to trim from the left and right
+	 * @param insetY pixels to trim from the top and bottom
+	 */
+	public BufferedImage getFrame( int column, int row, int insetX, int insetY ) {
+		return sheet.getSubimage( column*frameWidth + insetX, row*frameHeight + insetY, frameWidth - insetX*2, frameHeight - insetY*2 );
+	}
+}
@@ -1,18 +1,32 @@
 package net.blerf.ftl.xml;
 
+import java.io.Serializable;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 @XmlRootElement(name="augBlueprint")
 @XmlAccessorType(XmlAccessType.FIELD)
-public class AugBlueprint {
+public class AugBlueprint implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
+	@XmlAttribute(name="name")
+	private String id;
 	private String title;
 	private String desc;
 	private int cost, bp, rarity;
 	private String stackable;
 	private float value;
 
+	public String getId() {
+		return id;
+	}
+
+	public void setId( String id ) {
+		this.id = id;
+	}
+
 }
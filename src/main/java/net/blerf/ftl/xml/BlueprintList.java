@@ -1,5 +1,6 @@
 package net.blerf.ftl.xml;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -10,7 +11,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 
 @XmlRootElement(name="blueprintList")
 @XmlAccessorType(XmlAccessType.FIELD)
-public class BlueprintList {
+public class BlueprintList implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
 	@XmlAttribute
 	private String name;
@@ -18,4 +20,12 @@ public class BlueprintList {
 	@XmlElement(name="name")
 	private List<String> items;
 
+	public String getName() {
+		return name;
+	}
+
+	public List<String> getItems() {
+		return items;
+	}
+
 }
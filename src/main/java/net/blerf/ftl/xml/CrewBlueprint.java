@@ -1,16 +1,21 @@
 package net.blerf.ftl.xml;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 @XmlRootElement(name="crewBlueprint")
 @XmlAccessorType(XmlAccessType.FIELD)
-public class CrewBlueprint {
+public class CrewBlueprint implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
+	@XmlAttribute(name="name")
+	private String id;
 	private String desc;
 	private int cost, bp;
 	private String title;
@@ -21,8 +26,18 @@ public class CrewBlueprint {
 	
 	@XmlRootElement(name="powerList")
 	@XmlAccessorType(XmlAccessType.FIELD)
-	public static class PowerList {
+	public static class PowerList implements Serializable {
+		private static final long serialVersionUID = 1L;
+
 		private List<String> power;
 	}
 
+	public String getId() {
+		return id;
+	}
+
+	public void setId( String id ) {
+		this.id = id;
+	}
+
 }
@@ -1,14 +1,20 @@
 package net.blerf.ftl.xml;
 
+import java.io.Serializable;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 @XmlRootElement(name="droneBlueprint")
 @XmlAccessorType(XmlAccessType.FIELD)
-public class DroneBlueprint {
+public class DroneBlueprint implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
+	@XmlAttribute(name="name")
+	private String id;
 	private String type, title;
 	@XmlElement(name="short")
 	private String shortTitle;
@@ -17,4 +23,12 @@ public class DroneBlueprint {
 	private String droneImage, weaponBlueprint;
 	private int rarity;
 
+	public String getId() {
+		return id;
+	}
+
+	public void setId( String id ) {
+		this.id = id;
+	}
+
 }
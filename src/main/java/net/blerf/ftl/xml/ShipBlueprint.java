@@ -1,6 +1,11 @@
 package net.blerf.ftl.xml;
 
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -13,7 +18,8 @@ import net.blerf.ftl.xml.SystemBlueprint;
 
 @XmlRootElement(name="shipBlueprint")
 @XmlAccessorType(XmlAccessType.FIELD)
-public class ShipBlueprint {
+public class ShipBlueprint implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
 	@XmlAttribute(name="name")
 	private String id;
@@ -33,13 +39,33 @@ public class ShipBlueprint {
 	
 	private Object weaponList, crewCount; // TODO model
 	
+	// Snapshots leave out the unmodeled fields: JAXB's DOM nodes aren't
+	// Serializable. Every other field is found by reflection, so new
+	// ones are kept without listing them here.
+	private static final ObjectStreamField[] serialPersistentFields = getPersistentFields( "weaponList", "crewCount" );
+	
+	private static ObjectStreamField[] getPersistentFields( String... unmodeledNames ) {
+		List<String> unmodeled = Arrays.asList( unmodeledNames );
+		List<ObjectStreamField> result = new ArrayList<ObjectStreamField>();
+		for ( Field f : ShipBlueprint.class.getDeclaredFields() ) {
+			int mods = f.getModifiers();
+			if ( Modifier.isStatic(mods) || Modifier.isTransient(mods) ) continue;
+			if ( unmodeled.contains( f.getName() ) ) continue;
+			result.add( new ObjectStreamField( f.getName(), f.getType() ) );
+		}
+		return result.toArray( new ObjectStreamField[result.size()] );
+	}
+	
 	@XmlRootElement
 	@XmlAccessorType(XmlAccessType.FIELD)
-	public static class SystemList {
+	public static class SystemList implements Serializable {
+		private static final long serialVersionUID = 1L;
 
 		@XmlRootElement
 		@XmlAccessorType(XmlAccessType.FIELD)
-		public static class RoomSlot {
+		public static class RoomSlot implements Serializable {
+			private static final long serialVersionUID = 1L;
+
 			@XmlElement(required=false)
 			private String direction;
 			@XmlElement
@@ -62,7 +88,8 @@ public class ShipBlueprint {
 		
 		@XmlRootElement
 		@XmlAccessorType(XmlAccessType.FIELD)
-		public static class SystemRoom {
+		public static class SystemRoom implements Serializable {
+			private static final long serialVersionUID = 1L;
 			
 			@XmlAttribute
 			private int power;
@@ -282,14 +309,18 @@ public class ShipBlueprint {
 
 	@XmlRootElement
 	@XmlAccessorType(XmlAccessType.FIELD)
-	public static class Health {
+	public static class Health implements Serializable {
+		private static final long serialVersionUID = 1L;
+
 		@XmlAttribute
 		public int amount;
 	}
 
 	@XmlRootElement
 	@XmlAccessorType(XmlAccessType.FIELD)
-	public static class MaxPower {
+	public static class MaxPower implements Serializable {
+		private static final long serialVersionUID = 1L;
+
 		@XmlAttribute
 		public int amount;
 	}
@@ -366,6 +397,10 @@ public class ShipBlueprint {
 		this.droneSlots = droneSlots;
 	}
 
+	/**
+	 * Returns the unmodeled weapon list, or null if this was loaded
+	 * from a data snapshot rather than parsed.
+	 */
 	public Object getWeaponList() {
 		return weaponList;
 	}
@@ -390,6 +425,10 @@ public class ShipBlueprint {
 		this.maxPower = maxPower;
 	}
 
+	/**
+	 * Returns the unmodeled crew count, or null if this was loaded
+	 * from a data snapshot rather than parsed.
+	 */
 	public Object getCrewCount() {
 		return crewCount;
 	}
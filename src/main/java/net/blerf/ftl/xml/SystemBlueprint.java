@@ -1,5 +1,6 @@
 package net.blerf.ftl.xml;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -10,7 +11,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 
 @XmlRootElement(name="systemBlueprint")
 @XmlAccessorType(XmlAccessType.FIELD)
-public class SystemBlueprint {
+public class SystemBlueprint implements Serializable {
+	private static final long serialVersionUID = 1L;
 
 	public static final String ID_PILOT = "pilot";
 	public static final String ID_DOORS = "doors";
@@ -44,7 +46,9 @@ public class SystemBlueprint {
 	
 	@XmlRootElement(name="upgradeCost")
 	@XmlAccessorType(XmlAccessType.FIELD)
-	public static class UpgradeCost {
+	public static class UpgradeCost implements Serializable {
+		private static final long serialVersionUID = 1L;
+
 		private List<Integer> level;
 
 		public List<Integer> getLevel() {
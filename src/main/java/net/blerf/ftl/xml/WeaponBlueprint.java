@@ -1,5 +1,6 @@
 package net.blerf.ftl.xml;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -10,7 +11,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 
 @XmlRootElement(name="weaponBlueprint")
 @XmlAccessorType(XmlAccessType.FIELD)
-public class WeaponBlueprint {
+public class WeaponBlueprint implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
 	@XmlAttribute(name="name")
 	private String id;
@@ -29,7 +31,9 @@ public class WeaponBlueprint {
 	
 	@XmlRootElement
 	@XmlAccessorType(XmlAccessType.FIELD)
-	public static class SoundList {
+	public static class SoundList implements Serializable {
+		private static final long serialVersionUID = 1L;
+
 		private List<String> sound;
 	}
 